@@ -0,0 +1,110 @@
+package com.banking.accountService.configuration;
+
+import com.banking.accountService.exception.ResourceConflict;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write of an account in its own transaction and replays it with jittered exponential
+ * backoff when the optimistic version check fails. Every conflict is counted per account bucket, a fixed
+ * hash of the account number, so hot accounts show up in the metrics long before retries start to run out
+ * while the number of meters stays bounded however many accounts conflict; the log names the account.
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+    public static final String CONFLICTS_METRIC = "account.update.conflicts";
+    public static final String EXHAUSTED_METRIC = "account.update.retries.exhausted";
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final int conflictBuckets;
+
+    public OptimisticLockRetry(PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${account.retry.max-attempts}") int maxAttempts,
+                               @Value("${account.retry.initial-backoff-ms}") long initialBackoffMs,
+                               @Value("${account.retry.max-backoff-ms}") long maxBackoffMs,
+                               @Value("${account.metrics.conflict-buckets}") int conflictBuckets) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.conflictBuckets = conflictBuckets;
+    }
+
+    /**
+     * Executes the update, retrying it on optimistic locking failures.
+     *
+     * @param accountNumber the account being updated, used to tag the conflict metrics
+     * @param operation     the name of the update, used to tag the conflict metrics
+     * @param update        the read-modify-write to run, it must re-read the account on every call
+     * @return the result of the first successful attempt
+     * @throws ResourceConflict if every attempt ran into a concurrent update
+     */
+    public <T> T execute(String accountNumber, String operation, Supplier<T> update) {
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> update.get());
+            } catch (OptimisticLockingFailureException e) {
+                countConflict(accountNumber, operation);
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter(EXHAUSTED_METRIC, "operation", operation).increment();
+                    log.error("giving up {} on account {} after {} conflicting attempts", operation, accountNumber, attempt);
+                    throw new ResourceConflict("Account was modified concurrently, please retry");
+                }
+                log.warn("concurrent update on account {} during {}, attempt {}", accountNumber, operation, attempt);
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Executes an update built from a client's copy of the account exactly once. Such an update carries the
+     * values the client read, so replaying it after a conflict would overwrite the concurrent change.
+     *
+     * @param accountNumber the account being updated, used to tag the conflict metrics
+     * @param operation     the name of the update, used to tag the conflict metrics
+     * @param update        the update to run
+     * @return the result of the update
+     * @throws ResourceConflict if the account changed concurrently
+     */
+    public <T> T executeOnce(String accountNumber, String operation, Supplier<T> update) {
+        try {
+            return transactionTemplate.execute(status -> update.get());
+        } catch (OptimisticLockingFailureException e) {
+            countConflict(accountNumber, operation);
+            log.warn("concurrent update on account {} during {}, not retried", accountNumber, operation);
+            throw new ResourceConflict("Account was modified concurrently, read it again and retry");
+        }
+    }
+
+    private void countConflict(String accountNumber, String operation) {
+        String bucket = String.valueOf(Math.floorMod(accountNumber.hashCode(), conflictBuckets));
+        meterRegistry.counter(CONFLICTS_METRIC, "accountBucket", bucket, "operation", operation).increment();
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceConflict("Interrupted while retrying a concurrent account update");
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.banking.accountService.controller;
 
 import com.banking.accountService.model.dto.AccountDto;
 import com.banking.accountService.model.dto.AccountStatusUpdate;
+import com.banking.accountService.model.dto.BalanceUpdate;
 import com.banking.accountService.model.dto.external.TransactionResponse;
+import com.banking.accountService.model.dto.response.BalanceResponse;
 import com.banking.accountService.model.dto.response.Response;
 import com.banking.accountService.service.AccountService;
 import lombok.RequiredArgsConstructor;
@@ -56,6 +58,17 @@ public class AccountController {
         return ResponseEntity.ok(accountService.readAccountByAccountNumber(accountNumber));
     }
 
+    /**
+     * Retrieves several accounts by their account numbers in one call.
+     *
+     * @param accountNumbers The account numbers to search for.
+     * @return The response entity with the accounts found; unknown account numbers are left out.
+     */
+    @PostMapping("/batch-read")
+    public ResponseEntity<List<AccountDto>> readByAccountNumbers(@RequestBody List<String> accountNumbers) {
+        return ResponseEntity.ok(accountService.readAccountsByAccountNumbers(accountNumbers));
+    }
+
     /**
      * Updates an account with the given account number.
      *
@@ -68,6 +81,19 @@ public class AccountController {
         return ResponseEntity.ok(accountService.updateAccount(accountNumber, accountDto));
     }
 
+    /**
+     * Applies a signed delta to the balance of an account in a single atomic update.
+     *
+     * @param accountNumber The account number of the account to update.
+     * @param balanceUpdate The delta to apply, negative for a debit.
+     * @return The response entity with the new available balance.
+     */
+    @PatchMapping("/{accountNumber}/balance")
+    public ResponseEntity<BalanceResponse> updateBalance(@PathVariable String accountNumber,
+                                                         @RequestBody BalanceUpdate balanceUpdate) {
+        return ResponseEntity.ok(accountService.updateBalance(accountNumber, balanceUpdate));
+    }
+
     /**
      * Retrieves the balance of the specified account.
      *
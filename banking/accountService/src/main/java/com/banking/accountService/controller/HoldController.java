@@ -0,0 +1,64 @@
+package com.banking.accountService.controller;
+
+import com.banking.accountService.model.dto.HoldRequest;
+import com.banking.accountService.model.dto.response.HoldResponse;
+import com.banking.accountService.service.HoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/accounts")
+public class HoldController {
+    private final HoldService holdService;
+
+    /**
+     * Places a hold on an account, reserving the amount until it is captured, released or expires.
+     *
+     * @param accountNumber The account number of the account to reserve the amount on.
+     * @param holdRequest   The hold reference, amount and optional time to live.
+     * @return The response entity with the hold.
+     */
+    @PostMapping("/{accountNumber}/holds")
+    public ResponseEntity<HoldResponse> placeHold(@PathVariable String accountNumber,
+                                                  @RequestBody HoldRequest holdRequest) {
+        return new ResponseEntity<>(holdService.placeHold(accountNumber, holdRequest), HttpStatus.CREATED);
+    }
+
+    /**
+     * Retrieves a hold by its reference.
+     *
+     * @param holdReference The hold reference.
+     * @return The response entity with the hold.
+     */
+    @GetMapping("/holds/{holdReference}")
+    public ResponseEntity<HoldResponse> readHold(@PathVariable String holdReference) {
+        return ResponseEntity.ok(holdService.readHold(holdReference));
+    }
+
+    /**
+     * Captures a hold, making the debit final.
+     *
+     * @param holdReference The hold reference.
+     * @return The response entity with the captured hold.
+     */
+    @PostMapping("/holds/{holdReference}/capture")
+    public ResponseEntity<HoldResponse> captureHold(@PathVariable String holdReference) {
+        return ResponseEntity.ok(holdService.captureHold(holdReference));
+    }
+
+    /**
+     * Releases a hold, giving the reserved amount back to the account.
+     *
+     * @param holdReference The hold reference.
+     * @return The response entity with the released hold.
+     */
+    @PostMapping("/holds/{holdReference}/release")
+    public ResponseEntity<HoldResponse> releaseHold(@PathVariable String holdReference) {
+        return ResponseEntity.ok(holdService.releaseHold(holdReference));
+    }
+}
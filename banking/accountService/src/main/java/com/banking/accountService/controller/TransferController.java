@@ -0,0 +1,58 @@
+package com.banking.accountService.controller;
+
+import com.banking.accountService.model.dto.BatchTransferRequest;
+import com.banking.accountService.model.dto.InternalTransferRequest;
+import com.banking.accountService.model.dto.NetPosition;
+import com.banking.accountService.model.dto.response.BalanceResponse;
+import com.banking.accountService.model.dto.response.BatchTransferResponse;
+import com.banking.accountService.model.dto.response.TransferResponse;
+import com.banking.accountService.service.TransferService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/accounts/transfers")
+public class TransferController {
+    private final TransferService transferService;
+
+    /**
+     * Moves an amount between two accounts in a single call.
+     *
+     * @param internalTransferRequest The source, target and amount.
+     * @return The response entity with the new balances of both accounts.
+     */
+    @PostMapping("/internal")
+    public ResponseEntity<TransferResponse> internalTransfer(@RequestBody InternalTransferRequest internalTransferRequest) {
+        return ResponseEntity.ok(transferService.internalTransfer(internalTransferRequest));
+    }
+
+    /**
+     * Moves amounts from one source account to many target accounts with a single debit of the source.
+     *
+     * @param batchTransferRequest The source and the transfer instructions.
+     * @return The response entity with the amount debited and the outcome of every instruction.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponse> batchTransfer(@RequestBody BatchTransferRequest batchTransferRequest) {
+        return ResponseEntity.ok(transferService.batchTransfer(batchTransferRequest));
+    }
+
+    /**
+     * Applies the net positions of a set of internal transfers in one transaction.
+     *
+     * @param netPositions The signed net delta per account.
+     * @param reference    The optional reference of the settlement.
+     * @return The response entity with the new balance of every account.
+     */
+    @PostMapping("/net")
+    public ResponseEntity<List<BalanceResponse>> applyNetPositions(@RequestBody List<NetPosition> netPositions,
+                                                                   @RequestParam(required = false) String reference) {
+        return ResponseEntity.ok(transferService.applyNetPositions(netPositions, reference));
+    }
+}
@@ -0,0 +1,7 @@
+package com.banking.accountService.engine;
+
+/**
+ * A reference applied to an account, as in the unique key of the adjustment ledger.
+ */
+record AdjustmentKey(String reference, String accountNumber) {
+}
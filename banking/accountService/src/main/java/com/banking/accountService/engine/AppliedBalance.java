@@ -0,0 +1,10 @@
+package com.banking.accountService.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * The answer of the balance engine to a delta: the new balance, or the current one if the reference of the
+ * delta was already applied.
+ */
+public record AppliedBalance(BigDecimal availableBalance, boolean replayed) {
+}
@@ -0,0 +1,12 @@
+package com.banking.accountService.engine;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A balance change waiting in a shard's ring, completed with the new balance once it is journaled. The
+ * reference is null for changes made without one.
+ */
+record BalanceCommand(String accountNumber, BigDecimal delta, String reference,
+                      CompletableFuture<AppliedBalance> result) {
+}
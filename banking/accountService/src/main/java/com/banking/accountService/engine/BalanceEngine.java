@@ -0,0 +1,189 @@
+package com.banking.accountService.engine;
+
+import com.banking.accountService.exception.GlobalErrorCode;
+import com.banking.accountService.exception.GlobalException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory balance engine for hot accounts. Each configured account is owned by exactly one shard, whose
+ * single thread applies every delta of that account in arrival order, so no row locks are taken on the hot
+ * path. A change is acknowledged only after it is fsynced to the shard journal; MySQL is updated behind it
+ * in batches and stays the source of truth for every other account.
+ * <p>
+ * The shard also owns the adjustment ledger of its accounts: a reference is journaled with the balance it
+ * produced and written to the ledger by the flush, so a retried reference is answered as a replay even when
+ * the first attempt timed out or its caller's transaction rolled back. Only the outbox event is written by the
+ * caller's transaction, so an update whose caller did not commit has no BalanceChanged event.
+ * <p>
+ * The engine must run on a single instance. It takes a database lease at startup, refuses to start while
+ * another instance holds it, and stops accepting changes if the lease is lost.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "account.engine", name = "enabled", havingValue = "true")
+public class BalanceEngine {
+    private final Set<String> ownedAccounts;
+    private final BalanceEngineLease lease;
+    private final BalanceShard[] shards;
+    private final Thread[] workers;
+    private volatile boolean leaseLost;
+
+    @Value("${account.engine.submit-timeout-ms}")
+    private long submitTimeoutMs;
+
+    @Value("${account.engine.reply-timeout-ms}")
+    private long replyTimeoutMs;
+
+    public BalanceEngine(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${account.engine.accounts}") Set<String> accounts,
+                         @Value("${account.engine.shards}") int shardCount,
+                         @Value("${account.engine.ring-size}") int ringSize,
+                         @Value("${account.engine.batch-size}") int batchSize,
+                         @Value("${account.engine.flush-interval-ms}") long flushIntervalMs,
+                         @Value("${account.engine.journal-directory}") String journalDirectory,
+                         @Value("${account.engine.lease-seconds}") long leaseSeconds,
+                         EntityManagerFactory entityManagerFactory) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ownedAccounts = accounts.stream().map(String::trim).filter(account -> !account.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        // the same host and journal is the same owner, so a restart takes its own lease back at once
+        this.lease = new BalanceEngineLease(jdbcTemplate, transactionTemplate,
+                InetAddress.getLocalHost().getHostName() + ":" + Path.of(journalDirectory).toAbsolutePath(), leaseSeconds);
+        this.shards = new BalanceShard[shardCount];
+        this.workers = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            BalanceJournal journal = new BalanceJournal(Path.of(journalDirectory, "shard-" + i + ".journal"));
+            shards[i] = new BalanceShard(i, ringSize, journal, lease, jdbcTemplate, transactionTemplate,
+                    batchSize, flushIntervalMs);
+        }
+    }
+
+    /**
+     * Takes the engine lease and replays the journals left by the previous run before any command is accepted,
+     * then starts one worker thread per shard.
+     *
+     * @throws IllegalStateException if the engine runs on another instance
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        lease.acquire();
+        for (BalanceShard shard : shards) {
+            shard.recover();
+        }
+        for (int i = 0; i < shards.length; i++) {
+            workers[i] = new Thread(shards[i], "balance-shard-" + i);
+            workers[i].start();
+        }
+        log.info("balance engine started on {} with {} shards owning {} accounts", lease.owner(), shards.length,
+                ownedAccounts.size());
+    }
+
+    /**
+     * Extends the engine lease. Once it is lost to another instance no change is accepted any more, and the
+     * shards keep their unflushed balances in the journal for the restart.
+     */
+    @Scheduled(fixedDelayString = "${account.engine.lease-renew-interval-ms}")
+    public void renewLease() {
+        if (leaseLost) {
+            return;
+        }
+        try {
+            if (!lease.renew()) {
+                leaseLost = true;
+                log.error("balance engine lease was taken over by another instance, rejecting balance changes");
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not renew the balance engine lease", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (BalanceShard shard : shards) {
+            shard.stop();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean owns(String accountNumber) {
+        return ownedAccounts.contains(accountNumber);
+    }
+
+    /**
+     * Applies a signed delta to an engine-owned account and waits for it to be journaled. A reference that was
+     * already applied to the account is answered with the current balance.
+     *
+     * @param accountNumber The engine-owned account.
+     * @param delta         The signed amount to apply.
+     * @param reference     The reference of the change, or null.
+     * @return The new available balance, or the current one for a replayed reference.
+     * @throws GlobalException If the shard is saturated or does not answer in time, or the delta is rejected.
+     */
+    public AppliedBalance apply(String accountNumber, BigDecimal delta, String reference) {
+        if (leaseLost) {
+            throw new GlobalException(GlobalErrorCode.SERVICE_UNAVAILABLE, "Balance engine is not available, please retry");
+        }
+        CompletableFuture<AppliedBalance> result = new CompletableFuture<>();
+        try {
+            if (!shardOf(accountNumber).offer(new BalanceCommand(accountNumber, delta, reference, result), submitTimeoutMs)) {
+                throw new GlobalException(GlobalErrorCode.SERVICE_UNAVAILABLE, "Balance engine is busy, please retry");
+            }
+            return result.get(replyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GlobalException(GlobalErrorCode.GATEWAY_TIMEOUT,
+                    "Balance update was interrupted, the outcome is unknown");
+        } catch (TimeoutException e) {
+            throw new GlobalException(GlobalErrorCode.GATEWAY_TIMEOUT, "Balance update timed out, the outcome is unknown");
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return The in-memory balance of an engine-owned account, empty until the account is first touched.
+     */
+    public Optional<BigDecimal> balanceOf(String accountNumber) {
+        return owns(accountNumber) ? shardOf(accountNumber).balanceOf(accountNumber) : Optional.empty();
+    }
+
+    /**
+     * @return whether the reference was applied to an engine-owned account and is not in the ledger yet
+     */
+    public boolean isPending(String reference, String accountNumber) {
+        return owns(accountNumber) && shardOf(accountNumber).isPending(reference, accountNumber);
+    }
+
+    private BalanceShard shardOf(String accountNumber) {
+        return shards[Math.floorMod(accountNumber.hashCode(), shards.length)];
+    }
+}
@@ -0,0 +1,75 @@
+package com.banking.accountService.engine;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The database lease that makes one instance the owner of the engine balances. Shards write absolute
+ * balances from their own memory, so a second owner would silently overwrite them; it is refused at startup
+ * instead, and a shard checks the lease in the transaction of every flush. Expiry is measured on the database
+ * clock, so instances need not agree on the time.
+ */
+class BalanceEngineLease {
+    private static final String NAME = "balance-engine";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+    private final long leaseSeconds;
+
+    BalanceEngineLease(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, String owner,
+                       long leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.owner = owner;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    String owner() {
+        return owner;
+    }
+
+    /**
+     * Takes the lease if it is free, expired or already held by this owner.
+     *
+     * @throws IllegalStateException if another instance holds the lease
+     */
+    void acquire() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT IGNORE INTO engine_lease (name, owner, expires_at) " +
+                    "VALUES (?, ?, TIMESTAMPADD(SECOND, ?, NOW(3)))", NAME, owner, leaseSeconds);
+            if (!take()) {
+                throw new IllegalStateException("The balance engine is already running on "
+                        + jdbcTemplate.queryForObject("SELECT owner FROM engine_lease WHERE name = ?", String.class, NAME)
+                        + ", it must be enabled on one instance only");
+            }
+        });
+    }
+
+    /**
+     * Extends the lease.
+     *
+     * @return false if another instance took the lease over
+     */
+    boolean renew() {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> take()));
+    }
+
+    /**
+     * Locks the lease for the rest of the caller's transaction, so it cannot be taken over before that commits.
+     *
+     * @throws IllegalStateException if this instance no longer holds the lease
+     */
+    void checkHeld() {
+        Integer held = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM engine_lease WHERE name = ? AND owner = ? " +
+                "AND expires_at > NOW(3) LOCK IN SHARE MODE", Integer.class, NAME, owner);
+        if (held == null || held == 0) {
+            throw new IllegalStateException("The balance engine lease is no longer held by " + owner);
+        }
+    }
+
+    private boolean take() {
+        return jdbcTemplate.update("UPDATE engine_lease SET owner = ?, expires_at = TIMESTAMPADD(SECOND, ?, NOW(3)) " +
+                "WHERE name = ? AND (owner = ? OR expires_at < NOW(3))", owner, leaseSeconds, NAME, owner) == 1;
+    }
+}
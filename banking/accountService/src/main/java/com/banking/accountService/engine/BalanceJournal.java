@@ -0,0 +1,134 @@
+package com.banking.accountService.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only journal of one shard. Every line holds an account number and its new absolute balance, so
+ * replaying the journal is idempotent: the last line per account is the state to restore. A change made with
+ * a reference also carries its delta and reference, which are restored into the adjustment ledger with the
+ * balance. The journal is truncated once its balances have been flushed to the database.
+ */
+@Slf4j
+class BalanceJournal implements AutoCloseable {
+    private final Path path;
+    private final FileChannel channel;
+    private final StringBuilder pending = new StringBuilder();
+    private boolean broken;
+
+    BalanceJournal(Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads the latest journaled balance of every account and the journaled references. A torn last line, left
+     * by a crash in the middle of a write that was never acknowledged, is ignored: only lines ending with a
+     * newline are replayed, since a cut line may still parse as a (wrong) balance.
+     *
+     * @return the latest balance per account number and the delta of every reference
+     */
+    Replay read() throws IOException {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        Map<AdjustmentKey, BigDecimal> adjustments = new HashMap<>();
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n');
+        if (end < content.length() - 1) {
+            log.warn("skipping torn journal line in {}", path);
+        }
+        for (String line : content.substring(0, end + 1).split("\n")) {
+            String[] fields = line.split(" ", 4);
+            if (fields.length != 2 && fields.length != 4) {
+                continue;
+            }
+            try {
+                balances.put(fields[0], new BigDecimal(fields[1]));
+                if (fields.length == 4) {
+                    adjustments.put(new AdjustmentKey(fields[3], fields[0]), new BigDecimal(fields[2]));
+                }
+            } catch (NumberFormatException e) {
+                log.warn("skipping torn journal line in {}", path);
+            }
+        }
+        return new Replay(balances, adjustments);
+    }
+
+    /**
+     * Appends the new balance of an account, with the delta and reference that produced it if it has one. The
+     * reference goes last, so it may contain spaces.
+     */
+    void append(String accountNumber, BigDecimal balance, BigDecimal delta, String reference) {
+        pending.append(accountNumber).append(' ').append(balance.toPlainString());
+        if (reference != null) {
+            pending.append(' ').append(delta.toPlainString()).append(' ').append(reference);
+        }
+        pending.append('\n');
+    }
+
+    /**
+     * Writes the appended lines and forces them to disk. When that fails the lines are dropped and the file is
+     * cut back to its length before the write, so a restart never replays balances that were not acknowledged.
+     * If even that fails, the journal refuses every later write until the process is restarted.
+     */
+    void sync() throws IOException {
+        if (broken) {
+            throw new IOException("journal " + path + " is in an unknown state after a failed write");
+        }
+        if (pending.length() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+        pending.setLength(0);
+        long committed = channel.size();
+        try {
+            write(buffer);
+        } catch (IOException e) {
+            try {
+                channel.truncate(committed);
+                channel.force(false);
+            } catch (IOException truncateFailure) {
+                broken = true;
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes and forces one group of lines.
+     */
+    void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Drops all journaled lines after their balances have been committed to the database.
+     */
+    void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    record Replay(Map<String, BigDecimal> balances, Map<AdjustmentKey, BigDecimal> adjustments) {
+    }
+}
@@ -0,0 +1,285 @@
+package com.banking.accountService.engine;
+
+import com.banking.accountService.exception.InSufficientFunds;
+import com.banking.accountService.exception.ResourceNotFound;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One single-threaded worker of the balance engine. Only the shard thread changes balances, so deltas are
+ * applied without locks; other threads only read the published balances. Commands are taken from a bounded
+ * ring in batches, journaled and fsynced once per batch (group commit), acknowledged, and the touched accounts
+ * are written to MySQL in one JDBC batch every flush interval.
+ * <p>
+ * A change made with a reference is applied once: the shard answers a reference it already applied with the
+ * current balance. Applied references are journaled with the balance and written to the adjustment ledger in
+ * the transaction of the flush, so whether a reference was applied never depends on the caller's transaction.
+ * Until the flush they are looked up in memory, afterwards in the ledger, once per batch.
+ */
+@Slf4j
+final class BalanceShard implements Runnable {
+    private static final String SELECT_BALANCE = "SELECT available_balance FROM account WHERE account_number = ?";
+    private static final String UPDATE_BALANCE =
+            "UPDATE account SET available_balance = ?, version = version + 1 WHERE account_number = ?";
+    private static final String INSERT_ADJUSTMENT = "INSERT IGNORE INTO balance_adjustment (reference, " +
+            "account_number, delta, applied_on) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_APPLIED_REFERENCES =
+            "SELECT reference, account_number FROM balance_adjustment WHERE reference IN (%s)";
+
+    private final int index;
+    private final BlockingQueue<BalanceCommand> ring;
+    private final Map<String, BigDecimal> balances = new ConcurrentHashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+    // references applied since the last flush, read by other threads through isPending
+    private final Map<AdjustmentKey, BigDecimal> pendingAdjustments = new ConcurrentHashMap<>();
+    private final BalanceJournal journal;
+    private final BalanceEngineLease lease;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private volatile boolean running = true;
+
+    BalanceShard(int index, int ringSize, BalanceJournal journal, BalanceEngineLease lease, JdbcTemplate jdbcTemplate,
+                 TransactionTemplate transactionTemplate, int batchSize, long flushIntervalMs) {
+        this.index = index;
+        this.ring = new ArrayBlockingQueue<>(ringSize);
+        this.journal = journal;
+        this.lease = lease;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Restores the journaled balances into the database and empties the journal. Must run before the shard
+     * thread is started.
+     */
+    void recover() throws IOException {
+        BalanceJournal.Replay replay = journal.read();
+        if (!replay.balances().isEmpty()) {
+            log.info("shard {} replaying {} journaled balances and {} references", index, replay.balances().size(),
+                    replay.adjustments().size());
+            writeBalances(replay.balances(), replay.adjustments());
+        }
+        journal.truncate();
+    }
+
+    boolean offer(BalanceCommand command, long timeoutMs) throws InterruptedException {
+        return ring.offer(command, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    Optional<BigDecimal> balanceOf(String accountNumber) {
+        return Optional.ofNullable(balances.get(accountNumber));
+    }
+
+    /**
+     * @return whether the reference was applied to the account but is not flushed to the ledger yet
+     */
+    boolean isPending(String reference, String accountNumber) {
+        return pendingAdjustments.containsKey(new AdjustmentKey(reference, accountNumber));
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<BalanceCommand> batch = new ArrayList<>(batchSize);
+        List<AppliedBalance> results = new ArrayList<>(batchSize);
+        long lastFlush = System.currentTimeMillis();
+        while (running || !ring.isEmpty()) {
+            try {
+                BalanceCommand first = ring.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    ring.drainTo(batch, batchSize - 1);
+                    process(batch, results);
+                    batch.clear();
+                    results.clear();
+                }
+                if (!dirty.isEmpty() && (dirty.size() >= batchSize
+                        || System.currentTimeMillis() - lastFlush >= flushIntervalMs)) {
+                    flush();
+                    lastFlush = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("balance shard {} failed to flush, retrying on the next cycle", index, e);
+            }
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("final flush of balance shard {} failed, the journal will be replayed on restart", index, e);
+        }
+    }
+
+    private void process(List<BalanceCommand> batch, List<AppliedBalance> results) {
+        Set<AdjustmentKey> applied;
+        try {
+            applied = appliedReferences(batch);
+        } catch (RuntimeException e) {
+            log.error("balance shard {} could not read the applied references, failing {} commands", index,
+                    batch.size(), e);
+            batch.forEach(command -> command.result().completeExceptionally(e));
+            return;
+        }
+        // the in-memory state of every account before this batch touched it, null when it was not loaded
+        Map<String, BigDecimal> before = new HashMap<>();
+        Set<String> cleanBefore = new HashSet<>();
+        List<AdjustmentKey> added = new ArrayList<>();
+        for (BalanceCommand command : batch) {
+            String accountNumber = command.accountNumber();
+            if (!before.containsKey(accountNumber)) {
+                before.put(accountNumber, balances.get(accountNumber));
+                if (!dirty.contains(accountNumber)) {
+                    cleanBefore.add(accountNumber);
+                }
+            }
+            AppliedBalance result = null;
+            try {
+                result = apply(command, applied, added);
+            } catch (RuntimeException e) {
+                command.result().completeExceptionally(e);
+            }
+            results.add(result);
+        }
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            // only this batch is undone: earlier batches were acknowledged and may not be flushed yet, so their
+            // balances stay in memory and dirty, while an account loaded by this batch is simply reloaded later
+            log.error("balance shard {} could not write its journal, rolling back {} commands", index, batch.size(), e);
+            before.forEach((accountNumber, balance) -> {
+                if (balance == null) {
+                    balances.remove(accountNumber);
+                } else {
+                    balances.put(accountNumber, balance);
+                }
+            });
+            dirty.removeAll(cleanBefore);
+            added.forEach(pendingAdjustments::remove);
+            batch.forEach(command -> command.result().completeExceptionally(new UncheckedIOException(e)));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (results.get(i) != null) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        }
+    }
+
+    /**
+     * Looks up in the ledger, in one query, the references of the batch that are not pending.
+     */
+    private Set<AdjustmentKey> appliedReferences(List<BalanceCommand> batch) {
+        List<String> references = batch.stream()
+                .filter(command -> command.reference() != null && !isPending(command.reference(), command.accountNumber()))
+                .map(BalanceCommand::reference).distinct().toList();
+        if (references.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return jdbcTemplate.query(String.format(SELECT_APPLIED_REFERENCES,
+                String.join(", ", Collections.nCopies(references.size(), "?"))), resultSet -> {
+            Set<AdjustmentKey> applied = new HashSet<>();
+            while (resultSet.next()) {
+                applied.add(new AdjustmentKey(resultSet.getString(1), resultSet.getString(2)));
+            }
+            return applied;
+        }, references.toArray());
+    }
+
+    private AppliedBalance apply(BalanceCommand command, Set<AdjustmentKey> applied, List<AdjustmentKey> added) {
+        AdjustmentKey key = command.reference() == null ? null : new AdjustmentKey(command.reference(), command.accountNumber());
+        if (key != null && (applied.contains(key) || pendingAdjustments.containsKey(key))) {
+            return new AppliedBalance(load(command.accountNumber()), true);
+        }
+        BigDecimal balance = load(command.accountNumber());
+        BigDecimal updated = balance.add(command.delta());
+        if (updated.signum() < 0) {
+            throw new InSufficientFunds("Insufficient balance in the account");
+        }
+        balances.put(command.accountNumber(), updated);
+        dirty.add(command.accountNumber());
+        if (key != null) {
+            pendingAdjustments.put(key, command.delta());
+            added.add(key);
+        }
+        journal.append(command.accountNumber(), updated, command.delta(), command.reference());
+        return new AppliedBalance(updated, false);
+    }
+
+    private BigDecimal load(String accountNumber) {
+        BigDecimal balance = balances.get(accountNumber);
+        if (balance == null) {
+            balance = jdbcTemplate.query(SELECT_BALANCE, resultSet -> resultSet.next()
+                    ? resultSet.getBigDecimal(1) : null, accountNumber);
+            if (balance == null) {
+                throw new ResourceNotFound("Account Not Found on the Server");
+            }
+        }
+        return balance;
+    }
+
+    private void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<String, BigDecimal> snapshot = new HashMap<>();
+        dirty.forEach(accountNumber -> snapshot.put(accountNumber, balances.get(accountNumber)));
+        Map<AdjustmentKey, BigDecimal> adjustments = new HashMap<>(pendingAdjustments);
+        writeBalances(snapshot, adjustments);
+        dirty.clear();
+        // removed only after the commit, so a reference is always either pending or in the ledger
+        pendingAdjustments.keySet().removeAll(adjustments.keySet());
+        try {
+            journal.truncate();
+        } catch (IOException e) {
+            // the balances are committed, replaying the journal later only rewrites the same values
+            log.error("balance shard {} could not truncate its journal", index, e);
+        }
+    }
+
+    /**
+     * Writes balances and the references that produced them in one transaction, if this instance still holds
+     * the engine lease. Replaying an already written reference is ignored by the unique key of the ledger.
+     */
+    private void writeBalances(Map<String, BigDecimal> snapshot, Map<AdjustmentKey, BigDecimal> adjustments) {
+        List<Object[]> arguments = new ArrayList<>(snapshot.size());
+        snapshot.forEach((accountNumber, balance) -> arguments.add(new Object[]{balance, accountNumber}));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> ledgerRows = new ArrayList<>(adjustments.size());
+        adjustments.forEach((key, delta) -> ledgerRows.add(new Object[]{key.reference(), key.accountNumber(), delta, now}));
+        transactionTemplate.executeWithoutResult(status -> {
+            lease.checkHeld();
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE, arguments);
+            if (!ledgerRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ADJUSTMENT, ledgerRows);
+            }
+        });
+    }
+}
@@ -5,6 +5,10 @@ public class GlobalErrorCode {
 
     public static final String NOT_FOUND = "404";
     public static final String CONFLICT = "409";
+    public static final String GONE = "410";
 
     public static final String BAD_REQUEST = "400";
+
+    public static final String SERVICE_UNAVAILABLE = "503";
+    public static final String GATEWAY_TIMEOUT = "504";
 }
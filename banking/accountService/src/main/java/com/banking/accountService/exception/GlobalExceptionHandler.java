@@ -35,7 +35,9 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(new ErrorResponse(badRequest, ex.getLocalizedMessage()), HttpStatus.BAD_REQUEST);
     }
     /**
-     * Exception handler for GlobalException.
+     * Exception handler for GlobalException. The response status is the error code, so callers can tell a
+     * rejected request (400, 404) from a concurrent change (409) and from an update whose outcome is not known
+     * yet (503, 504); codes that are not an HTTP status are answered with 400.
      *
      * @param globalException The GlobalException to handle.
      * @return The ResponseEntity with the error response.
@@ -43,10 +45,19 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(GlobalException.class)
     public ResponseEntity<Object> handleGlobalException(GlobalException globalException) {
         return ResponseEntity
-                .badRequest()
+                .status(statusOf(globalException.getErrorCode()))
                 .body(ErrorResponse.builder()
                         .errorCode(globalException.getErrorCode())
                         .message(globalException.getErrorMessage())
                         .build());
     }
+
+    private static HttpStatus statusOf(String errorCode) {
+        try {
+            HttpStatus status = HttpStatus.resolve(Integer.parseInt(errorCode));
+            return status != null && status.isError() ? status : HttpStatus.BAD_REQUEST;
+        } catch (NumberFormatException e) {
+            return HttpStatus.BAD_REQUEST;
+        }
+    }
 }
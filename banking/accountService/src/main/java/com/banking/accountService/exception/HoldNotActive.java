@@ -0,0 +1,11 @@
+package com.banking.accountService.exception;
+
+/**
+ * Thrown when a hold that was released or has expired is captured. The amount is back on the account, so
+ * the caller can treat it as a definite rejection.
+ */
+public class HoldNotActive extends GlobalException {
+    public HoldNotActive(String message) {
+        super(GlobalErrorCode.GONE, message);
+    }
+}
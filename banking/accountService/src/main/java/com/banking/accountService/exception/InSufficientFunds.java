@@ -2,10 +2,10 @@ package com.banking.accountService.exception;
 
 public class InSufficientFunds extends GlobalException{
     public InSufficientFunds() {
-        super("Insufficient funds", GlobalErrorCode.NOT_FOUND);
+        super(GlobalErrorCode.BAD_REQUEST, "Insufficient funds");
     }
 
     public InSufficientFunds(String message) {
-        super(message, GlobalErrorCode.NOT_FOUND);
+        super(GlobalErrorCode.BAD_REQUEST, message);
     }
 }
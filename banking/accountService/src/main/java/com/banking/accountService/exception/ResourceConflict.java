@@ -2,10 +2,10 @@ package com.banking.accountService.exception;
 
 public class ResourceConflict extends GlobalException{
     public ResourceConflict() {
-        super("Account already exists", GlobalErrorCode.CONFLICT);
+        super(GlobalErrorCode.CONFLICT, "Account already exists");
     }
 
     public ResourceConflict(String message) {
-        super(message, GlobalErrorCode.CONFLICT);
+        super(GlobalErrorCode.CONFLICT, message);
     }
 }
@@ -2,10 +2,10 @@ package com.banking.accountService.exception;
 
 public class ResourceNotFound extends GlobalException{
     public ResourceNotFound() {
-        super("Resource not found on the server", GlobalErrorCode.NOT_FOUND);
+        super(GlobalErrorCode.NOT_FOUND, "Resource not found on the server");
     }
 
     public ResourceNotFound(String message) {
-        super(message, GlobalErrorCode.NOT_FOUND);
+        super(GlobalErrorCode.NOT_FOUND, message);
     }
 }
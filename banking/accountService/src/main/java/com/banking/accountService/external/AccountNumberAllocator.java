@@ -0,0 +1,80 @@
+package com.banking.accountService.external;
+
+import com.banking.accountService.model.dto.external.SequenceBlockDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hands out account numbers from a block leased from the sequence generator, so only one remote call is made
+ * per block instead of one per account. The next block is requested in the background once the current one
+ * drops below the refill threshold.
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    private final SequenceService sequenceService;
+    private final int blockSize;
+    private final int refillThreshold;
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-number-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long next = 1;
+    private long end = 0;
+    private CompletableFuture<SequenceBlockDto> nextBlock;
+
+    public AccountNumberAllocator(SequenceService sequenceService,
+                                  @Value("${account.sequence.block-size}") int blockSize,
+                                  @Value("${account.sequence.refill-threshold}") int refillThreshold) {
+        this.sequenceService = sequenceService;
+        this.blockSize = blockSize;
+        this.refillThreshold = refillThreshold;
+    }
+
+    /**
+     * Returns the next account number of the current block, switching to a freshly leased block when it is
+     * exhausted.
+     *
+     * @return the next unused account number
+     */
+    public synchronized long nextAccountNumber() {
+        if (next > end) {
+            SequenceBlockDto block = takeNextBlock();
+            next = block.getStart();
+            end = block.getEnd();
+        }
+        long accountNumber = next++;
+        if (end - next + 1 <= refillThreshold && nextBlock == null) {
+            nextBlock = CompletableFuture.supplyAsync(
+                    () -> sequenceService.generateAccountNumberBlock(blockSize), refillExecutor);
+        }
+        return accountNumber;
+    }
+
+    private SequenceBlockDto takeNextBlock() {
+        CompletableFuture<SequenceBlockDto> pending = nextBlock;
+        nextBlock = null;
+        if (pending != null) {
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                log.error("background refill of account numbers failed, leasing a block synchronously", e);
+            }
+        }
+        return sequenceService.generateAccountNumberBlock(blockSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+}
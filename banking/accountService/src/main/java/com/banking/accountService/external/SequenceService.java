@@ -1,8 +1,10 @@
 package com.banking.accountService.external;
 
+import com.banking.accountService.model.dto.external.SequenceBlockDto;
 import com.banking.accountService.model.dto.external.SequenceDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @FeignClient(name = "sequence-generator")
 public interface SequenceService {
@@ -14,4 +16,13 @@ public interface SequenceService {
      */
     @PostMapping("/sequence")
     SequenceDto generateAccountNumber();
+
+    /**
+     * Leases a contiguous block of account numbers.
+     *
+     * @param size the number of account numbers to reserve
+     * @return the reserved block, both ends inclusive
+     */
+    @PostMapping("/sequence/block")
+    SequenceBlockDto generateAccountNumberBlock(@RequestParam int size);
 }
@@ -0,0 +1,5 @@
+package com.banking.accountService.model;
+
+public enum HoldStatus {
+    ACTIVE, CAPTURED, RELEASED, EXPIRED
+}
@@ -28,4 +28,10 @@ public class AccountDto {
     private BigDecimal availableBalance;
 
     private Long userId;
+
+    /**
+     * The version of the account when it was read. An update must send back the version it read and is
+     * rejected when the account changed since.
+     */
+    private Long version;
 }
@@ -0,0 +1,28 @@
+package com.banking.accountService.model.dto;
+
+import com.banking.accountService.model.AccountStatus;
+import com.banking.accountService.model.AccountType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The rarely changing part of an account, everything except the balance. Safe to cache as long as it is
+ * evicted whenever the status changes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountSummary {
+    private Long accountId;
+
+    private String accountNumber;
+
+    private AccountType accountType;
+
+    private AccountStatus accountStatus;
+
+    private Long userId;
+}
@@ -0,0 +1,24 @@
+package com.banking.accountService.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceUpdate {
+    /**
+     * Signed amount to apply, negative for a debit and positive for a credit.
+     */
+    private BigDecimal delta;
+
+    /**
+     * Optional caller reference. An update carrying a reference is applied at most once per account.
+     */
+    private String reference;
+}
@@ -0,0 +1,23 @@
+package com.banking.accountService.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferItem {
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    /**
+     * Reference of the instruction, required when the batch carries a reference.
+     */
+    private String reference;
+}
@@ -0,0 +1,24 @@
+package com.banking.accountService.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferRequest {
+    private String fromAccount;
+
+    private List<BatchTransferItem> transfers;
+
+    /**
+     * Optional caller reference. A batch carrying a reference is applied at most once; a replay answers with
+     * the instructions that were credited.
+     */
+    private String reference;
+}
@@ -0,0 +1,26 @@
+package com.banking.accountService.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HoldRequest {
+    /**
+     * Caller chosen reference; placing a hold again with the same reference returns the existing hold.
+     */
+    private String holdReference;
+
+    private BigDecimal amount;
+
+    /**
+     * Seconds until an uncaptured hold expires, account.hold.default-ttl-seconds when not set.
+     */
+    private Long ttlSeconds;
+}
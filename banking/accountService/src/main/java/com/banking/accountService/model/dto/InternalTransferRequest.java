@@ -0,0 +1,25 @@
+package com.banking.accountService.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InternalTransferRequest {
+    private String fromAccount;
+
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    /**
+     * Optional caller reference. A transfer carrying a reference is applied at most once.
+     */
+    private String reference;
+}
@@ -0,0 +1,21 @@
+package com.banking.accountService.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NetPosition {
+    private String accountNumber;
+
+    /**
+     * Signed net amount of all transfers of the window for this account.
+     */
+    private BigDecimal delta;
+}
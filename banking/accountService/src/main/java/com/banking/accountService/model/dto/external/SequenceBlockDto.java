@@ -0,0 +1,10 @@
+package com.banking.accountService.model.dto.external;
+
+import lombok.Data;
+
+@Data
+public class SequenceBlockDto {
+    private long start;
+
+    private long end;
+}
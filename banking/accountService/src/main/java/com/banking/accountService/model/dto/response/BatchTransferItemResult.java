@@ -0,0 +1,27 @@
+package com.banking.accountService.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferItemResult {
+    /**
+     * Position of the instruction in the request.
+     */
+    private int index;
+
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    private boolean credited;
+
+    private String message;
+}
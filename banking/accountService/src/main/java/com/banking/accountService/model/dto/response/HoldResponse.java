@@ -0,0 +1,26 @@
+package com.banking.accountService.model.dto.response;
+
+import com.banking.accountService.model.HoldStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HoldResponse {
+    private String holdReference;
+
+    private String accountNumber;
+
+    private BigDecimal amount;
+
+    private HoldStatus holdStatus;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.banking.accountService.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransferResponse {
+    private String fromAccount;
+
+    private BigDecimal fromAvailableBalance;
+
+    private String toAccount;
+
+    private BigDecimal toAvailableBalance;
+}
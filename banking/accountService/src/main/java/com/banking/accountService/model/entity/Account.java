@@ -36,4 +36,8 @@ public class Account {
     private BigDecimal availableBalance;
 
     private Long userId;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
@@ -0,0 +1,39 @@
+package com.banking.accountService.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A balance update that was made with a caller reference. The unique reference and account pair makes a
+ * retried update a no-op instead of a second credit or debit.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_balance_adjustment_reference",
+        columnNames = {"reference", "accountNumber"}))
+public class BalanceAdjustment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long adjustmentId;
+
+    @Column(nullable = false)
+    private String reference;
+
+    @Column(nullable = false)
+    private String accountNumber;
+
+    private BigDecimal delta;
+
+    @CreationTimestamp
+    private LocalDateTime appliedOn;
+}
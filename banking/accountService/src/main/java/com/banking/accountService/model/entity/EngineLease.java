@@ -0,0 +1,31 @@
+package com.banking.accountService.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The lease of the balance engine. Only the instance holding it may write engine balances, so a second
+ * instance started with the engine enabled fails instead of overwriting them. Rows are written with plain
+ * JDBC; the entity defines the table.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EngineLease {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,48 @@
+package com.banking.accountService.model.entity;
+
+import com.banking.accountService.model.HoldStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An amount reserved on an account. The amount leaves the available balance when the hold is placed; capturing
+ * the hold makes the debit final, releasing or expiring it gives the amount back.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(indexes = {
+        @Index(name = "idx_fund_hold_reference", columnList = "holdReference", unique = true),
+        @Index(name = "idx_fund_hold_status_expiry", columnList = "holdStatus, expiresAt")
+})
+public class FundHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long holdId;
+
+    @Column(nullable = false)
+    private String holdReference;
+
+    @Column(nullable = false)
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus holdStatus;
+
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
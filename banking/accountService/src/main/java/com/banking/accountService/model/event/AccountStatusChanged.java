@@ -0,0 +1,17 @@
+package com.banking.accountService.model.event;
+
+import com.banking.accountService.model.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountStatusChanged {
+    private String accountNumber;
+
+    private AccountStatus accountStatus;
+}
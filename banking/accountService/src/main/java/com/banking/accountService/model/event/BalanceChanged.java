@@ -0,0 +1,26 @@
+package com.banking.accountService.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The available balance of an account changed by {@code delta}. The new balance is set when the change read
+ * it back; batched changes only carry the delta.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceChanged {
+    private String accountNumber;
+
+    private BigDecimal delta;
+
+    private BigDecimal availableBalance;
+
+    private String reference;
+}
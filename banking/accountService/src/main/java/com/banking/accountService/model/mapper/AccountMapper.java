@@ -2,7 +2,6 @@ package com.banking.accountService.model.mapper;
 
 import com.banking.accountService.model.dto.AccountDto;
 import com.banking.accountService.model.entity.Account;
-import org.springframework.beans.BeanUtils;
 
 import java.util.Objects;
 
@@ -11,7 +10,10 @@ public class AccountMapper extends BaseMapper<Account, AccountDto>{
     public Account convertToEntity(AccountDto dto, Object... args) {
         Account account = new Account();
         if(!Objects.isNull(dto)){
-            BeanUtils.copyProperties(dto, account);
+            account.setAccountId(dto.getAccountId());
+            account.setAccountNumber(dto.getAccountNumber());
+            account.setAvailableBalance(dto.getAvailableBalance());
+            account.setUserId(dto.getUserId());
         }
         return account;
     }
@@ -20,7 +22,11 @@ public class AccountMapper extends BaseMapper<Account, AccountDto>{
     public AccountDto convertToDto(Account entity, Object... args) {
         AccountDto accountDto = new AccountDto();
         if(!Objects.isNull(entity)) {
-            BeanUtils.copyProperties(entity, accountDto);
+            accountDto.setAccountId(entity.getAccountId());
+            accountDto.setAccountNumber(entity.getAccountNumber());
+            accountDto.setAvailableBalance(entity.getAvailableBalance());
+            accountDto.setUserId(entity.getUserId());
+            accountDto.setVersion(entity.getVersion());
         }
         return accountDto;
     }
@@ -18,10 +18,10 @@ public abstract class BaseMapper<E,D> {
     }
 
     public List<E> convertToEntityList(Collection<D> dto, Object... args) {
-        return convertToEntity(dto, args).stream().toList();
+        return dto.stream().map(d -> convertToEntity(d, args)).toList();
     }
 
     public List<D> convertToDtoList(Collection<E> entities, Object... args) {
-        return convertToDto(entities, args).stream().toList();
+        return entities.stream().map(entity -> convertToDto(entity, args)).toList();
     }
 }
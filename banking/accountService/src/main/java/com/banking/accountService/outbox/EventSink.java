@@ -0,0 +1,16 @@
+package com.banking.accountService.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of the events published by the outbox relay.
+ */
+public interface EventSink {
+    /**
+     * Publishes a batch of events in order. The batch counts as published only if this method returns, so an
+     * implementation must not return before the events are durable on its side.
+     *
+     * @param events the events, ordered by event id
+     */
+    void publish(List<DomainEvent> events);
+}
@@ -1,9 +1,18 @@
 package com.banking.accountService.repository;
 
+import com.banking.accountService.model.AccountStatus;
 import com.banking.accountService.model.AccountType;
 import com.banking.accountService.model.entity.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
@@ -31,4 +40,78 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      * @return an optional account object
      */
     Optional<Account> findAccountByUserId(Long userId);
+
+    /**
+     * Adds a signed delta to the available balance in a single conditional update, so concurrent callers can
+     * neither lose each other's changes nor take the balance below zero. The version is bumped as well, so
+     * entity based writers holding an older copy fail their optimistic check.
+     *
+     * @param accountNumber the account number to update
+     * @param delta         the signed amount to apply
+     * @return the number of updated rows, 0 if the account does not exist or the balance would become negative
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.availableBalance = a.availableBalance + :delta, a.version = a.version + 1 " +
+            "WHERE a.accountNumber = :accountNumber AND a.availableBalance + :delta >= 0")
+    int applyBalanceDelta(@Param("accountNumber") String accountNumber, @Param("delta") BigDecimal delta);
+
+    /**
+     * Reads only the available balance of an account.
+     *
+     * @param accountNumber the account number
+     * @return an optional containing the balance, or empty if the account does not exist
+     */
+    @Query("SELECT a.availableBalance FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<BigDecimal> findAvailableBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Reads the balance of an account together with the version it belongs to, in one statement.
+     *
+     * @param accountNumber the account number
+     * @return an optional containing the balance and version, or empty if the account does not exist
+     */
+    @Query("SELECT a.availableBalance AS availableBalance, a.version AS version FROM Account a " +
+            "WHERE a.accountNumber = :accountNumber")
+    Optional<BalanceVersion> findBalanceVersionByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    interface BalanceVersion {
+        BigDecimal getAvailableBalance();
+
+        Long getVersion();
+    }
+
+    /**
+     * Finds all accounts whose account number is in the given collection with a single IN query.
+     *
+     * @param accountNumbers the account numbers to search for
+     * @return the accounts found, in no particular order
+     */
+    List<Account> findAccountsByAccountNumberIn(Collection<String> accountNumbers);
+
+    /**
+     * Finds an account by its account number and locks its row until the end of the transaction. Callers
+     * locking several accounts must lock them in account number order, so they cannot deadlock each other.
+     *
+     * @param accountNumber the account number
+     * @return an optional containing the locked account, or empty if the account does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Reads the status of the given accounts that exist, without loading the accounts.
+     *
+     * @param accountNumbers the account numbers to check
+     * @return the account number and status of every account that exists
+     */
+    @Query("SELECT a.accountNumber AS accountNumber, a.accountStatus AS accountStatus FROM Account a " +
+            "WHERE a.accountNumber IN :accountNumbers")
+    List<NumberStatus> findAccountStatuses(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    interface NumberStatus {
+        String getAccountNumber();
+
+        AccountStatus getAccountStatus();
+    }
 }
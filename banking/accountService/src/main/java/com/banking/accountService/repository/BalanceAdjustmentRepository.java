@@ -0,0 +1,29 @@
+package com.banking.accountService.repository;
+
+import com.banking.accountService.model.entity.BalanceAdjustment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BalanceAdjustmentRepository extends JpaRepository<BalanceAdjustment, Long> {
+    /**
+     * Checks whether a balance update with the given reference was already applied to an account.
+     *
+     * @param reference     the caller reference
+     * @param accountNumber the account number
+     * @return true if the update was already applied
+     */
+    boolean existsByReferenceAndAccountNumber(String reference, String accountNumber);
+
+    /**
+     * Returns which of the given references were applied to any account.
+     *
+     * @param references the caller references
+     * @return the references that were applied
+     */
+    @Query("SELECT DISTINCT b.reference FROM BalanceAdjustment b WHERE b.reference IN :references")
+    List<String> findAppliedReferences(@Param("references") Collection<String> references);
+}
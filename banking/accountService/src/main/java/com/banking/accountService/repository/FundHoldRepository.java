@@ -0,0 +1,58 @@
+package com.banking.accountService.repository;
+
+import com.banking.accountService.model.HoldStatus;
+import com.banking.accountService.model.entity.FundHold;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface FundHoldRepository extends JpaRepository<FundHold, Long> {
+    /**
+     * Finds a hold by its reference.
+     *
+     * @param holdReference the hold reference
+     * @return an optional containing the hold, or empty if there is no such hold
+     */
+    Optional<FundHold> findByHoldReference(String holdReference);
+
+    /**
+     * Finds a hold by its reference and locks it until the end of the transaction, so a hold is never both
+     * captured and released, nor released twice.
+     *
+     * @param holdReference the hold reference
+     * @return an optional containing the locked hold, or empty if there is no such hold
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM FundHold h WHERE h.holdReference = :holdReference")
+    Optional<FundHold> findByHoldReferenceForUpdate(@Param("holdReference") String holdReference);
+
+    /**
+     * Finds all holds in the given status, used to re-arm expiry timers on startup.
+     *
+     * @param holdStatus the status
+     * @return the holds in that status
+     */
+    List<FundHold> findByHoldStatus(HoldStatus holdStatus);
+
+    /**
+     * Finds the references of holds in a status whose expiry has passed, oldest first. A range scan of
+     * idx_fund_hold_status_expiry.
+     *
+     * @param holdStatus the status
+     * @param now        the current time
+     * @param pageable   the number of holds to return
+     * @return the hold references
+     */
+    @Query("SELECT h.holdReference FROM FundHold h WHERE h.holdStatus = :holdStatus AND h.expiresAt < :now " +
+            "ORDER BY h.expiresAt")
+    List<String> findExpiredReferences(@Param("holdStatus") HoldStatus holdStatus,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+}
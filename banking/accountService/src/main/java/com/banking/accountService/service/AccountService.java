@@ -2,7 +2,9 @@ package com.banking.accountService.service;
 
 import com.banking.accountService.model.dto.AccountDto;
 import com.banking.accountService.model.dto.AccountStatusUpdate;
+import com.banking.accountService.model.dto.BalanceUpdate;
 import com.banking.accountService.model.dto.external.TransactionResponse;
+import com.banking.accountService.model.dto.response.BalanceResponse;
 import com.banking.accountService.model.dto.response.Response;
 
 import java.util.List;
@@ -67,4 +69,19 @@ public interface AccountService {
      * @return The account information as an AccountDto object
      */
     AccountDto readAccountByUserId(Long userId);
+    /**
+     * Applies a signed delta to the available balance of an account.
+     *
+     * @param accountNumber The account number of the account to update.
+     * @param balanceUpdate The delta to apply.
+     * @return The account number with its new available balance.
+     */
+    BalanceResponse updateBalance(String accountNumber, BalanceUpdate balanceUpdate);
+    /**
+     * Retrieves several accounts by their account numbers at once.
+     *
+     * @param accountNumbers The account numbers to search for.
+     * @return The accounts found; unknown account numbers are left out.
+     */
+    List<AccountDto> readAccountsByAccountNumbers(List<String> accountNumbers);
 }
@@ -0,0 +1,14 @@
+package com.banking.accountService.service;
+
+import com.banking.accountService.model.dto.HoldRequest;
+import com.banking.accountService.model.dto.response.HoldResponse;
+
+public interface HoldService {
+    HoldResponse placeHold(String accountNumber, HoldRequest holdRequest);
+
+    HoldResponse captureHold(String holdReference);
+
+    HoldResponse releaseHold(String holdReference);
+
+    HoldResponse readHold(String holdReference);
+}
@@ -0,0 +1,37 @@
+package com.banking.accountService.service;
+
+import com.banking.accountService.model.dto.BatchTransferRequest;
+import com.banking.accountService.model.dto.InternalTransferRequest;
+import com.banking.accountService.model.dto.NetPosition;
+import com.banking.accountService.model.dto.response.BalanceResponse;
+import com.banking.accountService.model.dto.response.BatchTransferResponse;
+import com.banking.accountService.model.dto.response.TransferResponse;
+
+import java.util.List;
+
+public interface TransferService {
+    /**
+     * Moves an amount between two accounts of this service.
+     *
+     * @param internalTransferRequest the source, target and amount
+     * @return the new balances of both accounts
+     */
+    TransferResponse internalTransfer(InternalTransferRequest internalTransferRequest);
+
+    /**
+     * Moves amounts from one source account to many target accounts with a single debit of the source.
+     *
+     * @param batchTransferRequest the source and the transfer instructions
+     * @return the amount debited and the outcome of every instruction
+     */
+    BatchTransferResponse batchTransfer(BatchTransferRequest batchTransferRequest);
+
+    /**
+     * Applies the net positions of a set of internal transfers in one transaction.
+     *
+     * @param netPositions the signed net delta per account, summing up to zero
+     * @param reference    the optional reference of the settlement, applied at most once
+     * @return the new balance of every account
+     */
+    List<BalanceResponse> applyNetPositions(List<NetPosition> netPositions, String reference);
+}
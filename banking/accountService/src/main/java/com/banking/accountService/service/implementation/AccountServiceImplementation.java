@@ -1,19 +1,29 @@
 package com.banking.accountService.service.implementation;
 
+import com.banking.accountService.configuration.OptimisticLockRetry;
+import com.banking.accountService.engine.AppliedBalance;
+import com.banking.accountService.engine.BalanceEngine;
 import com.banking.accountService.exception.*;
-import com.banking.accountService.external.SequenceService;
+import com.banking.accountService.external.AccountNumberAllocator;
 import com.banking.accountService.external.TransactionService;
 import com.banking.accountService.external.UserService;
 import com.banking.accountService.model.AccountStatus;
 import com.banking.accountService.model.AccountType;
 import com.banking.accountService.model.dto.AccountDto;
 import com.banking.accountService.model.dto.AccountStatusUpdate;
+import com.banking.accountService.model.dto.BalanceUpdate;
 import com.banking.accountService.model.dto.external.TransactionResponse;
 import com.banking.accountService.model.dto.external.UserDto;
+import com.banking.accountService.model.dto.response.BalanceResponse;
 import com.banking.accountService.model.dto.response.Response;
 import com.banking.accountService.model.entity.Account;
+import com.banking.accountService.model.entity.BalanceAdjustment;
+import com.banking.accountService.model.event.AccountStatusChanged;
+import com.banking.accountService.model.event.BalanceChanged;
 import com.banking.accountService.model.mapper.AccountMapper;
+import com.banking.accountService.outbox.OutboxWriter;
 import com.banking.accountService.repository.AccountRepository;
+import com.banking.accountService.repository.BalanceAdjustmentRepository;
 import com.banking.accountService.service.AccountService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,10 +31,14 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 import static com.banking.accountService.model.Constants.ACC_PREFIX;
 
@@ -33,15 +47,23 @@ import static com.banking.accountService.model.Constants.ACC_PREFIX;
 @RequiredArgsConstructor
 public class AccountServiceImplementation implements AccountService {
     private final UserService userService;
-    private final SequenceService sequenceService;
+    private final AccountNumberAllocator accountNumberAllocator;
     private final TransactionService transactionService;
 
     private final AccountRepository accountRepository;
+    private final BalanceAdjustmentRepository balanceAdjustmentRepository;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final AccountSummaryCache accountSummaryCache;
+    private final Optional<BalanceEngine> balanceEngine;
+    private final OutboxWriter outboxWriter;
     private final AccountMapper accountMapper = new AccountMapper();
 
     @Value("${spring.application.ok}")
     private String success;
 
+    @Value("${account.batch-read.max-size}")
+    private int batchReadMaxSize;
+
     /**
      * Creates an account based on the provided accountDto.
      *
@@ -65,7 +87,7 @@ public class AccountServiceImplementation implements AccountService {
         );
         Account account = accountMapper.convertToEntity(accountDto);
         account.setAccountNumber(ACC_PREFIX + String.format("%07d",
-                sequenceService.generateAccountNumber().getAccountNumber()));
+                accountNumberAllocator.nextAccountNumber()));
         account.setAccountStatus(AccountStatus.PENDING);
         account.setAccountType(AccountType.valueOf(accountDto.getAccountType()));
         account.setAvailableBalance(BigDecimal.valueOf(0));
@@ -77,55 +99,191 @@ public class AccountServiceImplementation implements AccountService {
     @Override
     public Response updateStatus(String accountNumber, AccountStatusUpdate accountStatusUpdate) {
 
-        return accountRepository.findAccountByAccountNumber(accountNumber).map(
-                account -> {
-                    if (account.getAccountStatus().equals(AccountStatus.ACTIVE)) {
-                        throw new AccountStatusException("Account is Inactive/ closed");
-                    }
-                    if (account.getAvailableBalance().compareTo(BigDecimal.ZERO) < 0
-                            || account.getAvailableBalance().compareTo(BigDecimal.valueOf(1000)) < 0) {
-                        throw new InSufficientFunds("Minimum Balance of Rs.1000 is Required");
-                    }
-                    account.setAccountStatus(accountStatusUpdate.getAccountStatus());
-                    accountRepository.save(account);
-                    return Response.builder().message("Account Updated Successfully").responseCode(success).build();
-                }
-        ).orElseThrow(() -> new ResourceNotFound("Account Not on the Server"));
+        Response response = optimisticLockRetry.execute(accountNumber, "updateStatus", () ->
+                accountRepository.findAccountByAccountNumber(accountNumber).map(
+                        account -> {
+                            if (account.getAccountStatus().equals(AccountStatus.ACTIVE)) {
+                                throw new AccountStatusException("Account is Inactive/ closed");
+                            }
+                            if (account.getAvailableBalance().compareTo(BigDecimal.ZERO) < 0
+                                    || account.getAvailableBalance().compareTo(BigDecimal.valueOf(1000)) < 0) {
+                                throw new InSufficientFunds("Minimum Balance of Rs.1000 is Required");
+                            }
+                            account.setAccountStatus(accountStatusUpdate.getAccountStatus());
+                            accountRepository.save(account);
+                            outboxWriter.append(accountNumber, AccountStatusChanged.builder()
+                                    .accountNumber(accountNumber)
+                                    .accountStatus(account.getAccountStatus())
+                                    .build());
+                            return Response.builder().message("Account Updated Successfully").responseCode(success).build();
+                        }
+                ).orElseThrow(() -> new ResourceNotFound("Account Not on the Server")));
+        accountSummaryCache.evict(accountNumber);
+        return response;
     }
 
+    /**
+     * Reads an account from its cached summary and a balance-only query, so the full entity is not loaded.
+     *
+     * @param accountNumber The account number to search for.
+     * @return The account DTO.
+     * @throws ResourceNotFound If the account is not found on the server.
+     */
     @Override
     public AccountDto readAccountByAccountNumber(String accountNumber) {
-        return accountRepository.findAccountByAccountNumber(accountNumber)
-                .map(
-                        account -> {
-                            AccountDto accountDto = accountMapper.convertToDto(account);
-                            accountDto.setAccountType(account.getAccountType().toString());
-                            accountDto.setAccountStatus(account.getAccountStatus().toString());
-                            return accountDto;
-                        }
-                ).orElseThrow(ResourceNotFound::new);
+        return accountSummaryCache.findByAccountNumber(accountNumber)
+                .map(summary -> {
+                    AccountRepository.BalanceVersion balanceVersion = accountRepository
+                            .findBalanceVersionByAccountNumber(accountNumber).orElseThrow(ResourceNotFound::new);
+                    return AccountDto.builder()
+                            .accountId(summary.getAccountId())
+                            .accountNumber(summary.getAccountNumber())
+                            .accountType(summary.getAccountType().toString())
+                            .accountStatus(summary.getAccountStatus().toString())
+                            .userId(summary.getUserId())
+                            .availableBalance(engineBalance(accountNumber).orElse(balanceVersion.getAvailableBalance()))
+                            .version(balanceVersion.getVersion())
+                            .build();
+                }).orElseThrow(ResourceNotFound::new);
+    }
+
+    /**
+     * Reads several accounts with a single IN query. Duplicate account numbers are collapsed.
+     *
+     * @param accountNumbers The account numbers to search for.
+     * @return The accounts found; unknown account numbers are left out.
+     * @throws GlobalException If more than account.batch-read.max-size distinct account numbers are requested.
+     */
+    @Override
+    public List<AccountDto> readAccountsByAccountNumbers(List<String> accountNumbers) {
+        Set<String> distinctAccountNumbers = new LinkedHashSet<>(accountNumbers);
+        if (distinctAccountNumbers.size() > batchReadMaxSize) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST,
+                    "At most " + batchReadMaxSize + " accounts can be read at once");
+        }
+        if (distinctAccountNumbers.isEmpty()) {
+            return List.of();
+        }
+        return accountRepository.findAccountsByAccountNumberIn(distinctAccountNumbers).stream()
+                .map(account -> {
+                    AccountDto accountDto = accountMapper.convertToDto(account);
+                    engineBalance(account.getAccountNumber()).ifPresent(accountDto::setAvailableBalance);
+                    accountDto.setAccountType(account.getAccountType().toString());
+                    accountDto.setAccountStatus(account.getAccountStatus().toString());
+                    return accountDto;
+                }).toList();
     }
 
     /**
-     * Updates an account with the provided account number and account DTO.
+     * Updates an account with the provided account number and account DTO. The DTO must carry the version it
+     * was read at; the update is rejected when the account changed since, and it is never retried, because it
+     * holds the client's copy of the account.
      *
      * @param accountNumber The account number of the account to be updated.
      * @param accountDto    The account DTO containing the updated account information.
      * @return A response indicating the success or failure of the account update.
-     * @throws AccountStatusException If the account is inactive or closed.
+     * @throws GlobalException        If the DTO carries no version.
      * @throws ResourceNotFound       If the account is not found on the server.
+     * @throws ResourceConflict       If the account changed since the client read it.
      */
     @Override
     public Response updateAccount(String accountNumber, AccountDto accountDto) {
-        return accountRepository.findAccountByAccountNumber(accountNumber).map(
-                account -> {
-                    BeanUtils.copyProperties(accountDto, account);
-                    accountRepository.save(account);
-                    return Response.builder().responseCode(success).message("Account Updated Successfully").build();
+        if (Objects.isNull(accountDto.getVersion())) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "The version of the account is required, read the account before updating it");
+        }
+        Response response = optimisticLockRetry.executeOnce(accountNumber, "updateAccount", () ->
+                accountRepository.findAccountByAccountNumber(accountNumber).map(
+                        account -> {
+                            if (!account.getVersion().equals(accountDto.getVersion())) {
+                                throw new ResourceConflict("Account was modified since version " + accountDto.getVersion()
+                                        + ", read it again and retry");
+                            }
+                            if (isEngineOwned(accountNumber)) {
+                                BeanUtils.copyProperties(accountDto, account, "accountId", "version", "availableBalance");
+                            } else {
+                                BeanUtils.copyProperties(accountDto, account, "accountId", "version");
+                            }
+                            accountRepository.save(account);
+                            return Response.builder().responseCode(success).message("Account Updated Successfully").build();
+                        }
+                ).orElseThrow(
+                        () -> new ResourceNotFound("Account Not Found on the Server")
+                ));
+        accountSummaryCache.evict(accountNumber);
+        return response;
+    }
+
+    /**
+     * Applies a signed delta to the available balance with one conditional update and reads the new balance
+     * back inside the same transaction, while the row is still locked by the update. Accounts owned by the
+     * balance engine are updated by their shard instead. An update carrying a reference is recorded in the
+     * adjustment ledger and applied at most once per account; a replay returns the current balance.
+     * <p>
+     * The ledger entry is written and flushed before the balance moves, so a concurrent duplicate fails on the
+     * unique key first and a rejected delta rolls the entry back. For engine-owned accounts the shard keeps the
+     * ledger itself, durable with the balance in its journal, so a retry after a timeout or a rollback of this
+     * transaction is a replay as well; only the BalanceChanged event of such an update is lost.
+     *
+     * @param accountNumber The account number of the account to update.
+     * @param balanceUpdate The delta to apply.
+     * @return The account number with its new available balance.
+     * @throws ResourceNotFound   If the account is not found on the server.
+     * @throws InSufficientFunds  If the debit would take the balance below zero.
+     */
+    @Override
+    @Transactional
+    public BalanceResponse updateBalance(String accountNumber, BalanceUpdate balanceUpdate) {
+        if (Objects.isNull(balanceUpdate.getDelta())) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Balance delta is required");
+        }
+        String reference = balanceUpdate.getReference();
+        if (Objects.nonNull(reference)
+                && balanceAdjustmentRepository.existsByReferenceAndAccountNumber(reference, accountNumber)) {
+            log.info("balance update {} was already applied to account {}", reference, accountNumber);
+            return BalanceResponse.builder()
+                    .accountNumber(accountNumber)
+                    .availableBalance(availableBalance(accountNumber))
+                    .build();
+        }
+        BigDecimal availableBalance;
+        if (isEngineOwned(accountNumber)) {
+            AppliedBalance applied = balanceEngine.get().apply(accountNumber, balanceUpdate.getDelta(), reference);
+            if (applied.replayed()) {
+                log.info("balance update {} was already applied to account {}", reference, accountNumber);
+                return BalanceResponse.builder()
+                        .accountNumber(accountNumber)
+                        .availableBalance(applied.availableBalance())
+                        .build();
+            }
+            availableBalance = applied.availableBalance();
+        } else {
+            if (Objects.nonNull(reference)) {
+                balanceAdjustmentRepository.saveAndFlush(BalanceAdjustment.builder()
+                        .reference(reference)
+                        .accountNumber(accountNumber)
+                        .delta(balanceUpdate.getDelta())
+                        .build());
+            }
+            if (accountRepository.applyBalanceDelta(accountNumber, balanceUpdate.getDelta()) == 0) {
+                if (accountSummaryCache.findByAccountNumber(accountNumber).isEmpty()) {
+                    throw new ResourceNotFound("Account Not Found on the Server");
                 }
-        ).orElseThrow(
-                () -> new ResourceNotFound("Account Not Found on the Server")
-        );
+                log.error("insufficient balance to apply {} on account {}", balanceUpdate.getDelta(), accountNumber);
+                throw new InSufficientFunds("Insufficient balance in the account");
+            }
+            availableBalance = accountRepository.findAvailableBalanceByAccountNumber(accountNumber)
+                    .orElseThrow(ResourceNotFound::new);
+        }
+        outboxWriter.append(accountNumber, BalanceChanged.builder()
+                .accountNumber(accountNumber)
+                .delta(balanceUpdate.getDelta())
+                .availableBalance(availableBalance)
+                .reference(reference)
+                .build());
+        return BalanceResponse.builder()
+                .accountNumber(accountNumber)
+                .availableBalance(availableBalance)
+                .build();
     }
 
     /**
@@ -138,10 +296,7 @@ public class AccountServiceImplementation implements AccountService {
     @Override
 
     public String getBalance(String accountNumber) {
-        return accountRepository.findAccountByAccountNumber(accountNumber)
-                .map(account -> account.getAvailableBalance().toString()
-                )
-                .orElseThrow(ResourceNotFound::new);
+        return availableBalance(accountNumber).toString();
 
     }
 
@@ -166,15 +321,24 @@ public class AccountServiceImplementation implements AccountService {
      */
     @Override
     public Response closeAccount(String accountNumber) {
-        return accountRepository.findAccountByAccountNumber(accountNumber)
-                .map(account -> {
-                    if (BigDecimal.valueOf(Double.parseDouble(getBalance(accountNumber))).compareTo(BigDecimal.ZERO) != 0) {
-                        throw new AccountClosingException("Balance Should be Zero");
-                    }
-                    account.setAccountStatus(AccountStatus.CLOSED);
-                    return Response.builder().message("Account Closed Successfully").message(success).build();
-                })
-                .orElseThrow(ResourceNotFound::new);
+        Response response = optimisticLockRetry.execute(accountNumber, "closeAccount", () ->
+                accountRepository.findAccountByAccountNumber(accountNumber)
+                        .map(account -> {
+                            if (engineBalance(accountNumber).orElse(account.getAvailableBalance())
+                                    .compareTo(BigDecimal.ZERO) != 0) {
+                                throw new AccountClosingException("Balance Should be Zero");
+                            }
+                            account.setAccountStatus(AccountStatus.CLOSED);
+                            accountRepository.save(account);
+                            outboxWriter.append(accountNumber, AccountStatusChanged.builder()
+                                    .accountNumber(accountNumber)
+                                    .accountStatus(AccountStatus.CLOSED)
+                                    .build());
+                            return Response.builder().message("Account Closed Successfully").message(success).build();
+                        })
+                        .orElseThrow(ResourceNotFound::new));
+        accountSummaryCache.evict(accountNumber);
+        return response;
     }
 
     /**
@@ -201,4 +365,21 @@ public class AccountServiceImplementation implements AccountService {
                 )
                 .orElseThrow(ResourceNotFound::new);
     }
+
+    private boolean isEngineOwned(String accountNumber) {
+        return balanceEngine.map(engine -> engine.owns(accountNumber)).orElse(false);
+    }
+
+    private Optional<BigDecimal> engineBalance(String accountNumber) {
+        return balanceEngine.flatMap(engine -> engine.balanceOf(accountNumber));
+    }
+
+    /**
+     * The engine holds the latest balance of the accounts it owns; MySQL may lag it by one flush interval.
+     */
+    private BigDecimal availableBalance(String accountNumber) {
+        return engineBalance(accountNumber).orElseGet(() ->
+                accountRepository.findAvailableBalanceByAccountNumber(accountNumber)
+                        .orElseThrow(ResourceNotFound::new));
+    }
 }
@@ -0,0 +1,50 @@
+package com.banking.accountService.service.implementation;
+
+import com.banking.accountService.model.dto.AccountSummary;
+import com.banking.accountService.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of account summaries, configured through spring.cache.caffeine.spec. Unknown
+ * account numbers are not cached.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountSummaryCache {
+    public static final String ACCOUNT_SUMMARIES = "account-summaries";
+
+    private final AccountRepository accountRepository;
+
+    /**
+     * Finds the summary of an account, loading it from the database on a cache miss.
+     *
+     * @param accountNumber the account number
+     * @return an optional containing the summary, or empty if the account does not exist
+     */
+    @Cacheable(cacheNames = ACCOUNT_SUMMARIES, key = "#accountNumber", unless = "#result == null")
+    public Optional<AccountSummary> findByAccountNumber(String accountNumber) {
+        return accountRepository.findAccountByAccountNumber(accountNumber)
+                .map(account -> AccountSummary.builder()
+                        .accountId(account.getAccountId())
+                        .accountNumber(account.getAccountNumber())
+                        .accountType(account.getAccountType())
+                        .accountStatus(account.getAccountStatus())
+                        .userId(account.getUserId())
+                        .build());
+    }
+
+    /**
+     * Drops the cached summary of an account. Called after a change to the account has been committed.
+     *
+     * @param accountNumber the account number
+     */
+    @CacheEvict(cacheNames = ACCOUNT_SUMMARIES, key = "#accountNumber")
+    public void evict(String accountNumber) {
+        // eviction is done by the annotation
+    }
+}
@@ -0,0 +1,140 @@
+package com.banking.accountService.service.implementation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timer wheel firing hold expiries. Scheduling is O(1) and each tick only looks at one slot, so
+ * expiring holds never needs a scan of the hold table. New timeouts are handed over through a queue and
+ * placed by the wheel thread itself, which is the only thread touching the slots. A cancelled timeout is only
+ * flagged and dropped when the wheel reaches it, so a hold settled before its expiry costs no transaction.
+ */
+@Slf4j
+final class HoldExpiryWheel {
+    private final long tickMs;
+    private final List<List<Timeout>> slots;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Map<String, Timeout> armed = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final Consumer<String> onExpiry;
+    private final ScheduledExecutorService ticker;
+    private long tick;
+
+    HoldExpiryWheel(long tickMs, int slotCount, LongSupplier clock, Consumer<String> onExpiry) {
+        this.tickMs = tickMs;
+        this.clock = clock;
+        this.onExpiry = onExpiry;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        ticker.scheduleAtFixedRate(this::advance, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Arms the expiry of a hold. Deadlines in the past fire on the next tick.
+     *
+     * @param holdReference the hold to expire
+     * @param deadlineMs    the epoch millisecond at which the hold expires
+     */
+    void schedule(String holdReference, long deadlineMs) {
+        Timeout timeout = new Timeout(holdReference, deadlineMs);
+        Timeout previous = armed.put(holdReference, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(timeout);
+    }
+
+    /**
+     * Disarms the expiry of a hold that was settled otherwise. Cancelling a hold that is not armed is a no-op.
+     *
+     * @param holdReference the hold
+     */
+    void cancel(String holdReference) {
+        Timeout timeout = armed.remove(holdReference);
+        if (timeout != null) {
+            timeout.cancelled = true;
+        }
+    }
+
+    /**
+     * Runs one tick: places the timeouts scheduled since the last one and fires those of the current slot.
+     */
+    void advance() {
+        try {
+            long now = clock.getAsLong();
+            Timeout timeout;
+            while ((timeout = pending.poll()) != null) {
+                if (timeout.cancelled) {
+                    continue;
+                }
+                long ticks = Math.max(0, (timeout.deadlineMs - now + tickMs - 1) / tickMs);
+                timeout.rounds = ticks / slots.size();
+                slots.get((int) ((tick + ticks) % slots.size())).add(timeout);
+            }
+            Iterator<Timeout> slot = slots.get((int) (tick % slots.size())).iterator();
+            while (slot.hasNext()) {
+                Timeout candidate = slot.next();
+                if (candidate.cancelled) {
+                    slot.remove();
+                    continue;
+                }
+                if (candidate.rounds > 0) {
+                    candidate.rounds--;
+                    continue;
+                }
+                slot.remove();
+                armed.remove(candidate.holdReference, candidate);
+                expire(candidate.holdReference);
+            }
+            tick++;
+        } catch (RuntimeException e) {
+            log.error("hold expiry tick failed", e);
+        }
+    }
+
+    private void expire(String holdReference) {
+        try {
+            onExpiry.accept(holdReference);
+        } catch (RuntimeException e) {
+            log.error("could not expire hold {}", holdReference, e);
+        }
+    }
+
+    private static final class Timeout {
+        private final String holdReference;
+        private final long deadlineMs;
+        private long rounds;
+        private volatile boolean cancelled;
+
+        private Timeout(String holdReference, long deadlineMs) {
+            this.holdReference = holdReference;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
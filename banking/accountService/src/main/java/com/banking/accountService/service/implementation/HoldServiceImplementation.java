@@ -0,0 +1,291 @@
+package com.banking.accountService.service.implementation;
+
+import com.banking.accountService.engine.BalanceEngine;
+import com.banking.accountService.exception.AccountStatusException;
+import com.banking.accountService.exception.GlobalErrorCode;
+import com.banking.accountService.exception.GlobalException;
+import com.banking.accountService.exception.HoldNotActive;
+import com.banking.accountService.exception.InSufficientFunds;
+import com.banking.accountService.exception.ResourceConflict;
+import com.banking.accountService.exception.ResourceNotFound;
+import com.banking.accountService.model.AccountStatus;
+import com.banking.accountService.model.HoldStatus;
+import com.banking.accountService.model.dto.HoldRequest;
+import com.banking.accountService.model.dto.response.HoldResponse;
+import com.banking.accountService.model.entity.FundHold;
+import com.banking.accountService.model.event.BalanceChanged;
+import com.banking.accountService.outbox.OutboxWriter;
+import com.banking.accountService.repository.AccountRepository;
+import com.banking.accountService.repository.FundHoldRepository;
+import com.banking.accountService.service.HoldService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Slf4j
+@Service
+public class HoldServiceImplementation implements HoldService {
+    private final AccountRepository accountRepository;
+    private final FundHoldRepository fundHoldRepository;
+    private final AccountSummaryCache accountSummaryCache;
+    private final Optional<BalanceEngine> balanceEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final HoldExpiryWheel expiryWheel;
+    private final OutboxWriter outboxWriter;
+
+    @Value("${account.hold.default-ttl-seconds}")
+    private long defaultTtlSeconds;
+
+    @Value("${account.hold.max-ttl-seconds}")
+    private long maxTtlSeconds;
+
+    @Value("${account.hold.sweep.batch-size}")
+    private int sweepBatchSize;
+
+    public HoldServiceImplementation(AccountRepository accountRepository,
+                                     FundHoldRepository fundHoldRepository,
+                                     AccountSummaryCache accountSummaryCache,
+                                     Optional<BalanceEngine> balanceEngine,
+                                     PlatformTransactionManager transactionManager,
+                                     OutboxWriter outboxWriter,
+                                     @Value("${account.hold.wheel.tick-ms}") long tickMs,
+                                     @Value("${account.hold.wheel.slots}") int slots) {
+        this.accountRepository = accountRepository;
+        this.fundHoldRepository = fundHoldRepository;
+        this.accountSummaryCache = accountSummaryCache;
+        this.balanceEngine = balanceEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxWriter = outboxWriter;
+        this.expiryWheel = new HoldExpiryWheel(tickMs, slots, System::currentTimeMillis, this::expireHold);
+    }
+
+    /**
+     * Re-arms the expiry of every hold that was still active when the service last stopped.
+     */
+    @PostConstruct
+    public void start() {
+        fundHoldRepository.findByHoldStatus(HoldStatus.ACTIVE)
+                .forEach(hold -> expiryWheel.schedule(hold.getHoldReference(), epochMillis(hold.getExpiresAt())));
+        expiryWheel.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        expiryWheel.stop();
+    }
+
+    /**
+     * Expires the active holds whose expiry has passed without a wheel firing for them, such as holds placed on
+     * a node that died. The wheel stays the fast path; this sweep is a backstop that reads the holds through
+     * the status and expiry index, one batch per run. Every node may sweep, settling a hold locks its row so it
+     * expires once.
+     */
+    @Scheduled(fixedDelayString = "${account.hold.sweep.interval-ms}")
+    public void sweepExpiredHolds() {
+        List<String> expired = fundHoldRepository.findExpiredReferences(HoldStatus.ACTIVE, LocalDateTime.now(),
+                PageRequest.of(0, sweepBatchSize));
+        for (String holdReference : expired) {
+            try {
+                expireHold(holdReference);
+            } catch (RuntimeException exception) {
+                log.warn("sweep could not expire hold {}, retrying on the next run", holdReference, exception);
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("sweep found {} expired holds missed by the expiry wheel", expired.size());
+        }
+    }
+
+    /**
+     * Places a hold: the amount is taken off the available balance with one conditional update and the hold
+     * is recorded in the same transaction. Placing a hold with a reference that already exists returns that
+     * hold without touching the balance again.
+     *
+     * @param accountNumber The account to reserve the amount on.
+     * @param holdRequest   The hold reference, amount and optional time to live.
+     * @return The hold.
+     * @throws ResourceNotFound        If the account is not found on the server.
+     * @throws AccountStatusException  If the account is not active.
+     * @throws InSufficientFunds       If the available balance does not cover the amount.
+     * @throws ResourceConflict   If the reference is already used for a different hold.
+     * @throws GlobalException    If the request is invalid or the account is owned by the balance engine.
+     */
+    @Override
+    @Transactional
+    public HoldResponse placeHold(String accountNumber, HoldRequest holdRequest) {
+        if (Objects.isNull(holdRequest.getHoldReference()) || Objects.isNull(holdRequest.getAmount())
+                || holdRequest.getAmount().signum() <= 0) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Hold reference and a positive amount are required");
+        }
+        if (balanceEngine.map(engine -> engine.owns(accountNumber)).orElse(false)) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Holds are not supported on this account");
+        }
+        Optional<FundHold> existing = fundHoldRepository.findByHoldReference(holdRequest.getHoldReference());
+        if (existing.isPresent()) {
+            FundHold hold = existing.get();
+            if (!hold.getAccountNumber().equals(accountNumber) || hold.getAmount().compareTo(holdRequest.getAmount()) != 0) {
+                throw new ResourceConflict("Hold reference is already used for a different hold");
+            }
+            return toResponse(hold);
+        }
+        AccountStatus accountStatus = accountSummaryCache.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new ResourceNotFound("Account Not Found on the Server")).getAccountStatus();
+        if (accountStatus != AccountStatus.ACTIVE) {
+            throw new AccountStatusException("Account is Inactive or Closed");
+        }
+        long ttlSeconds = Objects.isNull(holdRequest.getTtlSeconds()) ? defaultTtlSeconds
+                : Math.min(Math.max(holdRequest.getTtlSeconds(), 1), maxTtlSeconds);
+        if (accountRepository.applyBalanceDelta(accountNumber, holdRequest.getAmount().negate()) == 0) {
+            if (accountSummaryCache.findByAccountNumber(accountNumber).isEmpty()) {
+                throw new ResourceNotFound("Account Not Found on the Server");
+            }
+            throw new InSufficientFunds("Insufficient balance in the account");
+        }
+        FundHold hold = fundHoldRepository.save(FundHold.builder()
+                .holdReference(holdRequest.getHoldReference())
+                .accountNumber(accountNumber)
+                .amount(holdRequest.getAmount())
+                .holdStatus(HoldStatus.ACTIVE)
+                .expiresAt(LocalDateTime.now().plusSeconds(ttlSeconds))
+                .build());
+        outboxWriter.append(accountNumber, BalanceChanged.builder()
+                .accountNumber(accountNumber)
+                .delta(holdRequest.getAmount().negate())
+                .reference(holdRequest.getHoldReference())
+                .build());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                expiryWheel.schedule(hold.getHoldReference(), epochMillis(hold.getExpiresAt()));
+            }
+        });
+        return toResponse(hold);
+    }
+
+    /**
+     * Captures an active hold, making the debit final, and disarms its expiry. Capturing a captured hold again
+     * is a no-op.
+     *
+     * @param holdReference The hold reference.
+     * @return The hold.
+     * @throws ResourceNotFound If there is no such hold.
+     * @throws HoldNotActive    If the hold was already released or has expired.
+     */
+    @Override
+    @Transactional
+    public HoldResponse captureHold(String holdReference) {
+        FundHold hold = findHoldForUpdate(holdReference);
+        if (hold.getHoldStatus() == HoldStatus.ACTIVE) {
+            hold.setHoldStatus(HoldStatus.CAPTURED);
+            fundHoldRepository.save(hold);
+            cancelExpiryAfterCommit(holdReference);
+        } else if (hold.getHoldStatus() != HoldStatus.CAPTURED) {
+            throw new HoldNotActive("Hold is " + hold.getHoldStatus() + " and can no longer be captured");
+        }
+        return toResponse(hold);
+    }
+
+    /**
+     * Releases an active hold and gives the amount back to the account. Releasing a hold that was already
+     * released or has expired is a no-op.
+     *
+     * @param holdReference The hold reference.
+     * @return The hold.
+     * @throws ResourceNotFound If there is no such hold.
+     * @throws ResourceConflict If the hold was already captured.
+     */
+    @Override
+    @Transactional
+    public HoldResponse releaseHold(String holdReference) {
+        FundHold hold = settle(holdReference, HoldStatus.RELEASED);
+        if (hold.getHoldStatus() == HoldStatus.CAPTURED) {
+            throw new ResourceConflict("Hold is already captured and can no longer be released");
+        }
+        return toResponse(hold);
+    }
+
+    @Override
+    public HoldResponse readHold(String holdReference) {
+        return toResponse(findHold(holdReference));
+    }
+
+    private void expireHold(String holdReference) {
+        transactionTemplate.executeWithoutResult(status -> {
+            FundHold hold = settle(holdReference, HoldStatus.EXPIRED);
+            if (hold.getHoldStatus() == HoldStatus.EXPIRED) {
+                log.info("hold {} on account {} expired", holdReference, hold.getAccountNumber());
+            }
+        });
+    }
+
+    /**
+     * Moves an active hold to RELEASED or EXPIRED, credits the amount back and disarms its expiry. The hold row
+     * stays locked until commit, so the amount is given back at most once.
+     *
+     * @return the hold with its current status
+     */
+    private FundHold settle(String holdReference, HoldStatus holdStatus) {
+        FundHold hold = findHoldForUpdate(holdReference);
+        if (hold.getHoldStatus() == HoldStatus.ACTIVE) {
+            hold.setHoldStatus(holdStatus);
+            fundHoldRepository.save(hold);
+            accountRepository.applyBalanceDelta(hold.getAccountNumber(), hold.getAmount());
+            outboxWriter.append(hold.getAccountNumber(), BalanceChanged.builder()
+                    .accountNumber(hold.getAccountNumber())
+                    .delta(hold.getAmount())
+                    .reference(holdReference)
+                    .build());
+            cancelExpiryAfterCommit(holdReference);
+        }
+        return hold;
+    }
+
+    private void cancelExpiryAfterCommit(String holdReference) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                expiryWheel.cancel(holdReference);
+            }
+        });
+    }
+
+    private FundHold findHold(String holdReference) {
+        return fundHoldRepository.findByHoldReference(holdReference)
+                .orElseThrow(() -> new ResourceNotFound("Hold Not Found on the Server"));
+    }
+
+    private FundHold findHoldForUpdate(String holdReference) {
+        return fundHoldRepository.findByHoldReferenceForUpdate(holdReference)
+                .orElseThrow(() -> new ResourceNotFound("Hold Not Found on the Server"));
+    }
+
+    private HoldResponse toResponse(FundHold hold) {
+        return HoldResponse.builder()
+                .holdReference(hold.getHoldReference())
+                .accountNumber(hold.getAccountNumber())
+                .amount(hold.getAmount())
+                .holdStatus(hold.getHoldStatus())
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
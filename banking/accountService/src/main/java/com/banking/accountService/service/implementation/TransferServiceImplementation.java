@@ -0,0 +1,532 @@
+package com.banking.accountService.service.implementation;
+
+import com.banking.accountService.engine.BalanceEngine;
+import com.banking.accountService.exception.*;
+import com.banking.accountService.model.AccountStatus;
+import com.banking.accountService.model.dto.BalanceUpdate;
+import com.banking.accountService.model.dto.BatchTransferItem;
+import com.banking.accountService.model.dto.BatchTransferRequest;
+import com.banking.accountService.model.dto.InternalTransferRequest;
+import com.banking.accountService.model.dto.NetPosition;
+import com.banking.accountService.model.dto.response.BalanceResponse;
+import com.banking.accountService.model.dto.response.BatchTransferItemResult;
+import com.banking.accountService.model.dto.response.BatchTransferResponse;
+import com.banking.accountService.model.dto.response.TransferResponse;
+import com.banking.accountService.model.entity.Account;
+import com.banking.accountService.model.entity.BalanceAdjustment;
+import com.banking.accountService.model.event.BalanceChanged;
+import com.banking.accountService.outbox.OutboxWriter;
+import com.banking.accountService.repository.AccountRepository;
+import com.banking.accountService.repository.BalanceAdjustmentRepository;
+import com.banking.accountService.service.AccountService;
+import com.banking.accountService.service.TransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+public class TransferServiceImplementation implements TransferService {
+    private static final String CREDIT_ACCOUNT = "UPDATE account SET available_balance = available_balance + ?, " +
+            "version = version + 1 WHERE account_number = ? AND account_status = 'ACTIVE'";
+    private static final String INSERT_ADJUSTMENT =
+            "INSERT INTO balance_adjustment (reference, account_number, delta, applied_on) VALUES (?, ?, ?, ?)";
+
+    private final AccountRepository accountRepository;
+    private final BalanceAdjustmentRepository balanceAdjustmentRepository;
+    private final AccountService accountService;
+    private final AccountSummaryCache accountSummaryCache;
+    private final Optional<BalanceEngine> balanceEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxWriter outboxWriter;
+
+    @Value("${account.transfer.batch.max-items}")
+    private int batchMaxItems;
+
+    @Value("${account.transfer.batch.jdbc-batch-size}")
+    private int jdbcBatchSize;
+
+    public TransferServiceImplementation(AccountRepository accountRepository,
+                                         BalanceAdjustmentRepository balanceAdjustmentRepository,
+                                         AccountService accountService,
+                                         AccountSummaryCache accountSummaryCache,
+                                         Optional<BalanceEngine> balanceEngine,
+                                         PlatformTransactionManager transactionManager,
+                                         JdbcTemplate jdbcTemplate,
+                                         OutboxWriter outboxWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxWriter = outboxWriter;
+        this.accountRepository = accountRepository;
+        this.balanceAdjustmentRepository = balanceAdjustmentRepository;
+        this.accountService = accountService;
+        this.accountSummaryCache = accountSummaryCache;
+        this.balanceEngine = balanceEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Debits and credits both accounts in one database transaction. The two rows are locked in account number
+     * order, so transfers running in opposite directions between the same pair queue up instead of
+     * deadlocking, and transfers between different pairs do not contend at all. Accounts owned by the balance
+     * engine are moved leg by leg through the engine instead, with the debit reverted if the credit fails.
+     * <p>
+     * A transfer carrying a reference records both legs in the adjustment ledger and is applied at most once:
+     * a replay, checked while both rows are locked, returns the current balances without moving anything.
+     *
+     * @param internalTransferRequest The source, target and amount.
+     * @return The new balances of both accounts.
+     * @throws ResourceNotFound       If either account is not found on the server.
+     * @throws AccountStatusException If the source account is not active.
+     * @throws InSufficientFunds      If the source balance does not cover the amount.
+     */
+    @Override
+    public TransferResponse internalTransfer(InternalTransferRequest internalTransferRequest) {
+        String fromAccount = internalTransferRequest.getFromAccount();
+        String toAccount = internalTransferRequest.getToAccount();
+        if (Objects.isNull(fromAccount) || Objects.isNull(toAccount) || Objects.isNull(internalTransferRequest.getAmount())
+                || internalTransferRequest.getAmount().signum() <= 0) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Both accounts and a positive amount are required");
+        }
+        if (fromAccount.equals(toAccount)) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Source and target account must differ");
+        }
+        if (isEngineOwned(fromAccount) || isEngineOwned(toAccount)) {
+            return transferByLegs(internalTransferRequest);
+        }
+        return transactionTemplate.execute(status -> {
+            boolean fromFirst = fromAccount.compareTo(toAccount) < 0;
+            Account first = lock(fromFirst ? fromAccount : toAccount);
+            Account second = lock(fromFirst ? toAccount : fromAccount);
+            Account source = fromFirst ? first : second;
+            Account target = fromFirst ? second : first;
+            String reference = internalTransferRequest.getReference();
+            if (Objects.nonNull(reference)
+                    && balanceAdjustmentRepository.existsByReferenceAndAccountNumber(reference, fromAccount)) {
+                log.info("transfer {} was already applied", reference);
+                return transferResponse(source, target);
+            }
+            if (!source.getAccountStatus().equals(AccountStatus.ACTIVE)) {
+                throw new AccountStatusException("Account is Inactive or Closed");
+            }
+            if (source.getAvailableBalance().compareTo(internalTransferRequest.getAmount()) < 0) {
+                log.error("insufficient balance to transfer {} from account {}", internalTransferRequest.getAmount(), fromAccount);
+                throw new InSufficientFunds("Insufficient balance in the account");
+            }
+            source.setAvailableBalance(source.getAvailableBalance().subtract(internalTransferRequest.getAmount()));
+            target.setAvailableBalance(target.getAvailableBalance().add(internalTransferRequest.getAmount()));
+            accountRepository.save(source);
+            accountRepository.save(target);
+            if (Objects.nonNull(reference)) {
+                balanceAdjustmentRepository.saveAll(List.of(
+                        adjustment(reference, fromAccount, internalTransferRequest.getAmount().negate()),
+                        adjustment(reference, toAccount, internalTransferRequest.getAmount())));
+            }
+            outboxWriter.appendAll(List.of(
+                    balanceChanged(fromAccount, internalTransferRequest.getAmount().negate(), source.getAvailableBalance()),
+                    balanceChanged(toAccount, internalTransferRequest.getAmount(), target.getAvailableBalance())),
+                    BalanceChanged::getAccountNumber);
+            return transferResponse(source, target);
+        });
+    }
+
+    /**
+     * Validates every instruction, then moves the valid ones in one database transaction: the credits are
+     * summed per target and applied with JDBC batch updates, and the source is debited once with the total
+     * after checking its balance once. All rows, the source included, are touched in account number order,
+     * so a batch cannot deadlock with internal transfers or other batches. Instructions to unknown or inactive
+     * accounts or to accounts owned by the balance engine are reported as not credited; the others succeed or
+     * fail together, also when a target is closed between the validation and its credit.
+     * <p>
+     * A batch carrying a reference writes its debit to the adjustment ledger before anything moves and every
+     * credited instruction under its own reference, in the same transaction. A replay, or a duplicate that
+     * raced the first request on the unique key, answers with the instructions the ledger shows as credited.
+     *
+     * @param batchTransferRequest The source and the transfer instructions.
+     * @return The amount debited, the new source balance and the outcome of every instruction.
+     * @throws ResourceNotFound       If the source account is not found on the server.
+     * @throws AccountStatusException If the source account is not active.
+     * @throws InSufficientFunds      If the source balance does not cover the total of the valid instructions.
+     * @throws GlobalException        If the request is empty, too large, misses item references or the source
+     *                                is owned by the engine; with 409 if a target changed during the batch.
+     */
+    @Override
+    public BatchTransferResponse batchTransfer(BatchTransferRequest batchTransferRequest) {
+        String fromAccount = batchTransferRequest.getFromAccount();
+        List<BatchTransferItem> items = batchTransferRequest.getTransfers();
+        if (Objects.isNull(fromAccount) || Objects.isNull(items) || items.isEmpty()) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Source account and transfers are required");
+        }
+        if (items.size() > batchMaxItems) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST,
+                    "At most " + batchMaxItems + " transfers can be made in one batch");
+        }
+        if (isEngineOwned(fromAccount)) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Batch transfers are not supported from this account");
+        }
+        String reference = batchTransferRequest.getReference();
+        if (Objects.nonNull(reference) && (items.stream().anyMatch(item -> Objects.isNull(item.getReference()))
+                || items.stream().map(BatchTransferItem::getReference).distinct().count() != items.size())) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST,
+                    "Every transfer of a referenced batch needs its own reference");
+        }
+        if (Objects.nonNull(reference)
+                && balanceAdjustmentRepository.existsByReferenceAndAccountNumber(reference, fromAccount)) {
+            return replay(batchTransferRequest);
+        }
+        Map<String, AccountStatus> statuses = accountStatuses(items);
+        List<BatchTransferItemResult> results = new ArrayList<>(items.size());
+        List<BatchTransferItem> credited = new ArrayList<>(items.size());
+        SortedMap<String, BigDecimal> credits = new TreeMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferItem item = items.get(i);
+            String rejection = validate(fromAccount, item, statuses);
+            results.add(BatchTransferItemResult.builder()
+                    .index(i)
+                    .toAccount(item.getToAccount())
+                    .amount(item.getAmount())
+                    .credited(Objects.isNull(rejection))
+                    .message(Objects.isNull(rejection) ? "Credited" : rejection)
+                    .build());
+            if (Objects.isNull(rejection)) {
+                credited.add(item);
+                credits.merge(item.getToAccount(), item.getAmount(), BigDecimal::add);
+                total = total.add(item.getAmount());
+            }
+        }
+        BigDecimal debit = total;
+        BigDecimal fromAvailableBalance;
+        try {
+            fromAvailableBalance = transactionTemplate.execute(status -> {
+                if (Objects.nonNull(reference)) {
+                    balanceAdjustmentRepository.saveAndFlush(adjustment(reference, fromAccount, debit.negate()));
+                }
+                return debitAndCredit(fromAccount, debit, credits, credited);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (Objects.isNull(reference)) {
+                throw e;
+            }
+            log.info("batch {} was applied by a concurrent request", reference);
+            return replay(batchTransferRequest);
+        }
+        return BatchTransferResponse.builder()
+                .fromAccount(fromAccount)
+                .debitedAmount(debit)
+                .fromAvailableBalance(fromAvailableBalance)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Debits the source once and credits the targets, touching every row in account number order. Runs inside
+     * the batch transaction.
+     */
+    private BigDecimal debitAndCredit(String fromAccount, BigDecimal debit, SortedMap<String, BigDecimal> credits,
+                                      List<BatchTransferItem> credited) {
+        applyCredits(credits.headMap(fromAccount));
+        Account source = lock(fromAccount);
+        if (!source.getAccountStatus().equals(AccountStatus.ACTIVE)) {
+            throw new AccountStatusException("Account is Inactive or Closed");
+        }
+        if (source.getAvailableBalance().compareTo(debit) < 0) {
+            log.error("insufficient balance to transfer {} in a batch from account {}", debit, fromAccount);
+            throw new InSufficientFunds("Insufficient balance in the account");
+        }
+        source.setAvailableBalance(source.getAvailableBalance().subtract(debit));
+        accountRepository.save(source);
+        applyCredits(credits.tailMap(fromAccount));
+        recordAdjustments(credited);
+        List<BalanceChanged> events = new ArrayList<>(credits.size() + 1);
+        events.add(balanceChanged(fromAccount, debit.negate(), source.getAvailableBalance()));
+        credits.forEach((accountNumber, amount) -> events.add(balanceChanged(accountNumber, amount, null)));
+        outboxWriter.appendAll(events, BalanceChanged::getAccountNumber);
+        return source.getAvailableBalance();
+    }
+
+    /**
+     * Answers a batch that was already applied from the adjustment ledger: an instruction was credited if its
+     * reference is recorded, the amount debited is the sum of those.
+     */
+    private BatchTransferResponse replay(BatchTransferRequest batchTransferRequest) {
+        List<BatchTransferItem> items = batchTransferRequest.getTransfers();
+        List<String> references = items.stream().map(BatchTransferItem::getReference).toList();
+        Set<String> applied = new HashSet<>(references.size());
+        for (int from = 0; from < references.size(); from += jdbcBatchSize) {
+            applied.addAll(balanceAdjustmentRepository.findAppliedReferences(
+                    references.subList(from, Math.min(from + jdbcBatchSize, references.size()))));
+        }
+        List<BatchTransferItemResult> results = new ArrayList<>(items.size());
+        BigDecimal debit = BigDecimal.ZERO;
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferItem item = items.get(i);
+            boolean credited = applied.contains(item.getReference());
+            results.add(BatchTransferItemResult.builder()
+                    .index(i)
+                    .toAccount(item.getToAccount())
+                    .amount(item.getAmount())
+                    .credited(credited)
+                    .message(credited ? "Credited" : "Not credited")
+                    .build());
+            if (credited) {
+                debit = debit.add(item.getAmount());
+            }
+        }
+        log.info("batch {} was already applied, answering from the ledger", batchTransferRequest.getReference());
+        return BatchTransferResponse.builder()
+                .fromAccount(batchTransferRequest.getFromAccount())
+                .debitedAmount(debit)
+                .fromAvailableBalance(accountRepository.findAvailableBalanceByAccountNumber(
+                        batchTransferRequest.getFromAccount()).orElseThrow(ResourceNotFound::new))
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Applies the net positions of a netting window atomically. The accounts are locked in account number
+     * order, every account must end with a non-negative balance and accounts that pay out must be active;
+     * otherwise nothing is applied. The positions must sum up to zero, so a settlement can neither create nor
+     * destroy money.
+     * <p>
+     * A settlement carrying a reference writes every position to the adjustment ledger before anything moves;
+     * a replay, or a duplicate that raced the first request on the unique key, returns the current balances
+     * without moving anything.
+     *
+     * @param netPositions The signed net delta per account.
+     * @param reference    The optional reference of the settlement.
+     * @return The new balance of every account.
+     * @throws GlobalException        If the positions do not sum up to zero, repeat an account or touch an
+     *                                account owned by the balance engine.
+     * @throws ResourceNotFound       If an account is not found on the server.
+     * @throws AccountStatusException If an account with a negative position is not active.
+     * @throws InSufficientFunds      If an account would end with a negative balance.
+     */
+    @Override
+    public List<BalanceResponse> applyNetPositions(List<NetPosition> netPositions, String reference) {
+        SortedMap<String, BigDecimal> positions = new TreeMap<>();
+        BigDecimal sum = BigDecimal.ZERO;
+        for (NetPosition netPosition : netPositions) {
+            if (Objects.isNull(netPosition.getAccountNumber()) || Objects.isNull(netPosition.getDelta())
+                    || positions.put(netPosition.getAccountNumber(), netPosition.getDelta()) != null) {
+                throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Every account needs exactly one position");
+            }
+            if (isEngineOwned(netPosition.getAccountNumber())) {
+                throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Net settlement is not supported for this account");
+            }
+            sum = sum.add(netPosition.getDelta());
+        }
+        if (sum.signum() != 0) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Net positions must sum up to zero");
+        }
+        if (Objects.nonNull(reference) && !positions.isEmpty()
+                && balanceAdjustmentRepository.existsByReferenceAndAccountNumber(reference, positions.firstKey())) {
+            return currentBalances(reference, positions);
+        }
+        try {
+            return applyPositions(positions, reference);
+        } catch (DataIntegrityViolationException e) {
+            if (Objects.isNull(reference)) {
+                throw e;
+            }
+            return currentBalances(reference, positions);
+        }
+    }
+
+    private List<BalanceResponse> applyPositions(SortedMap<String, BigDecimal> positions, String reference) {
+        return transactionTemplate.execute(status -> {
+            if (Objects.nonNull(reference)) {
+                List<BalanceAdjustment> adjustments = new ArrayList<>(positions.size());
+                positions.forEach((accountNumber, delta) -> adjustments.add(adjustment(reference, accountNumber, delta)));
+                balanceAdjustmentRepository.saveAllAndFlush(adjustments);
+            }
+            List<BalanceResponse> balances = new ArrayList<>(positions.size());
+            List<BalanceChanged> events = new ArrayList<>(positions.size());
+            positions.forEach((accountNumber, delta) -> {
+                Account account = lock(accountNumber);
+                BigDecimal updated = account.getAvailableBalance().add(delta);
+                if (delta.signum() < 0 && !account.getAccountStatus().equals(AccountStatus.ACTIVE)) {
+                    throw new AccountStatusException("Account " + accountNumber + " is Inactive or Closed");
+                }
+                if (updated.signum() < 0) {
+                    throw new InSufficientFunds("Insufficient balance in the account " + accountNumber);
+                }
+                if (delta.signum() != 0) {
+                    account.setAvailableBalance(updated);
+                    accountRepository.save(account);
+                    events.add(balanceChanged(accountNumber, delta, updated));
+                }
+                balances.add(BalanceResponse.builder().accountNumber(accountNumber).availableBalance(updated).build());
+            });
+            outboxWriter.appendAll(events, BalanceChanged::getAccountNumber);
+            return balances;
+        });
+    }
+
+    private List<BalanceResponse> currentBalances(String reference, SortedMap<String, BigDecimal> positions) {
+        log.info("net settlement {} was already applied", reference);
+        List<BalanceResponse> balances = new ArrayList<>(positions.size());
+        positions.keySet().forEach(accountNumber -> balances.add(BalanceResponse.builder()
+                .accountNumber(accountNumber)
+                .availableBalance(accountRepository.findAvailableBalanceByAccountNumber(accountNumber)
+                        .orElseThrow(ResourceNotFound::new))
+                .build()));
+        return balances;
+    }
+
+    private String validate(String fromAccount, BatchTransferItem item, Map<String, AccountStatus> statuses) {
+        if (Objects.isNull(item.getToAccount()) || Objects.isNull(item.getAmount()) || item.getAmount().signum() <= 0) {
+            return "Target account and a positive amount are required";
+        }
+        if (item.getToAccount().equals(fromAccount)) {
+            return "Source and target account must differ";
+        }
+        AccountStatus targetStatus = statuses.get(item.getToAccount());
+        if (Objects.isNull(targetStatus)) {
+            return "Account Not Found on the Server";
+        }
+        if (targetStatus != AccountStatus.ACTIVE) {
+            return "Account is Inactive or Closed";
+        }
+        if (isEngineOwned(item.getToAccount())) {
+            return "Batch credits are not supported to this account";
+        }
+        return null;
+    }
+
+    private Map<String, AccountStatus> accountStatuses(List<BatchTransferItem> items) {
+        List<String> targets = items.stream().map(BatchTransferItem::getToAccount).filter(Objects::nonNull)
+                .distinct().toList();
+        Map<String, AccountStatus> statuses = new HashMap<>(targets.size());
+        for (int from = 0; from < targets.size(); from += jdbcBatchSize) {
+            accountRepository.findAccountStatuses(targets.subList(from, Math.min(from + jdbcBatchSize, targets.size())))
+                    .forEach(account -> statuses.put(account.getAccountNumber(), account.getAccountStatus()));
+        }
+        return statuses;
+    }
+
+    /**
+     * Credits the targets with JDBC batch updates that only touch active accounts. A target that matched no
+     * row was closed or removed after the validation, so the whole batch is rolled back; a driver that
+     * rewrites the batch may report SUCCESS_NO_INFO, which is not a miss.
+     */
+    private void applyCredits(SortedMap<String, BigDecimal> credits) {
+        if (credits.isEmpty()) {
+            return;
+        }
+        List<Object[]> arguments = new ArrayList<>(credits.size());
+        credits.forEach((accountNumber, amount) -> arguments.add(new Object[]{amount, accountNumber}));
+        for (int from = 0; from < arguments.size(); from += jdbcBatchSize) {
+            List<Object[]> chunk = arguments.subList(from, Math.min(from + jdbcBatchSize, arguments.size()));
+            int[] counts = jdbcTemplate.batchUpdate(CREDIT_ACCOUNT, chunk);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new GlobalException(GlobalErrorCode.CONFLICT,
+                            "Account " + chunk.get(i)[1] + " changed during the batch transfer, please retry");
+                }
+            }
+        }
+    }
+
+    private void recordAdjustments(List<BatchTransferItem> credited) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = credited.stream()
+                .filter(item -> Objects.nonNull(item.getReference()))
+                .map(item -> new Object[]{item.getReference(), item.getToAccount(), item.getAmount(), now})
+                .toList();
+        for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+            jdbcTemplate.batchUpdate(INSERT_ADJUSTMENT, rows.subList(from, Math.min(from + jdbcBatchSize, rows.size())));
+        }
+    }
+
+    private TransferResponse transferByLegs(InternalTransferRequest internalTransferRequest) {
+        String fromAccount = internalTransferRequest.getFromAccount();
+        String toAccount = internalTransferRequest.getToAccount();
+        AccountStatus sourceStatus = accountSummaryCache.findByAccountNumber(fromAccount)
+                .orElseThrow(() -> new ResourceNotFound("Account Not Found on the Server")).getAccountStatus();
+        if (!sourceStatus.equals(AccountStatus.ACTIVE)) {
+            throw new AccountStatusException("Account is Inactive or Closed");
+        }
+        if (accountSummaryCache.findByAccountNumber(toAccount).isEmpty()) {
+            throw new ResourceNotFound("Account Not Found on the Server");
+        }
+        String reference = internalTransferRequest.getReference();
+        String revertReference = Objects.isNull(reference) ? null : reference + ":revert";
+        // the ledger is read before the pending references, which a shard forgets only once they are in it
+        if (Objects.nonNull(reference)
+                && (balanceAdjustmentRepository.existsByReferenceAndAccountNumber(revertReference, fromAccount)
+                || balanceEngine.map(engine -> engine.isPending(revertReference, fromAccount)).orElse(false))) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Transfer " + reference + " was reverted");
+        }
+        BalanceResponse debit = accountService.updateBalance(fromAccount, BalanceUpdate.builder()
+                .delta(internalTransferRequest.getAmount().negate()).reference(reference).build());
+        BalanceResponse credit;
+        try {
+            credit = accountService.updateBalance(toAccount, BalanceUpdate.builder()
+                    .delta(internalTransferRequest.getAmount()).reference(reference).build());
+        } catch (RuntimeException e) {
+            log.error("credit to {} failed, reverting the debit of {}", toAccount, fromAccount, e);
+            accountService.updateBalance(fromAccount, BalanceUpdate.builder()
+                    .delta(internalTransferRequest.getAmount()).reference(revertReference).build());
+            throw e;
+        }
+        return TransferResponse.builder()
+                .fromAccount(fromAccount)
+                .fromAvailableBalance(debit.getAvailableBalance())
+                .toAccount(toAccount)
+                .toAvailableBalance(credit.getAvailableBalance())
+                .build();
+    }
+
+    private static TransferResponse transferResponse(Account source, Account target) {
+        return TransferResponse.builder()
+                .fromAccount(source.getAccountNumber())
+                .fromAvailableBalance(source.getAvailableBalance())
+                .toAccount(target.getAccountNumber())
+                .toAvailableBalance(target.getAvailableBalance())
+                .build();
+    }
+
+    private static BalanceAdjustment adjustment(String reference, String accountNumber, BigDecimal delta) {
+        return BalanceAdjustment.builder()
+                .reference(reference)
+                .accountNumber(accountNumber)
+                .delta(delta)
+                .build();
+    }
+
+    private static BalanceChanged balanceChanged(String accountNumber, BigDecimal delta, BigDecimal availableBalance) {
+        return BalanceChanged.builder()
+                .accountNumber(accountNumber)
+                .delta(delta)
+                .availableBalance(availableBalance)
+                .build();
+    }
+
+    private Account lock(String accountNumber) {
+        return accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new ResourceNotFound("Account Not Found on the Server"));
+    }
+
+    private boolean isEngineOwned(String accountNumber) {
+        return balanceEngine.map(engine -> engine.owns(accountNumber)).orElse(false);
+    }
+}
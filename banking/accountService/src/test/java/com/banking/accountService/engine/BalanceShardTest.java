@@ -0,0 +1,274 @@
+package com.banking.accountService.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BalanceShardTest {
+    private static final long NO_FLUSH_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long FLUSH_MS = 100;
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryAccounts accounts = new InMemoryAccounts();
+    private final List<BalanceShard> shards = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    @AfterEach
+    void stopShards() {
+        shards.forEach(BalanceShard::stop);
+    }
+
+    @Test
+    void replaysAcknowledgedBalancesAfterACrash() throws Exception {
+        accounts.rows.put("ACC-1", new BigDecimal("100.00"));
+        accounts.rows.put("ACC-2", new BigDecimal("50.00"));
+        Path journalPath = directory.resolve("shard-0.journal");
+        BalanceShard shard = start(new BalanceJournal(journalPath), NO_FLUSH_MS);
+
+        assertEquals(new BigDecimal("110.00"), apply(shard, "ACC-1", "10.00"));
+        assertEquals(new BigDecimal("40.00"), apply(shard, "ACC-2", "-10.00"));
+        assertEquals(new BigDecimal("105.00"), apply(shard, "ACC-1", "-5.00"));
+        // nothing was flushed, the database still holds the old balances when the process dies
+        assertEquals(new BigDecimal("100.00"), accounts.rows.get("ACC-1"));
+        // a write torn by the crash, cut from "ACC-1 95.00"; it was never acknowledged
+        Files.write(journalPath, "ACC-1 9".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        new BalanceShard(1, 16, new BalanceJournal(journalPath), new HeldLease(), accounts,
+                new DirectTransactionTemplate(), 16, NO_FLUSH_MS).recover();
+
+        assertEquals(new BigDecimal("105.00"), accounts.rows.get("ACC-1"));
+        assertEquals(new BigDecimal("40.00"), accounts.rows.get("ACC-2"));
+        assertEquals(0L, Files.size(journalPath));
+    }
+
+    @Test
+    void failedJournalWriteRollsBackOnlyItsOwnBatch() throws Exception {
+        accounts.rows.put("ACC-1", new BigDecimal("100.00"));
+        Path journalPath = directory.resolve("shard-0.journal");
+        FailingJournal journal = new FailingJournal(journalPath);
+        BalanceShard shard = start(journal, FLUSH_MS);
+
+        assertEquals(new BigDecimal("110.00"), apply(shard, "ACC-1", "10.00"));
+        journal.failNextWrite.set(true);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> apply(shard, "ACC-1", "5.00"));
+        assertTrue(failure.getCause() instanceof UncheckedIOException);
+
+        // the acknowledged balance of the earlier batch is kept, not reloaded from the stale row
+        assertEquals(new BigDecimal("110.00"), shard.balanceOf("ACC-1").orElseThrow());
+        assertEquals(new BigDecimal("111.00"), apply(shard, "ACC-1", "1.00"));
+        assertFalse(new String(Files.readAllBytes(journalPath), StandardCharsets.UTF_8).contains("115"));
+
+        shard.stop();
+        workers.get(0).join(TimeUnit.SECONDS.toMillis(30));
+        assertEquals(new BigDecimal("111.00"), accounts.rows.get("ACC-1"));
+        assertFalse(accounts.wroteNull.get());
+    }
+
+    @Test
+    void failedJournalWriteForgetsAccountsLoadedByThatBatch() throws Exception {
+        accounts.rows.put("ACC-1", new BigDecimal("100.00"));
+        FailingJournal journal = new FailingJournal(directory.resolve("shard-0.journal"));
+        BalanceShard shard = start(journal, FLUSH_MS);
+
+        journal.failNextWrite.set(true);
+        assertThrows(ExecutionException.class, () -> apply(shard, "ACC-1", "5.00"));
+        assertTrue(shard.balanceOf("ACC-1").isEmpty());
+
+        shard.stop();
+        workers.get(0).join(TimeUnit.SECONDS.toMillis(30));
+        assertEquals(0, accounts.updates.get());
+    }
+
+    @Test
+    void appliesAReferenceOnceBeforeAndAfterTheFlush() throws Exception {
+        accounts.rows.put("ACC-1", new BigDecimal("100.00"));
+        BalanceShard shard = start(new BalanceJournal(directory.resolve("shard-0.journal")), FLUSH_MS);
+
+        AppliedBalance first = applyWithReference(shard, "ACC-1", "-30.00", "ref-1");
+        AppliedBalance pending = applyWithReference(shard, "ACC-1", "-30.00", "ref-1");
+        assertFalse(first.replayed());
+        assertTrue(pending.replayed());
+        assertEquals(new BigDecimal("70.00"), pending.availableBalance());
+
+        awaitFlushed("ref-1");
+        assertFalse(shard.isPending("ref-1", "ACC-1"));
+        AppliedBalance flushed = applyWithReference(shard, "ACC-1", "-30.00", "ref-1");
+        assertTrue(flushed.replayed());
+        assertEquals(new BigDecimal("70.00"), flushed.availableBalance());
+        assertEquals(new BigDecimal("-30.00"), accounts.ledger.get(new AdjustmentKey("ref-1", "ACC-1")));
+    }
+
+    @Test
+    void restoresJournaledReferencesIntoTheLedger() throws Exception {
+        accounts.rows.put("ACC-1", new BigDecimal("100.00"));
+        Path journalPath = directory.resolve("shard-0.journal");
+        BalanceShard shard = start(new BalanceJournal(journalPath), NO_FLUSH_MS);
+
+        applyWithReference(shard, "ACC-1", "-10.00", "ref with spaces");
+        assertTrue(accounts.ledger.isEmpty());
+
+        new BalanceShard(1, 16, new BalanceJournal(journalPath), new HeldLease(), accounts,
+                new DirectTransactionTemplate(), 16, NO_FLUSH_MS).recover();
+
+        assertEquals(new BigDecimal("90.00"), accounts.rows.get("ACC-1"));
+        assertEquals(new BigDecimal("-10.00"), accounts.ledger.get(new AdjustmentKey("ref with spaces", "ACC-1")));
+    }
+
+    @Test
+    void doesNotFlushWithoutTheLease() throws Exception {
+        accounts.rows.put("ACC-1", new BigDecimal("100.00"));
+        HeldLease lease = new HeldLease();
+        lease.held.set(false);
+        BalanceShard shard = start(new BalanceJournal(directory.resolve("shard-0.journal")), lease, FLUSH_MS);
+
+        assertEquals(new BigDecimal("110.00"), apply(shard, "ACC-1", "10.00"));
+        Thread.sleep(FLUSH_MS * 5);
+
+        assertEquals(new BigDecimal("100.00"), accounts.rows.get("ACC-1"));
+        assertEquals(0, accounts.updates.get());
+    }
+
+    private BalanceShard start(BalanceJournal journal, long flushIntervalMs) {
+        return start(journal, new HeldLease(), flushIntervalMs);
+    }
+
+    private BalanceShard start(BalanceJournal journal, BalanceEngineLease lease, long flushIntervalMs) {
+        BalanceShard shard = new BalanceShard(0, 16, journal, lease, accounts, new DirectTransactionTemplate(), 16,
+                flushIntervalMs);
+        shards.add(shard);
+        Thread worker = new Thread(shard, "balance-shard-test");
+        worker.setDaemon(true);
+        worker.start();
+        workers.add(worker);
+        return shard;
+    }
+
+    private static BigDecimal apply(BalanceShard shard, String accountNumber, String delta) throws Exception {
+        return applyWithReference(shard, accountNumber, delta, null).availableBalance();
+    }
+
+    private static AppliedBalance applyWithReference(BalanceShard shard, String accountNumber, String delta,
+                                                     String reference) throws Exception {
+        CompletableFuture<AppliedBalance> result = new CompletableFuture<>();
+        assertTrue(shard.offer(new BalanceCommand(accountNumber, new BigDecimal(delta), reference, result), 1000));
+        return result.get(30, TimeUnit.SECONDS);
+    }
+
+    private void awaitFlushed(String reference) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (accounts.ledger.keySet().stream().noneMatch(key -> key.reference().equals(reference))) {
+            assertTrue(System.nanoTime() < deadline, "reference " + reference + " was not flushed");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Stands in for the account and ledger tables: serves the balance and reference queries and records the
+     * batched balance updates and ledger inserts.
+     */
+    private static final class InMemoryAccounts extends JdbcTemplate {
+        private final Map<String, BigDecimal> rows = new ConcurrentHashMap<>();
+        private final Map<AdjustmentKey, BigDecimal> ledger = new ConcurrentHashMap<>();
+        private final AtomicBoolean wroteNull = new AtomicBoolean();
+        private final AtomicInteger updates = new AtomicInteger();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T query(String sql, ResultSetExtractor<T> extractor, Object... args) {
+            if (sql.contains("balance_adjustment")) {
+                List<Object> references = List.of(args);
+                return (T) ledger.keySet().stream().filter(key -> references.contains(key.reference()))
+                        .collect(Collectors.toSet());
+            }
+            return (T) rows.get((String) args[0]);
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (sql.contains("balance_adjustment")) {
+                batchArgs.forEach(arguments -> ledger.putIfAbsent(
+                        new AdjustmentKey((String) arguments[0], (String) arguments[1]), (BigDecimal) arguments[2]));
+                return new int[batchArgs.size()];
+            }
+            Map<String, BigDecimal> written = new HashMap<>();
+            for (Object[] arguments : batchArgs) {
+                if (arguments[0] == null) {
+                    wroteNull.set(true);
+                }
+                written.put((String) arguments[1], (BigDecimal) arguments[0]);
+            }
+            rows.putAll(written);
+            updates.addAndGet(batchArgs.size());
+            return new int[batchArgs.size()];
+        }
+    }
+
+    private static final class DirectTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(null);
+        }
+    }
+
+    private static final class HeldLease extends BalanceEngineLease {
+        private final AtomicBoolean held = new AtomicBoolean(true);
+
+        private HeldLease() {
+            super(null, null, "test", 30);
+        }
+
+        @Override
+        void checkHeld() {
+            if (!held.get()) {
+                throw new IllegalStateException("lease lost");
+            }
+        }
+    }
+
+    private static final class FailingJournal extends BalanceJournal {
+        private final AtomicBoolean failNextWrite = new AtomicBoolean();
+
+        private FailingJournal(Path path) throws IOException {
+            super(path);
+        }
+
+        @Override
+        void write(ByteBuffer buffer) throws IOException {
+            if (failNextWrite.compareAndSet(true, false)) {
+                throw new IOException("disk full");
+            }
+            super.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.accountService.service.implementation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoldExpiryWheelTest {
+    private static final long TICK_MS = 100;
+    private static final int SLOTS = 8;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final List<String> expired = new CopyOnWriteArrayList<>();
+    // never started, the test drives the ticks
+    private final HoldExpiryWheel wheel = new HoldExpiryWheel(TICK_MS, SLOTS, clock::get, expired::add);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesOnTheFirstTickAtOrAfterTheDeadline() {
+        wheel.schedule("hold-1", clock.get() + 250);
+
+        ticks(3);
+        assertTrue(expired.isEmpty());
+
+        ticks(1);
+        assertEquals(List.of("hold-1"), expired);
+    }
+
+    @Test
+    void firesADeadlineBeyondOneRevolutionAfterItsRounds() {
+        // 20 ticks on a wheel of 8 slots: two full rounds, then 4 more slots
+        wheel.schedule("hold-1", clock.get() + 20 * TICK_MS);
+
+        ticks(20);
+        assertTrue(expired.isEmpty());
+
+        ticks(1);
+        assertEquals(List.of("hold-1"), expired);
+
+        ticks(3 * SLOTS);
+        assertEquals(List.of("hold-1"), expired);
+    }
+
+    @Test
+    void firesAPastDeadlineOnTheNextTick() {
+        wheel.schedule("hold-1", clock.get() - 60_000);
+
+        ticks(1);
+
+        assertEquals(List.of("hold-1"), expired);
+    }
+
+    @Test
+    void dropsATimeoutCancelledBeforeItWasPlaced() {
+        wheel.schedule("hold-1", clock.get() + 250);
+        wheel.cancel("hold-1");
+
+        ticks(2 * SLOTS);
+
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    void dropsATimeoutCancelledAfterItWasPlaced() {
+        wheel.schedule("hold-1", clock.get() + 250);
+        wheel.schedule("hold-2", clock.get() + 250);
+        ticks(1);
+
+        wheel.cancel("hold-1");
+        ticks(2 * SLOTS);
+
+        assertEquals(List.of("hold-2"), expired);
+    }
+
+    @Test
+    void replacesTheTimeoutOfAHoldScheduledAgain() {
+        wheel.schedule("hold-1", clock.get() + 250);
+        wheel.schedule("hold-1", clock.get() + 550);
+
+        ticks(4);
+        assertTrue(expired.isEmpty());
+
+        ticks(3);
+        assertEquals(List.of("hold-1"), expired);
+    }
+
+    @Test
+    void keepsFiringAfterAFailedExpiry() {
+        HoldExpiryWheel failing = new HoldExpiryWheel(TICK_MS, SLOTS, clock::get, holdReference -> {
+            if (holdReference.equals("hold-1")) {
+                throw new IllegalStateException("database unavailable");
+            }
+            expired.add(holdReference);
+        });
+        failing.schedule("hold-1", clock.get());
+        failing.schedule("hold-2", clock.get());
+
+        failing.advance();
+
+        assertEquals(List.of("hold-2"), expired);
+        failing.stop();
+    }
+
+    private void ticks(int count) {
+        for (int i = 0; i < count; i++) {
+            wheel.advance();
+            clock.addAndGet(TICK_MS);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.banking.accountService.service.implementation;
+
+import com.banking.accountService.model.HoldStatus;
+import com.banking.accountService.model.entity.FundHold;
+import com.banking.accountService.outbox.OutboxWriter;
+import com.banking.accountService.repository.AccountRepository;
+import com.banking.accountService.repository.FundHoldRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HoldServiceImplementationTest {
+    private static final String ACCOUNT = "100001";
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+
+    private final Map<String, FundHold> holds = new ConcurrentHashMap<>();
+    private final InMemoryTransactionManager transactionManager = new InMemoryTransactionManager();
+    private AccountRepository accountRepository;
+    private FundHoldRepository fundHoldRepository;
+    private HoldServiceImplementation holdService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        fundHoldRepository = mock(FundHoldRepository.class);
+        when(fundHoldRepository.findByHoldReferenceForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(holds.get(invocation.<String>getArgument(0))));
+        when(fundHoldRepository.save(any(FundHold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(fundHoldRepository.findByHoldStatus(HoldStatus.ACTIVE)).thenAnswer(invocation -> holds.values().stream()
+                .filter(hold -> hold.getHoldStatus() == HoldStatus.ACTIVE).toList());
+        when(accountRepository.applyBalanceDelta(anyString(), any())).thenReturn(1);
+        // a tick far longer than any test, so only the ticks driven by the tests run
+        holdService = new HoldServiceImplementation(accountRepository, fundHoldRepository,
+                mock(AccountSummaryCache.class), Optional.empty(), transactionManager, mock(OutboxWriter.class),
+                60_000, 8);
+        ReflectionTestUtils.setField(holdService, "sweepBatchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        holdService.stop();
+    }
+
+    @Test
+    void expiresAnActiveHoldWhenItsTimeoutFires() {
+        hold("hold-1", LocalDateTime.now().minusSeconds(1));
+        holdService.start();
+
+        wheel().advance();
+
+        assertEquals(HoldStatus.EXPIRED, holds.get("hold-1").getHoldStatus());
+        verify(accountRepository).applyBalanceDelta(ACCOUNT, AMOUNT);
+    }
+
+    @Test
+    void disarmsTheExpiryOnCapture() {
+        hold("hold-1", LocalDateTime.now().minusSeconds(1));
+        holdService.start();
+
+        inTransaction(() -> holdService.captureHold("hold-1"));
+        wheel().advance();
+
+        assertEquals(HoldStatus.CAPTURED, holds.get("hold-1").getHoldStatus());
+        verify(fundHoldRepository, times(1)).findByHoldReferenceForUpdate("hold-1");
+        verify(accountRepository, never()).applyBalanceDelta(anyString(), any());
+    }
+
+    @Test
+    void disarmsTheExpiryOnRelease() {
+        hold("hold-1", LocalDateTime.now().minusSeconds(1));
+        holdService.start();
+
+        inTransaction(() -> holdService.releaseHold("hold-1"));
+        wheel().advance();
+
+        assertEquals(HoldStatus.RELEASED, holds.get("hold-1").getHoldStatus());
+        verify(fundHoldRepository, times(1)).findByHoldReferenceForUpdate("hold-1");
+        verify(accountRepository, times(1)).applyBalanceDelta(ACCOUNT, AMOUNT);
+    }
+
+    @Test
+    void keepsTheExpiryArmedWhenTheReleaseRollsBack() {
+        hold("hold-1", LocalDateTime.now().minusSeconds(1));
+        holdService.start();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            holdService.releaseHold("hold-1");
+            holds.get("hold-1").setHoldStatus(HoldStatus.ACTIVE);
+            status.setRollbackOnly();
+        });
+        wheel().advance();
+
+        assertEquals(HoldStatus.EXPIRED, holds.get("hold-1").getHoldStatus());
+        verify(fundHoldRepository, times(2)).findByHoldReferenceForUpdate("hold-1");
+    }
+
+    @Test
+    void sweepExpiresHoldsTheWheelMissed() {
+        // placed on a node that died: expired in the table, never armed on this wheel
+        hold("hold-1", LocalDateTime.now().minusMinutes(5));
+        hold("hold-2", LocalDateTime.now().minusMinutes(1));
+        when(fundHoldRepository.findExpiredReferences(eq(HoldStatus.ACTIVE), any(), any()))
+                .thenReturn(List.of("hold-1", "missing", "hold-2"));
+        LocalDateTime before = LocalDateTime.now();
+
+        holdService.sweepExpiredHolds();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(fundHoldRepository).findExpiredReferences(eq(HoldStatus.ACTIVE), cutoff.capture(), any());
+        assertFalse(cutoff.getValue().isBefore(before));
+        assertFalse(cutoff.getValue().isAfter(LocalDateTime.now()));
+        assertEquals(HoldStatus.EXPIRED, holds.get("hold-1").getHoldStatus());
+        assertEquals(HoldStatus.EXPIRED, holds.get("hold-2").getHoldStatus());
+        verify(accountRepository, times(2)).applyBalanceDelta(ACCOUNT, AMOUNT);
+    }
+
+    @Test
+    void sweepDoesNotCreditAHoldTheWheelAlreadyExpired() {
+        hold("hold-1", LocalDateTime.now().minusSeconds(1));
+        holdService.start();
+        wheel().advance();
+        when(fundHoldRepository.findExpiredReferences(eq(HoldStatus.ACTIVE), any(), any()))
+                .thenReturn(List.of("hold-1"));
+
+        holdService.sweepExpiredHolds();
+
+        assertEquals(HoldStatus.EXPIRED, holds.get("hold-1").getHoldStatus());
+        verify(accountRepository, times(1)).applyBalanceDelta(ACCOUNT, AMOUNT);
+    }
+
+    private void hold(String holdReference, LocalDateTime expiresAt) {
+        holds.put(holdReference, FundHold.builder()
+                .holdReference(holdReference)
+                .accountNumber(ACCOUNT)
+                .amount(AMOUNT)
+                .holdStatus(HoldStatus.ACTIVE)
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    private HoldExpiryWheel wheel() {
+        return (HoldExpiryWheel) ReflectionTestUtils.getField(holdService, "expiryWheel");
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    /**
+     * Runs transaction synchronizations like a real transaction manager, without a database.
+     */
+    private static final class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -6,7 +6,7 @@ import feign.Response;
 import feign.codec.ErrorDecoder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
-import org.training.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.exception.GlobalException;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -16,8 +16,13 @@ import java.util.Objects;
 @Slf4j
 public class FeignClientErrorDecoder implements ErrorDecoder {
 
+    private final ErrorDecoder defaultDecoder = new ErrorDecoder.Default();
+
     /**
-     * Decodes the HTTP response and returns an exception if necessary.
+     * Decodes the HTTP response and returns an exception if necessary. A client error is an answer from the
+     * service and becomes a GlobalException carrying its error code, or the status when the body has none.
+     * Any other status leaves the outcome unknown and is decoded by the default decoder into a FeignException
+     * that keeps the status and the body, so callers do not mistake it for a rejection.
      *
      * @param s        The string representation of the response body.
      * @param response The HTTP response object.
@@ -26,18 +31,18 @@ public class FeignClientErrorDecoder implements ErrorDecoder {
     @Override
     public Exception decode(String s, Response response) {
 
+        if (response.status() < 400 || response.status() >= 500) {
+            log.error("{} failed with status {}", s, response.status());
+            return defaultDecoder.decode(s, response);
+        }
         GlobalException globalException = extractGlobalException(response);
-
-        switch (response.status()) {
-            case 400 -> {
-                log.error(globalException.getErrorCode() + " - " + globalException.getMessage());
-                return globalException;
-            }
-            default -> {
-                log.error("general exception occurred");
-                return new Exception("general exception occurred");
-            }
+        if (Objects.isNull(globalException)) {
+            globalException = new GlobalException(String.valueOf(response.status()), response.reason());
+        } else if (Objects.isNull(globalException.getErrorCode())) {
+            globalException.setErrorCode(String.valueOf(response.status()));
         }
+        log.error(globalException.getErrorCode() + " - " + globalException.getMessage());
+        return globalException;
     }
 
     /**
@@ -0,0 +1,28 @@
+package com.banking.fundtransfer.configuration;
+
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.utils.PooledIdAllocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class IdAllocationConfiguration {
+
+    /**
+     * Returns the allocator of fund transfer ids for JDBC batch inserts. It depends on the entity manager
+     * factory, so the sequence table exists before it is aligned.
+     *
+     * @return the PooledIdAllocator instance
+     */
+    @Bean(initMethod = "align")
+    public PooledIdAllocator fundTransferIdAllocator(JdbcTemplate jdbcTemplate,
+                                                     PlatformTransactionManager transactionManager,
+                                                     EntityManagerFactory entityManagerFactory) {
+        return new PooledIdAllocator(jdbcTemplate, transactionManager, FundTransfer.ID_SEQUENCE, "fund_transfer",
+                "fund_transfer_id", FundTransfer.ID_ALLOCATION_SIZE);
+    }
+}
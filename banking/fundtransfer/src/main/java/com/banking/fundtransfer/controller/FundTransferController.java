@@ -1,14 +1,23 @@
 package com.banking.fundtransfer.controller;
 
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.TransferDirection;
 import com.banking.fundtransfer.model.dto.FundTransferDto;
+import com.banking.fundtransfer.model.dto.request.BatchFundTransferRequest;
 import com.banking.fundtransfer.model.dto.request.FundTransferRequest;
 import com.banking.fundtransfer.service.FundTransferService;
+import com.banking.fundtransfer.service.IdempotencyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import com.banking.fundtransfer.model.dto.response.BatchFundTransferResponse;
+import com.banking.fundtransfer.model.dto.response.FundTransferPage;
 import com.banking.fundtransfer.model.dto.response.FundTransferResponse;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,19 +25,58 @@ import java.util.List;
 @RequestMapping("/fund-transfers")
 public class FundTransferController {
     private final FundTransferService fundTransferService;
+    private final IdempotencyService idempotencyService;
 
     /**
-     * Handles the fund transfer request.
+     * Handles the fund transfer request. A request retried with the same Idempotency-Key is not executed
+     * again; it gets the response of the first one.
      *
      * @param fundTransferRequest The fund transfer request object.
+     * @param idempotencyKey      The optional key identifying the request across retries.
      * @return The response entity containing the fund transfer response.
      */
     @PostMapping
-    public ResponseEntity<FundTransferResponse> fundTransfer(@RequestBody FundTransferRequest fundTransferRequest) {
-        return new ResponseEntity<>(fundTransferService.fundTransfer(fundTransferRequest), HttpStatus.CREATED);
+    public ResponseEntity<FundTransferResponse> fundTransfer(@RequestBody FundTransferRequest fundTransferRequest,
+                                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return new ResponseEntity<>(idempotencyService.execute(idempotencyKey, fundTransferRequest, FundTransferResponse.class,
+                () -> fundTransferService.fundTransfer(fundTransferRequest)), HttpStatus.CREATED);
     }
 
 
+    /**
+     * Handles a batch of fund transfers from one source account, such as a payroll file.
+     *
+     * @param batchFundTransferRequest The source account and the transfer instructions.
+     * @return The response entity containing the outcome of every instruction.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchFundTransferResponse> batchFundTransfer(@RequestBody BatchFundTransferRequest batchFundTransferRequest) {
+        return new ResponseEntity<>(fundTransferService.batchFundTransfer(batchFundTransferRequest), HttpStatus.CREATED);
+    }
+
+    /**
+     * Accepts a fund transfer and returns at once; the transfer runs in the background.
+     *
+     * @param fundTransferRequest The fund transfer request object.
+     * @return The response entity with the reference to poll, with status 202.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<FundTransferResponse> submitFundTransfer(@RequestBody FundTransferRequest fundTransferRequest) {
+        return new ResponseEntity<>(fundTransferService.submitFundTransfer(fundTransferRequest), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Long-polls the transfer details until the transfer completed or the wait timed out.
+     *
+     * @param referenceId the reference ID of the transfer
+     * @param waitMs      how long to wait for completion, in milliseconds
+     * @return the transfer details
+     */
+    @GetMapping(value = "/{referenceId}", params = "waitMs")
+    public DeferredResult<FundTransferDto> awaitTransfer(@PathVariable String referenceId, @RequestParam long waitMs) {
+        return fundTransferService.awaitTransfer(referenceId, waitMs);
+    }
+
     /**
      * Retrieves the transfer details from the given reference ID.
      *
@@ -52,4 +100,27 @@ public class FundTransferController {
     public ResponseEntity<List<FundTransferDto>> getAllTransfersByAccountId(@RequestParam String accountId) {
         return new ResponseEntity<>(fundTransferService.getAllFundTransferByAccountId(accountId), HttpStatus.OK);
     }
+
+    /**
+     * Retrieves one page of the transfer history of an account, newest first.
+     *
+     * @param accountId the ID of the account
+     * @param direction the transfers sent, received or both
+     * @param status    the status to keep, all when absent
+     * @param from      the oldest transfer time to include
+     * @param to        the transfer time to stop before
+     * @param cursor    the nextCursor of the previous page, absent for the first page
+     * @param limit     the page size
+     * @return the page of transfers and the cursor of the next one
+     */
+    @GetMapping("/history")
+    public ResponseEntity<FundTransferPage> getTransferHistory(@RequestParam String accountId,
+                                                               @RequestParam(defaultValue = "BOTH") TransferDirection direction,
+                                                               @RequestParam(required = false) TransactionStatus status,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(fundTransferService.getTransferHistory(accountId, direction, status, from, to, cursor, limit), HttpStatus.OK);
+    }
 }
@@ -2,6 +2,10 @@ package com.banking.fundtransfer.exception;
 
 public class GlobalErrorCode {
 
+    public static final String BAD_REQUEST = "400";
     public static final String NOT_FOUND = "404";
     public static final String NOT_ACCEPTABLE = "406";
+    public static final String GONE = "410";
+    public static final String TOO_MANY_REQUESTS = "429";
+    public static final String GATEWAY_TIMEOUT = "504";
 }
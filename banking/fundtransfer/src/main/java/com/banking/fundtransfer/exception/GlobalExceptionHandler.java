@@ -31,6 +31,24 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(new ErrorResponse(badRequest, ex.getLocalizedMessage()), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles a transfer rejected by the velocity limiter with status 429, so clients can tell it apart from
+     * a rejected transfer and back off.
+     *
+     * @param velocityLimitExceeded the VelocityLimitExceeded object to be handled
+     * @return a ResponseEntity object representing the error response
+     */
+    @ExceptionHandler(VelocityLimitExceeded.class)
+    public ResponseEntity<Object> handleVelocityLimitExceeded(VelocityLimitExceeded velocityLimitExceeded) {
+
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ErrorResponse.builder()
+                        .errorCode(velocityLimitExceeded.getErrorCode())
+                        .message(velocityLimitExceeded.getMessage())
+                        .build());
+    }
+
     /**
      * Handles the GlobalException and returns a ResponseEntity object with the appropriate error response.
      *
@@ -0,0 +1,7 @@
+package com.banking.fundtransfer.exception;
+
+public class VelocityLimitExceeded extends GlobalException {
+    public VelocityLimitExceeded(String errorCode, String message) {
+        super(errorCode, message);
+    }
+}
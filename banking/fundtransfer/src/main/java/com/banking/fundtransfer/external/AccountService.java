@@ -2,14 +2,28 @@ package com.banking.fundtransfer.external;
 
 import com.banking.fundtransfer.configuration.FeignClientConfiguration;
 import com.banking.fundtransfer.model.dto.external.Account;
+import com.banking.fundtransfer.model.dto.external.BalanceResponse;
+import com.banking.fundtransfer.model.dto.external.BalanceUpdate;
+import com.banking.fundtransfer.model.dto.external.BatchTransfer;
+import com.banking.fundtransfer.model.dto.external.BatchTransferResult;
+import com.banking.fundtransfer.model.dto.external.Hold;
+import com.banking.fundtransfer.model.dto.external.HoldRequest;
+import com.banking.fundtransfer.model.dto.external.InternalTransfer;
+import com.banking.fundtransfer.model.dto.external.InternalTransferResult;
+import com.banking.fundtransfer.model.dto.external.NetPosition;
 import com.banking.fundtransfer.model.dto.response.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 @FeignClient(name = "account-service", configuration = FeignClientConfiguration.class)
 public interface AccountService {
     /**
@@ -20,6 +34,16 @@ public interface AccountService {
      */
     @GetMapping("/accounts")
     ResponseEntity<Account> readByAccountNumber(@RequestParam String accountNumber);
+
+    /**
+     * Retrieves several accounts by their account numbers in one call.
+     *
+     * @param accountNumbers The account numbers to search for.
+     * @return The accounts found; unknown account numbers are left out.
+     */
+    @PostMapping("/accounts/batch-read")
+    ResponseEntity<List<Account>> readByAccountNumbers(@RequestBody List<String> accountNumbers);
+
     /**
      * Updates an account with the given account number.
      *
@@ -30,4 +54,81 @@ public interface AccountService {
 
     @PutMapping("/accounts")
     ResponseEntity<Response> updateAccount(@RequestParam String accountNumber, @RequestBody Account account);
+
+    /**
+     * Applies a signed delta to the balance of an account in a single atomic update.
+     *
+     * @param accountNumber The account number of the account to update.
+     * @param balanceUpdate The delta to apply, negative for a debit.
+     * @return The response entity containing the new available balance.
+     */
+    @PatchMapping("/accounts/{accountNumber}/balance")
+    ResponseEntity<BalanceResponse> updateBalance(@PathVariable String accountNumber,
+                                                  @RequestBody BalanceUpdate balanceUpdate);
+
+    /**
+     * Places a hold on an account, reserving the amount until it is captured or released.
+     *
+     * @param accountNumber The account number of the account to reserve the amount on.
+     * @param holdRequest   The hold reference and amount.
+     * @return The response entity containing the hold.
+     */
+    @PostMapping("/accounts/{accountNumber}/holds")
+    ResponseEntity<Hold> placeHold(@PathVariable String accountNumber, @RequestBody HoldRequest holdRequest);
+
+    /**
+     * Retrieves a hold by its reference.
+     *
+     * @param holdReference The hold reference.
+     * @return The response entity containing the hold.
+     */
+    @GetMapping("/accounts/holds/{holdReference}")
+    ResponseEntity<Hold> readHold(@PathVariable String holdReference);
+
+    /**
+     * Captures a hold, making the debit final.
+     *
+     * @param holdReference The hold reference.
+     * @return The response entity containing the captured hold.
+     */
+    @PostMapping("/accounts/holds/{holdReference}/capture")
+    ResponseEntity<Hold> captureHold(@PathVariable String holdReference);
+
+    /**
+     * Releases a hold, giving the reserved amount back to the account.
+     *
+     * @param holdReference The hold reference.
+     * @return The response entity containing the released hold.
+     */
+    @PostMapping("/accounts/holds/{holdReference}/release")
+    ResponseEntity<Hold> releaseHold(@PathVariable String holdReference);
+
+    /**
+     * Debits and credits two accounts in a single transaction of the account service.
+     *
+     * @param internalTransfer The source, target and amount.
+     * @return The response entity containing the new balances of both accounts.
+     */
+    @PostMapping("/accounts/transfers/internal")
+    ResponseEntity<InternalTransferResult> internalTransfer(@RequestBody InternalTransfer internalTransfer);
+
+    /**
+     * Moves amounts from one source account to many target accounts with a single debit of the source.
+     *
+     * @param batchTransfer The source and the transfer instructions.
+     * @return The response entity containing the amount debited and the outcome of every instruction.
+     */
+    @PostMapping("/accounts/transfers/batch")
+    ResponseEntity<BatchTransferResult> batchTransfer(@RequestBody BatchTransfer batchTransfer);
+
+    /**
+     * Applies the net positions of a set of internal transfers in one transaction.
+     *
+     * @param netPositions The signed net delta per account, summing up to zero.
+     * @param reference    The reference of the settlement, so a retried settlement is applied at most once.
+     * @return The response entity containing the new balance of every account.
+     */
+    @PostMapping("/accounts/transfers/net")
+    ResponseEntity<List<BalanceResponse>> applyNetPositions(@RequestBody List<NetPosition> netPositions,
+                                                            @RequestParam String reference);
 }
@@ -32,4 +32,13 @@ public interface TransactionService {
 
     @PostMapping("/transactions/internal")
     ResponseEntity<Response> makeInternalTransactions(@RequestBody List<Transaction> transactions, @RequestParam String transactionReference);
+
+    /**
+     * Records a batch of internal postings, each carrying its own reference.
+     *
+     * @param transactions The postings to record.
+     * @return The response entity containing the response.
+     */
+    @PostMapping("/transactions/batch")
+    ResponseEntity<Response> makeBatchTransactions(@RequestBody List<Transaction> transactions);
 }
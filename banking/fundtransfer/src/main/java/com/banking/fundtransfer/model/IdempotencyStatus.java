@@ -0,0 +1,9 @@
+package com.banking.fundtransfer.model;
+
+/**
+ * State of a request made with an Idempotency-Key. A request whose outcome is unknown keeps its key, so a
+ * retry cannot execute it a second time; the client has to look the transfer up instead.
+ */
+public enum IdempotencyStatus {
+    PROCESSING, COMPLETED, UNKNOWN
+}
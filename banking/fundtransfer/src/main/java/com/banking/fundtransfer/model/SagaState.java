@@ -0,0 +1,12 @@
+package com.banking.fundtransfer.model;
+
+/**
+ * Steps of a fund transfer saga. Each state names the last step that is known to have succeeded.
+ */
+public enum SagaState {
+    STARTED, RESERVED, DEBITED, CREDITED, RECORDED, COMPLETED, COMPENSATING, COMPENSATED, FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == COMPENSATED || this == FAILED;
+    }
+}
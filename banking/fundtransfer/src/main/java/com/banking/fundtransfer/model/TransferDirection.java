@@ -0,0 +1,8 @@
+package com.banking.fundtransfer.model;
+
+/**
+ * Which transfers of an account a history query returns: the ones it sent, the ones it received, or both.
+ */
+public enum TransferDirection {
+    OUTGOING, INCOMING, BOTH
+}
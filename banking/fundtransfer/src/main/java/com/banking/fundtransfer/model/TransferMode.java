@@ -0,0 +1,9 @@
+package com.banking.fundtransfer.model;
+
+/**
+ * How internal transfers are executed: LOCAL moves the money in one account service transaction, SAGA runs a
+ * persisted saga across the services.
+ */
+public enum TransferMode {
+    LOCAL, SAGA
+}
@@ -1,5 +1,6 @@
 package com.banking.fundtransfer.model.dto;
 
+import com.banking.fundtransfer.model.SagaState;
 import com.banking.fundtransfer.model.TransactionStatus;
 import com.banking.fundtransfer.model.TransferType;
 import lombok.AllArgsConstructor;
@@ -28,4 +29,6 @@ public class FundTransferDto {
     private TransferType transferType;
 
     private LocalDateTime transferredOn;
+
+    private SagaState sagaState;
 }
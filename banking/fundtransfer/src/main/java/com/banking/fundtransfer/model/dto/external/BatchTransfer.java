@@ -0,0 +1,24 @@
+package com.banking.fundtransfer.model.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransfer {
+    private String fromAccount;
+
+    private List<BatchTransferItem> transfers;
+
+    /**
+     * Reference of the batch, so a retried batch is applied at most once.
+     */
+    private String reference;
+}
@@ -0,0 +1,23 @@
+package com.banking.fundtransfer.model.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferItem {
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    /**
+     * Reference of the transfer recorded for the instruction.
+     */
+    private String reference;
+}
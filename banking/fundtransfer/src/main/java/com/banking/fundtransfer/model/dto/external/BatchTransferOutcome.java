@@ -0,0 +1,24 @@
+package com.banking.fundtransfer.model.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferOutcome {
+    private int index;
+
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    private boolean credited;
+
+    private String message;
+}
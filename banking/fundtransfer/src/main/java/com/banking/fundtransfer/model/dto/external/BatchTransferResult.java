@@ -0,0 +1,23 @@
+package com.banking.fundtransfer.model.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferResult {
+    private String fromAccount;
+
+    private BigDecimal debitedAmount;
+
+    private BigDecimal fromAvailableBalance;
+
+    private List<BatchTransferOutcome> results;
+}
@@ -0,0 +1,25 @@
+package com.banking.fundtransfer.model.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class Hold {
+    private String holdReference;
+
+    private String accountNumber;
+
+    private BigDecimal amount;
+
+    private String holdStatus;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,25 @@
+package com.banking.fundtransfer.model.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class InternalTransfer {
+    private String fromAccount;
+
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    /**
+     * Reference of the transfer, so a retried transfer is applied at most once.
+     */
+    private String reference;
+}
@@ -18,4 +18,6 @@ public class Transaction {
     private BigDecimal amount;
 
     private String description;
+
+    private String referenceId;
 }
@@ -0,0 +1,18 @@
+package com.banking.fundtransfer.model.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchFundTransferItem {
+    private String toAccount;
+
+    private BigDecimal amount;
+}
@@ -0,0 +1,18 @@
+package com.banking.fundtransfer.model.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchFundTransferRequest {
+    private String fromAccount;
+
+    private List<BatchFundTransferItem> transfers;
+}
@@ -0,0 +1,25 @@
+package com.banking.fundtransfer.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchFundTransferResponse {
+    private String fromAccount;
+
+    private BigDecimal debitedAmount;
+
+    private int creditedCount;
+
+    private int rejectedCount;
+
+    private List<BatchFundTransferResult> results;
+}
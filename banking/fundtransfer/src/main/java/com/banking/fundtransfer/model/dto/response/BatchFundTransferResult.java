@@ -0,0 +1,32 @@
+package com.banking.fundtransfer.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchFundTransferResult {
+    /**
+     * Position of the instruction in the request.
+     */
+    private int index;
+
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    /**
+     * Reference of the recorded transfer, which is FAILED if the instruction was rejected.
+     */
+    private String transactionReference;
+
+    private boolean credited;
+
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.banking.fundtransfer.model.dto.response;
+
+import com.banking.fundtransfer.model.dto.FundTransferDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FundTransferPage {
+    private List<FundTransferDto> transfers;
+
+    /**
+     * Opaque cursor of the next page, null on the last page.
+     */
+    private String nextCursor;
+}
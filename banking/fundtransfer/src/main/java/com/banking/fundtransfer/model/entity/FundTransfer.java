@@ -1,5 +1,6 @@
 package com.banking.fundtransfer.model.entity;
 
+import com.banking.fundtransfer.model.SagaState;
 import com.banking.fundtransfer.model.TransactionStatus;
 import com.banking.fundtransfer.model.TransferType;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -17,12 +19,40 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_fund_transfer_reference", columnList = "transactionReference", unique = true),
+        @Index(name = "idx_fund_transfer_saga_state", columnList = "sagaState, fundTransferId"),
+        @Index(name = "idx_fund_transfer_status", columnList = "status, fundTransferId"),
+        @Index(name = "idx_fund_transfer_from_account", columnList = "fromAccount, transferredOn"),
+        @Index(name = "idx_fund_transfer_to_account", columnList = "toAccount, transferredOn"),
+        @Index(name = "idx_fund_transfer_batch_reference", columnList = "batchReference"),
+        @Index(name = "idx_fund_transfer_net_reference", columnList = "netReference")
+})
 public class FundTransfer {
+    public static final String ID_SEQUENCE = "fund_transfer_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Taken from a pooled sequence rather than IDENTITY, so Hibernate can batch the inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long fundTransferId;
 
     private String transactionReference;
+
+    /**
+     * Reference of the batch the transfer was made in, null for transfers made one by one.
+     */
+    private String batchReference;
+
+    /**
+     * Reference of the net settlement the transfer is applied with while it is PROCESSING, null once the
+     * transfer is settled on its own.
+     */
+    private String netReference;
+
     private String fromAccount;
     private String toAccount;
     private BigDecimal amount;
@@ -35,4 +65,17 @@ public class FundTransfer {
 
     @CreationTimestamp
     private LocalDateTime transferredOn;
+
+    /**
+     * Progress of the transfer when it runs as a saga, null for transfers made in a single step.
+     */
+    @Enumerated(EnumType.STRING)
+    private SagaState sagaState;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedOn;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
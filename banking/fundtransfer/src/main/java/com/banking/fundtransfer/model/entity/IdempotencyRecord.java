@@ -0,0 +1,66 @@
+package com.banking.fundtransfer.model.entity;
+
+import com.banking.fundtransfer.model.IdempotencyStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The stored outcome of a request made with an Idempotency-Key header. The record is inserted before the
+ * request runs, so the unique key also guards against duplicates arriving at other instances, and holds the
+ * serialized response once the request completed, or the error of a request whose outcome is unknown.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_idempotency_record_key", columnList = "idempotencyKey", unique = true),
+        @Index(name = "idx_idempotency_record_expires_at", columnList = "expiresAt")
+})
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idempotencyRecordId;
+
+    @Column(nullable = false, length = 64)
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 of the request body, to detect a key reused for a different request.
+     */
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * Null for records written before the status was kept; their state follows from the response.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private IdempotencyStatus status;
+
+    /**
+     * The serialized response, null while the request is still running.
+     */
+    @Lob
+    private String response;
+
+    /**
+     * Error code and message replayed for a request whose outcome is unknown.
+     */
+    @Column(length = 8)
+    private String errorCode;
+
+    private String errorMessage;
+
+    @CreationTimestamp
+    private LocalDateTime createdOn;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.banking.fundtransfer.model.event;
+
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.TransferType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A fund transfer reached its final status, SUCCESS or FAILED.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransferCompleted {
+    private String transactionReference;
+
+    private String fromAccount;
+
+    private String toAccount;
+
+    private BigDecimal amount;
+
+    private TransactionStatus status;
+
+    private TransferType transferType;
+}
@@ -55,7 +55,7 @@ public abstract class BaseMapper<E, D> {
      * @return       the list of converted entities
      */
     public List<E> covertToEntityList(Collection<D> dtos, Object... args) {
-        return convertToEntity(dtos, args).stream().collect(Collectors.toList());
+        return dtos.stream().map(dto -> convertToEntity(dto, args)).collect(Collectors.toList());
     }
 
     /**
@@ -66,7 +66,7 @@ public abstract class BaseMapper<E, D> {
      * @return           the list of DTOs obtained from the conversion
      */
     public List<D> convertToDtoList(Collection<E> entities, Object... args) {
-        return convertToDto(entities, args).stream().collect(Collectors.toList());
+        return entities.stream().map(entity -> convertToDto(entity, args)).collect(Collectors.toList());
     }
 
     /**
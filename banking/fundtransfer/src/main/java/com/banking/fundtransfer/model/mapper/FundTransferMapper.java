@@ -2,8 +2,6 @@ package com.banking.fundtransfer.model.mapper;
 
 import com.banking.fundtransfer.model.dto.FundTransferDto;
 import com.banking.fundtransfer.model.entity.FundTransfer;
-import org.springframework.beans.BeanUtils;
-
 
 import java.util.Objects;
 
@@ -21,7 +19,14 @@ public class FundTransferMapper extends BaseMapper<FundTransfer, FundTransferDto
 
         FundTransfer fundTransfer = new FundTransfer();
         if(!Objects.isNull(dto)){
-            BeanUtils.copyProperties(dto, fundTransfer);
+            fundTransfer.setTransactionReference(dto.getTransactionReference());
+            fundTransfer.setFromAccount(dto.getFromAccount());
+            fundTransfer.setToAccount(dto.getToAccount());
+            fundTransfer.setAmount(dto.getAmount());
+            fundTransfer.setStatus(dto.getStatus());
+            fundTransfer.setTransferType(dto.getTransferType());
+            fundTransfer.setTransferredOn(dto.getTransferredOn());
+            fundTransfer.setSagaState(dto.getSagaState());
         }
         return fundTransfer;
     }
@@ -38,7 +43,14 @@ public class FundTransferMapper extends BaseMapper<FundTransfer, FundTransferDto
 
         FundTransferDto fundTransferDto = new FundTransferDto();
         if(!Objects.isNull(entity)){
-            BeanUtils.copyProperties(entity, fundTransferDto);
+            fundTransferDto.setTransactionReference(entity.getTransactionReference());
+            fundTransferDto.setFromAccount(entity.getFromAccount());
+            fundTransferDto.setToAccount(entity.getToAccount());
+            fundTransferDto.setAmount(entity.getAmount());
+            fundTransferDto.setStatus(entity.getStatus());
+            fundTransferDto.setTransferType(entity.getTransferType());
+            fundTransferDto.setTransferredOn(entity.getTransferredOn());
+            fundTransferDto.setSagaState(entity.getSagaState());
         }
         return fundTransferDto;
     }
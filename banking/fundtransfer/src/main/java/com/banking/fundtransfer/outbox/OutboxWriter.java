@@ -0,0 +1,75 @@
+package com.banking.fundtransfer.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes domain events to the outbox table inside the caller's transaction, so an event exists exactly when
+ * the change it describes was committed. The event type is the simple name of the event class.
+ */
+@Component
+public class OutboxWriter {
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox_event (event_type, aggregate_id, payload, created_on) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fund-transfer.outbox.jdbc-batch-size}")
+    private int jdbcBatchSize;
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes one event.
+     *
+     * @param aggregateId the id of the changed aggregate, such as the transaction reference
+     * @param event       the event
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void append(String aggregateId, Object event) {
+        appendAll(List.of(event), ignored -> aggregateId);
+    }
+
+    /**
+     * Writes many events with JDBC batch inserts.
+     *
+     * @param events      the events
+     * @param aggregateId the id of the aggregate each event belongs to
+     * @throws IllegalStateException if no transaction is active
+     */
+    public <T> void appendAll(List<T> events, Function<T, String> aggregateId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written in the transaction of the change");
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (T event : events) {
+            rows.add(new Object[]{event.getClass().getSimpleName(), aggregateId.apply(event), serialize(event), now});
+        }
+        for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+            jdbcTemplate.batchUpdate(INSERT_EVENT, rows.subList(from, Math.min(from + jdbcBatchSize, rows.size())));
+        }
+    }
+
+    private String serialize(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Event " + event.getClass().getSimpleName() + " cannot be serialized", e);
+        }
+    }
+}
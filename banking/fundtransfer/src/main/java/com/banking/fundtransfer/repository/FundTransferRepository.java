@@ -1,8 +1,17 @@
 package com.banking.fundtransfer.repository;
 
+import com.banking.fundtransfer.model.SagaState;
+import com.banking.fundtransfer.model.TransactionStatus;
 import com.banking.fundtransfer.model.entity.FundTransfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +30,194 @@ public interface FundTransferRepository extends JpaRepository<FundTransfer, Long
      * @return A list of FundTransfer objects.
      */
     List<FundTransfer> findFundTransferByFromAccount(String fromAccount);
+
+    /**
+     * Reads one page of sagas that are in one of the given states and have not moved since the cutoff. Pages
+     * are walked with a keyset cursor on the id, so every page is an index range scan however far the walk
+     * has gone.
+     *
+     * @param sagaStates the states to look for
+     * @param cutoff     sagas updated after this instant are left alone
+     * @param afterId    the last id of the previous page, 0 for the first page
+     * @param pageable   the page size
+     * @return the sagas of the page, ordered by id
+     */
+    @Query("SELECT f FROM FundTransfer f WHERE f.sagaState IN :sagaStates AND f.updatedOn < :cutoff " +
+            "AND f.fundTransferId > :afterId ORDER BY f.fundTransferId")
+    List<FundTransfer> findStaleSagas(@Param("sagaStates") Collection<SagaState> sagaStates,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+
+    /**
+     * Reads one page of transfers submitted for asynchronous execution in LOCAL mode that are still waiting
+     * for a worker, walked with a keyset cursor on the id.
+     *
+     * @param status   the waiting status
+     * @param cutoff   transfers submitted after this instant are left alone
+     * @param afterId  the last id of the previous page, 0 for the first page
+     * @param pageable the page size
+     * @return the transfers of the page, ordered by id
+     */
+    @Query("SELECT f FROM FundTransfer f WHERE f.status = :status AND f.sagaState IS NULL " +
+            "AND f.transferredOn < :cutoff AND f.fundTransferId > :afterId ORDER BY f.fundTransferId")
+    List<FundTransfer> findWaitingTransfers(@Param("status") TransactionStatus status,
+                                            @Param("cutoff") LocalDateTime cutoff,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    /**
+     * Reads one page of transfers made in LOCAL mode that have been PROCESSING without an update since the
+     * cutoff, walked with a keyset cursor on the id.
+     *
+     * @param status   the in-flight status
+     * @param cutoff   transfers updated after this instant are left alone
+     * @param afterId  the last id of the previous page, 0 for the first page
+     * @param pageable the page size
+     * @return the transfers of the page, ordered by id
+     */
+    @Query("SELECT f FROM FundTransfer f WHERE f.status = :status AND f.sagaState IS NULL " +
+            "AND f.batchReference IS NULL AND f.netReference IS NULL AND f.updatedOn < :cutoff " +
+            "AND f.fundTransferId > :afterId " +
+            "ORDER BY f.fundTransferId")
+    List<FundTransfer> findStaleTransfers(@Param("status") TransactionStatus status,
+                                          @Param("cutoff") LocalDateTime cutoff,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    /**
+     * Finds the batches that still have a transfer in the given status without an update since the cutoff.
+     *
+     * @param status   the in-flight status
+     * @param cutoff   transfers updated after this instant are left alone
+     * @param pageable the number of batches to return
+     * @return the batch references
+     */
+    @Query("SELECT DISTINCT f.batchReference FROM FundTransfer f WHERE f.status = :status " +
+            "AND f.batchReference IS NOT NULL AND f.updatedOn < :cutoff")
+    List<String> findStaleBatchReferences(@Param("status") TransactionStatus status,
+                                          @Param("cutoff") LocalDateTime cutoff,
+                                          Pageable pageable);
+
+    /**
+     * Reads the transfers of a batch in the order of its instructions, which is the order of their ids.
+     *
+     * @param batchReference the batch reference
+     * @return the transfers of the batch
+     */
+    List<FundTransfer> findByBatchReferenceOrderByFundTransferId(String batchReference);
+
+    /**
+     * Finds the net settlements that still have a transfer in the given status without an update since the
+     * cutoff.
+     *
+     * @param status   the in-flight status
+     * @param cutoff   transfers updated after this instant are left alone
+     * @param pageable the number of settlements to return
+     * @return the net references
+     */
+    @Query("SELECT DISTINCT f.netReference FROM FundTransfer f WHERE f.status = :status " +
+            "AND f.netReference IS NOT NULL AND f.updatedOn < :cutoff")
+    List<String> findStaleNetReferences(@Param("status") TransactionStatus status,
+                                        @Param("cutoff") LocalDateTime cutoff,
+                                        Pageable pageable);
+
+    /**
+     * Reads the transfers applied with a net settlement.
+     *
+     * @param netReference the net reference
+     * @return the transfers of the settlement, ordered by id
+     */
+    List<FundTransfer> findByNetReferenceOrderByFundTransferId(String netReference);
+
+    /**
+     * Detaches the transfers from a net settlement that was rejected, so they are only ever settled one by one
+     * from now on.
+     *
+     * @param netReference the net reference
+     * @return the number of transfers detached
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE FundTransfer f SET f.netReference = NULL, f.version = f.version + 1, " +
+            "f.updatedOn = CURRENT_TIMESTAMP WHERE f.netReference = :netReference")
+    int detachFromNetSettlement(@Param("netReference") String netReference);
+
+    /**
+     * Takes over a stale transfer only if nobody changed it since it was read, so exactly one worker
+     * executes it again.
+     *
+     * @param fundTransferId the transfer id
+     * @param version        the version the transfer was read with
+     * @return 1 if the transfer was taken over, 0 otherwise
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE FundTransfer f SET f.version = f.version + 1, f.updatedOn = CURRENT_TIMESTAMP " +
+            "WHERE f.fundTransferId = :fundTransferId AND f.version = :version")
+    int claimStale(@Param("fundTransferId") Long fundTransferId, @Param("version") Long version);
+
+    /**
+     * Moves a transfer from one status to another only if it still has the expected status, so exactly one
+     * worker can claim a waiting transfer.
+     *
+     * @param fundTransferId the transfer id
+     * @param from           the expected current status
+     * @param to             the new status
+     * @return 1 if the status was changed, 0 otherwise
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE FundTransfer f SET f.status = :to, f.version = f.version + 1, f.updatedOn = CURRENT_TIMESTAMP " +
+            "WHERE f.fundTransferId = :fundTransferId AND f.status = :from")
+    int compareAndSetStatus(@Param("fundTransferId") Long fundTransferId,
+                            @Param("from") TransactionStatus from,
+                            @Param("to") TransactionStatus to);
+
+    /**
+     * Reads one page of the transfers sent by an account, newest first. The page starts strictly before the
+     * cursor (transferredOn, fundTransferId), so rows sharing a timestamp are neither skipped nor repeated, and
+     * is a range scan of idx_fund_transfer_from_account, whose entries end with the primary key.
+     *
+     * @param accountNumber the source account
+     * @param since         the oldest transferredOn to include
+     * @param beforeOn      the transferredOn of the cursor
+     * @param beforeId      the id of the cursor; with 0 the page starts strictly before beforeOn
+     * @param status        the status to keep, or null for all
+     * @param pageable      the page size
+     * @return the transfers of the page
+     */
+    @Query("SELECT f FROM FundTransfer f WHERE f.fromAccount = :accountNumber AND f.transferredOn >= :since " +
+            "AND (f.transferredOn < :beforeOn OR (f.transferredOn = :beforeOn AND f.fundTransferId < :beforeId)) " +
+            "AND (:status IS NULL OR f.status = :status) " +
+            "ORDER BY f.transferredOn DESC, f.fundTransferId DESC")
+    List<FundTransfer> findOutgoingPage(@Param("accountNumber") String accountNumber,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("beforeOn") LocalDateTime beforeOn,
+                                        @Param("beforeId") Long beforeId,
+                                        @Param("status") TransactionStatus status,
+                                        Pageable pageable);
+
+    /**
+     * Reads one page of the transfers received by an account, newest first, like {@link #findOutgoingPage}
+     * on idx_fund_transfer_to_account.
+     *
+     * @param accountNumber the target account
+     * @param since         the oldest transferredOn to include
+     * @param beforeOn      the transferredOn of the cursor
+     * @param beforeId      the id of the cursor; with 0 the page starts strictly before beforeOn
+     * @param status        the status to keep, or null for all
+     * @param pageable      the page size
+     * @return the transfers of the page
+     */
+    @Query("SELECT f FROM FundTransfer f WHERE f.toAccount = :accountNumber AND f.transferredOn >= :since " +
+            "AND (f.transferredOn < :beforeOn OR (f.transferredOn = :beforeOn AND f.fundTransferId < :beforeId)) " +
+            "AND (:status IS NULL OR f.status = :status) " +
+            "ORDER BY f.transferredOn DESC, f.fundTransferId DESC")
+    List<FundTransfer> findIncomingPage(@Param("accountNumber") String accountNumber,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("beforeOn") LocalDateTime beforeOn,
+                                        @Param("beforeId") Long beforeId,
+                                        @Param("status") TransactionStatus status,
+                                        Pageable pageable);
 }
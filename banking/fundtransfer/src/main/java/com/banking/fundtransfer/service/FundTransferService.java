@@ -1,9 +1,17 @@
 package com.banking.fundtransfer.service;
 
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.TransferDirection;
 import com.banking.fundtransfer.model.dto.FundTransferDto;
+import com.banking.fundtransfer.model.dto.request.BatchFundTransferRequest;
 import com.banking.fundtransfer.model.dto.request.FundTransferRequest;
+import com.banking.fundtransfer.model.dto.response.BatchFundTransferResponse;
+import com.banking.fundtransfer.model.dto.response.FundTransferPage;
 import com.banking.fundtransfer.model.dto.response.FundTransferResponse;
 
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface FundTransferService {
@@ -16,6 +24,22 @@ public interface FundTransferService {
 
     FundTransferResponse fundTransfer(FundTransferRequest fundTransferRequest);
 
+    /**
+     * Transfers funds from one source account to many target accounts.
+     *
+     * @param batchFundTransferRequest The source account and the transfer instructions.
+     * @return The outcome of every instruction.
+     */
+    BatchFundTransferResponse batchFundTransfer(BatchFundTransferRequest batchFundTransferRequest);
+
+    /**
+     * Accepts a fund transfer for background execution.
+     *
+     * @param fundTransferRequest The request object containing the details of the fund transfer.
+     * @return The response object containing the reference of the accepted transfer.
+     */
+    FundTransferResponse submitFundTransfer(FundTransferRequest fundTransferRequest);
+
     /**
      * Retrieve transfer details based on the provided reference ID.
      *
@@ -23,6 +47,15 @@ public interface FundTransferService {
      * @return The transfer details as a FundTransferDto object.
      */
     FundTransferDto getTransferDetailsFromReferenceId(String referenceId);
+    /**
+     * Waits for a transfer to complete and then retrieves its details.
+     *
+     * @param referenceId The reference ID of the transfer.
+     * @param waitMs      The longest time to wait, in milliseconds.
+     * @return The transfer details, set once the transfer completed or the wait timed out.
+     */
+    DeferredResult<FundTransferDto> awaitTransfer(String referenceId, long waitMs);
+
     /**
      * Retrieves all fund transfers associated with the given account ID.
      *
@@ -31,4 +64,19 @@ public interface FundTransferService {
      */
 
     List<FundTransferDto> getAllFundTransferByAccountId(String accountId);
+
+    /**
+     * Retrieves one page of the transfer history of an account, newest first.
+     *
+     * @param accountId the ID of the account
+     * @param direction the transfers sent, received or both
+     * @param status    the status to keep, or null for all
+     * @param from      the oldest transfer time to include, or null
+     * @param to        the transfer time to stop before, or null
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param limit     the page size
+     * @return the page and the cursor of the next one
+     */
+    FundTransferPage getTransferHistory(String accountId, TransferDirection direction, TransactionStatus status,
+                                        LocalDateTime from, LocalDateTime to, String cursor, Integer limit);
 }
@@ -0,0 +1,18 @@
+package com.banking.fundtransfer.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    /**
+     * Runs a request at most once per idempotency key. A repeated request gets the stored response of the
+     * first one; a duplicate arriving while the first one still runs waits for its outcome.
+     *
+     * @param idempotencyKey the key sent by the client, or null to run the request without deduplication
+     * @param request        the request body, used to detect a key reused for a different request
+     * @param responseType   the type of the response
+     * @param action         the request to run
+     * @param <T>            the type of the response
+     * @return the response of the first request made with the key
+     */
+    <T> T execute(String idempotencyKey, Object request, Class<T> responseType, Supplier<T> action);
+}
@@ -0,0 +1,134 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.external.AccountService;
+import com.banking.fundtransfer.model.dto.external.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads accounts from the account service without tying up the calling thread per call. The blocking Feign
+ * call runs on a dedicated bounded pool and is returned as a future, so independent reads are issued at the
+ * same time and the caller waits once for the slowest. When the pool and its queue are full the caller runs
+ * the read itself, which degrades to sequential reads instead of failing.
+ * <p>
+ * Every {@link #readAll} is recorded in the {@code fund.transfer.account.reads} timer, tagged with the fan-out
+ * in use; switching {@code fund-transfer.account-reads.parallel} off gives the sequential baseline to compare
+ * its histogram against.
+ */
+@Component
+public class AccountReader {
+    private final AccountService accountService;
+    private final ThreadPoolExecutor executor;
+    private final Timer parallelReads;
+    private final Timer sequentialReads;
+
+    @Value("${fund-transfer.account-reads.parallel}")
+    private boolean parallel;
+
+    @Value("${fund-transfer.account-reads.chunk-size}")
+    private int chunkSize;
+
+    public AccountReader(AccountService accountService,
+                         MeterRegistry meterRegistry,
+                         @Value("${fund-transfer.account-reads.threads}") int threads,
+                         @Value("${fund-transfer.account-reads.queue-capacity}") int queueCapacity) {
+        this.accountService = accountService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "account-reader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.parallelReads = timer(meterRegistry, "parallel");
+        this.sequentialReads = timer(meterRegistry, "sequential");
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Reads one chunk of accounts on the reader pool.
+     *
+     * @param accountNumbers the account numbers, at most the batch read limit of the account service
+     * @return the future of the accounts found; unknown account numbers are left out
+     */
+    public CompletableFuture<List<Account>> readAsync(List<String> accountNumbers) {
+        return CompletableFuture.supplyAsync(() -> read(accountNumbers), executor);
+    }
+
+    /**
+     * Reads any number of accounts in chunks, issuing all chunks at once.
+     *
+     * @param accountNumbers the distinct account numbers
+     * @return the accounts found, by account number
+     */
+    public Map<String, Account> readAll(List<String> accountNumbers) {
+        long started = System.nanoTime();
+        Map<String, Account> accounts = new HashMap<>();
+        try {
+            if (parallel) {
+                List<CompletableFuture<List<Account>>> chunks = new ArrayList<>();
+                for (int from = 0; from < accountNumbers.size(); from += chunkSize) {
+                    chunks.add(readAsync(accountNumbers.subList(from, Math.min(from + chunkSize, accountNumbers.size()))));
+                }
+                for (CompletableFuture<List<Account>> chunk : chunks) {
+                    join(chunk).forEach(account -> accounts.put(account.getAccountNumber(), account));
+                }
+            } else {
+                for (int from = 0; from < accountNumbers.size(); from += chunkSize) {
+                    read(accountNumbers.subList(from, Math.min(from + chunkSize, accountNumbers.size())))
+                            .forEach(account -> accounts.put(account.getAccountNumber(), account));
+                }
+            }
+        } finally {
+            (parallel ? parallelReads : sequentialReads).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return accounts;
+    }
+
+    private List<Account> read(List<String> accountNumbers) {
+        List<Account> accounts = accountService.readByAccountNumbers(accountNumbers).getBody();
+        return Objects.isNull(accounts) ? List.of() : accounts;
+    }
+
+    /**
+     * Waits for a read and rethrows its failure as it was thrown by the Feign client, so callers can still tell
+     * a business rejection from a technical failure.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String fanOut) {
+        return Timer.builder("fund.transfer.account.reads")
+                .description("Time to read the accounts of a request from the account service")
+                .tag("fan-out", fanOut)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
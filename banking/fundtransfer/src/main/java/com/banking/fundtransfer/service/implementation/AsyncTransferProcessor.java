@@ -0,0 +1,204 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes transfers submitted through the asynchronous endpoint on a bounded worker pool. A transfer is
+ * stored as PENDING before it is queued, so one that does not fit in the queue, or was queued on an instance
+ * that stopped, is picked up again by the requeue scan.
+ * <p>
+ * In LOCAL mode a worker claims the transfer by moving it from PENDING to PROCESSING; a transfer that failed
+ * for a technical reason stays PROCESSING, because whether the money moved is unknown. The requeue scan takes
+ * over transfers left PROCESSING for too long and executes them again with the same reference, which the
+ * account and transaction services apply at most once. In SAGA mode the saga is resumed, and interrupted
+ * sagas are taken over by the saga recovery worker.
+ */
+@Slf4j
+@Component
+public class AsyncTransferProcessor {
+    private final FundTransferRepository fundTransferRepository;
+    private final LocalTransferExecutor localTransferExecutor;
+    private final TransferSaga transferSaga;
+    private final TransferCompletionNotifier transferCompletionNotifier;
+    private final TransferRecorder transferRecorder;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    @Value("${fund-transfer.async.stale-after-seconds}")
+    private long staleAfterSeconds;
+
+    @Value("${fund-transfer.async.processing-stale-after-seconds}")
+    private long processingStaleAfterSeconds;
+
+    @Value("${fund-transfer.async.page-size}")
+    private int pageSize;
+
+    public AsyncTransferProcessor(FundTransferRepository fundTransferRepository,
+                                  LocalTransferExecutor localTransferExecutor,
+                                  TransferSaga transferSaga,
+                                  TransferCompletionNotifier transferCompletionNotifier,
+                                  TransferRecorder transferRecorder,
+                                  @Value("${fund-transfer.async.threads}") int threads,
+                                  @Value("${fund-transfer.async.queue-capacity}") int queueCapacity) {
+        this.fundTransferRepository = fundTransferRepository;
+        this.localTransferExecutor = localTransferExecutor;
+        this.transferSaga = transferSaga;
+        this.transferCompletionNotifier = transferCompletionNotifier;
+        this.transferRecorder = transferRecorder;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "fund-transfer-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues a stored transfer for execution. A full queue is not an error: the transfer stays PENDING and is
+     * queued again by the next requeue scan.
+     *
+     * @param fundTransfer the stored transfer
+     */
+    public void submit(FundTransfer fundTransfer) {
+        if (!queued.add(fundTransfer.getFundTransferId())) {
+            return;
+        }
+        try {
+            executor.execute(() -> process(fundTransfer));
+        } catch (RejectedExecutionException e) {
+            queued.remove(fundTransfer.getFundTransferId());
+            log.warn("transfer queue is full, {} will be picked up by the next scan", fundTransfer.getTransactionReference());
+        }
+    }
+
+    /**
+     * Queues every transfer left waiting by the previous run of the service.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeueOnStartup() {
+        requeue(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${fund-transfer.async.requeue-interval-ms}")
+    public void requeueStale() {
+        requeue(LocalDateTime.now().minusSeconds(staleAfterSeconds));
+        requeueProcessing(LocalDateTime.now().minusSeconds(processingStaleAfterSeconds));
+    }
+
+    private void requeue(LocalDateTime cutoff) {
+        long afterId = 0L;
+        List<FundTransfer> page;
+        do {
+            page = fundTransferRepository.findWaitingTransfers(TransactionStatus.PENDING, cutoff, afterId,
+                    PageRequest.of(0, pageSize));
+            page.forEach(this::submit);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getFundTransferId();
+            }
+        } while (page.size() == pageSize && executor.getQueue().remainingCapacity() > 0);
+    }
+
+    /**
+     * Queues the transfers left PROCESSING since the cutoff, by a worker that failed or an instance that
+     * stopped while executing them.
+     */
+    private void requeueProcessing(LocalDateTime cutoff) {
+        long afterId = 0L;
+        List<FundTransfer> page;
+        do {
+            page = fundTransferRepository.findStaleTransfers(TransactionStatus.PROCESSING, cutoff, afterId,
+                    PageRequest.of(0, pageSize));
+            page.forEach(this::submit);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getFundTransferId();
+            }
+        } while (page.size() == pageSize && executor.getQueue().remainingCapacity() > 0);
+    }
+
+    private void process(FundTransfer fundTransfer) {
+        try {
+            if (Objects.isNull(fundTransfer.getSagaState())) {
+                FundTransfer processed = processLocally(fundTransfer);
+                if (Objects.nonNull(processed)) {
+                    transferCompletionNotifier.completed(processed);
+                }
+            } else {
+                transferSaga.resume(fundTransfer);
+            }
+        } catch (RuntimeException e) {
+            log.error("could not process transfer {}, it will be taken over by a later scan",
+                    fundTransfer.getTransactionReference(), e);
+        } finally {
+            queued.remove(fundTransfer.getFundTransferId());
+        }
+    }
+
+    private FundTransfer processLocally(FundTransfer fundTransfer) {
+        if (!claim(fundTransfer)) {
+            return null;
+        }
+        TransactionStatus status = TransactionStatus.SUCCESS;
+        try {
+            localTransferExecutor.moveFunds(fundTransfer.getTransactionReference(), fundTransfer.getFromAccount(),
+                    fundTransfer.getToAccount(), fundTransfer.getAmount());
+        } catch (GlobalException e) {
+            if (!TransferSaga.isRejection(e)) {
+                throw e;
+            }
+            log.error("transfer {} was rejected: {}", fundTransfer.getTransactionReference(), e.getMessage());
+            status = TransactionStatus.FAILED;
+        }
+        if (status == TransactionStatus.SUCCESS) {
+            localTransferExecutor.recordPostings(fundTransfer.getTransactionReference(), fundTransfer.getFromAccount(),
+                    fundTransfer.getToAccount(), fundTransfer.getAmount());
+        }
+        FundTransfer processed = fundTransferRepository.findById(fundTransfer.getFundTransferId()).orElseThrow();
+        processed.setStatus(status);
+        return transferRecorder.complete(processed);
+    }
+
+    /**
+     * Claims a waiting transfer by moving it to PROCESSING, or takes over a stale PROCESSING one if it has not
+     * changed since it was read.
+     */
+    private boolean claim(FundTransfer fundTransfer) {
+        if (fundTransfer.getStatus() == TransactionStatus.PROCESSING) {
+            boolean claimed = fundTransferRepository.claimStale(fundTransfer.getFundTransferId(),
+                    fundTransfer.getVersion()) == 1;
+            if (claimed) {
+                log.warn("executing stale transfer {} again", fundTransfer.getTransactionReference());
+            }
+            return claimed;
+        }
+        return fundTransferRepository.compareAndSetStatus(fundTransfer.getFundTransferId(),
+                TransactionStatus.PENDING, TransactionStatus.PROCESSING) == 1;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -1,32 +1,48 @@
 package com.banking.fundtransfer.service.implementation;
 
-import com.banking.fundtransfer.exception.AccountUpdateException;
 import com.banking.fundtransfer.exception.GlobalErrorCode;
-import com.banking.fundtransfer.exception.InsufficientBalance;
+import com.banking.fundtransfer.exception.GlobalException;
 import com.banking.fundtransfer.exception.ResourceNotFound;
-import com.banking.fundtransfer.external.AccountService;
-import com.banking.fundtransfer.external.TransactionService;
+import com.banking.fundtransfer.exception.VelocityLimitExceeded;
+import com.banking.fundtransfer.model.SagaState;
 import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.TransferDirection;
+import com.banking.fundtransfer.model.TransferMode;
 import com.banking.fundtransfer.model.TransferType;
+import com.banking.fundtransfer.external.AccountService;
 import com.banking.fundtransfer.model.dto.FundTransferDto;
-import com.banking.fundtransfer.model.dto.external.Account;
-import com.banking.fundtransfer.model.dto.external.Transaction;
+import com.banking.fundtransfer.model.dto.external.BatchTransfer;
+import com.banking.fundtransfer.model.dto.external.BatchTransferItem;
+import com.banking.fundtransfer.model.dto.external.BatchTransferOutcome;
+import com.banking.fundtransfer.model.dto.external.BatchTransferResult;
+import com.banking.fundtransfer.model.dto.request.BatchFundTransferItem;
+import com.banking.fundtransfer.model.dto.request.BatchFundTransferRequest;
 import com.banking.fundtransfer.model.dto.request.FundTransferRequest;
+import com.banking.fundtransfer.model.dto.response.BatchFundTransferResponse;
+import com.banking.fundtransfer.model.dto.response.BatchFundTransferResult;
+import com.banking.fundtransfer.model.dto.response.FundTransferPage;
 import com.banking.fundtransfer.model.dto.response.FundTransferResponse;
 import com.banking.fundtransfer.model.entity.FundTransfer;
 import com.banking.fundtransfer.model.mapper.FundTransferMapper;
 import com.banking.fundtransfer.repository.FundTransferRepository;
 import com.banking.fundtransfer.service.FundTransferService;
+import com.banking.fundtransfer.utils.SnowflakeIdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 @Service
 @Slf4j
@@ -34,57 +50,82 @@ import java.util.UUID;
 public class FundTransferServiceImplementation implements FundTransferService {
 
     private final FundTransferRepository fundTransferRepository;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final LocalTransferExecutor localTransferExecutor;
+    private final TransferSaga transferSaga;
+    private final AsyncTransferProcessor asyncTransferProcessor;
+    private final TransferCompletionNotifier transferCompletionNotifier;
     private final AccountService accountService;
-    private final TransactionService transactionService;
+    private final TransferRecorder transferRecorder;
+    private final NettingWindow nettingWindow;
+    private final VelocityLimiter velocityLimiter;
     @Value("${spring.application.ok}")
     private String ok;
+    @Value("${fund-transfer.mode}")
+    private TransferMode transferMode;
+    @Value("${fund-transfer.async.max-wait-ms}")
+    private long maxWaitMs;
+    @Value("${fund-transfer.history.default-limit}")
+    private int historyDefaultLimit;
+    @Value("${fund-transfer.history.max-limit}")
+    private int historyMaxLimit;
+    @Value("${fund-transfer.batch.recovery.stale-after-seconds}")
+    private long batchStaleAfterSeconds;
+    @Value("${fund-transfer.batch.recovery.page-size}")
+    private int batchRecoveryPageSize;
     private final FundTransferMapper fundTransferMapper = new FundTransferMapper();
 
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final Comparator<FundTransfer> HISTORY_ORDER = Comparator
+            .comparing(FundTransfer::getTransferredOn, Comparator.reverseOrder())
+            .thenComparing(FundTransfer::getFundTransferId, Comparator.reverseOrder());
+
     /**
-     * Transfers funds from one account to another.
+     * Transfers funds from one account to another. In LOCAL mode the transfer is saved as PROCESSING before
+     * any remote call and finished afterwards: a definite rejection of the move marks it FAILED, any other
+     * failure leaves it PROCESSING with its reference, to be executed again with the same reference.
      *
      * @param fundTransferRequest The request object containing the details of the fund transfer.
      * @return The response object indicating the status of the fund transfer.
-     * @throws ResourceNotFound       If the requested account is not found on the server.
-     * @throws AccountUpdateException If the account status is pending or inactive.
-     * @throws InsufficientBalance    If the required amount to transfer is not available.
+     * @throws VelocityLimitExceeded If the source account reached one of its outgoing transfer limits; no
+     *                               remote call is made then.
+     * @throws GlobalException        If an account is not found, the source account is not active or its balance
+     *                                does not cover the amount.
      */
 
     @Override
     public FundTransferResponse fundTransfer(FundTransferRequest fundTransferRequest) {
-        Account fromAccount;
-        ResponseEntity<Account> response = this.accountService.readByAccountNumber(fundTransferRequest.getFromAccount());
-        if (Objects.isNull(response.getBody())) {
-            log.error("Requested Account " + fundTransferRequest.getFromAccount() + " is not found on the Server");
-            throw new ResourceNotFound("Request Account Not found on the server ", GlobalErrorCode.NOT_FOUND);
-        }
-        fromAccount = response.getBody();
-        if (!fromAccount.getAccountStatus().equals("ACTIVE")) {
-            log.error("account status is pending or inactive, please update the account status");
-            throw new AccountUpdateException("account is status is :pending", GlobalErrorCode.NOT_ACCEPTABLE);
-        }
-        if (fromAccount.getAvailableBalance().compareTo(fundTransferRequest.getAmount()) < 0) {
-            log.error("required amount to transfer is not available");
-            throw new InsufficientBalance("requested amount is not available", GlobalErrorCode.NOT_ACCEPTABLE);
-        }
-        Account toAccount;
-        response = this.accountService.readByAccountNumber(fundTransferRequest.getToAccount());
-        if (Objects.isNull(response.getBody())) {
-            log.error("Requested Account " + fundTransferRequest.getToAccount() + " is not found on the Server");
-            throw new ResourceNotFound("Request Account Not found on the server ", GlobalErrorCode.NOT_FOUND);
-        }
-        toAccount = response.getBody();
-        String transactionReferenceId = internalTransfer(fromAccount, toAccount, fundTransferRequest.getAmount());
-
-        FundTransfer fundTransfer = FundTransfer.builder()
+        validate(fundTransferRequest);
+        velocityLimiter.acquire(fundTransferRequest.getFromAccount(), 1, fundTransferRequest.getAmount());
+        if (transferMode == TransferMode.SAGA) {
+            return sagaTransfer(fundTransferRequest);
+        }
+        if (nettingWindow.isEnabled()) {
+            return nettingWindow.transfer(fundTransferRequest);
+        }
+        String transactionReferenceId = snowflakeIdGenerator.nextReference();
+        FundTransfer fundTransfer = fundTransferRepository.save(FundTransfer.builder()
                 .transactionReference(transactionReferenceId)
                 .fromAccount(fundTransferRequest.getFromAccount())
                 .toAccount(fundTransferRequest.getToAccount())
                 .amount(fundTransferRequest.getAmount())
-                .status(TransactionStatus.SUCCESS)
-                .transferType(TransferType.INTERNAL).build();
-
-        fundTransferRepository.save(fundTransfer);
+                .status(TransactionStatus.PROCESSING)
+                .transferType(TransferType.INTERNAL).build());
+        try {
+            localTransferExecutor.moveFunds(transactionReferenceId, fundTransfer.getFromAccount(),
+                    fundTransfer.getToAccount(), fundTransfer.getAmount());
+        } catch (GlobalException e) {
+            if (TransferSaga.isRejection(e)) {
+                fundTransfer.setStatus(TransactionStatus.FAILED);
+                transferRecorder.complete(fundTransfer);
+            }
+            throw e;
+        }
+        localTransferExecutor.recordPostings(transactionReferenceId, fundTransfer.getFromAccount(),
+                fundTransfer.getToAccount(), fundTransfer.getAmount());
+        fundTransfer.setStatus(TransactionStatus.SUCCESS);
+        transferRecorder.complete(fundTransfer);
         return FundTransferResponse
                 .builder()
                 .transactionId(transactionReferenceId)
@@ -92,29 +133,164 @@ public class FundTransferServiceImplementation implements FundTransferService {
                 .build();
     }
 
-    private String internalTransfer(Account fromAccount, Account toAccount, BigDecimal amount) {
-        fromAccount.setAvailableBalance(fromAccount.getAvailableBalance().subtract(amount));
-        accountService.updateAccount(fromAccount.getAccountNumber(), fromAccount);
-        toAccount.setAvailableBalance(toAccount.getAvailableBalance().add(amount));
-        accountService.updateAccount(toAccount.getAccountNumber(), toAccount);
-
-        List<Transaction> transactions = List.of(
-                Transaction.builder()
-                        .accountId(fromAccount.getAccountNumber())
-                        .transactionType("INTERNAL_TRANSFER")
-                        .amount(amount.negate())
-                        .description("Internal Fund Transfer from " +
-                                fromAccount.getAccountNumber() + " to " + toAccount.getAccountNumber()).build(),
-                Transaction.builder()
-                        .accountId(toAccount.getAccountNumber())
-                        .transactionType("INTERNAL_TRANSFER")
-                        .amount(amount)
-                        .description("Internal fund transfer received from: " +
-                                fromAccount.getAccountNumber()).build()
-        );
-        String transactionReference = UUID.randomUUID().toString();
-        transactionService.makeInternalTransactions(transactions, transactionReference);
-        return transactionReference;
+    /**
+     * Transfers funds from one source account to many target accounts. Every instruction is saved as a
+     * PROCESSING transfer with its own reference, under a batch reference, before any money moves. The account
+     * service validates the total against the source balance once, debits the source with a single aggregated
+     * delta and applies the credits in JDBC batches, at most once per batch reference. The transfers are then
+     * finished in bulk: the credited ones with their postings, the rejected ones as FAILED. A batch left
+     * PROCESSING by a failure is sent again with the same references by {@link #recoverBatches()}.
+     *
+     * @param batchFundTransferRequest The source account and the transfer instructions.
+     * @return The amount debited and the outcome of every instruction.
+     * @throws GlobalException If the source account is not found, not active, or its balance does not cover
+     *                         the total of the valid instructions; nothing is moved in that case.
+     */
+    @Override
+    public BatchFundTransferResponse batchFundTransfer(BatchFundTransferRequest batchFundTransferRequest) {
+        List<BatchFundTransferItem> items = batchFundTransferRequest.getTransfers();
+        if (Objects.isNull(batchFundTransferRequest.getFromAccount()) || Objects.isNull(items) || items.isEmpty()) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Source account and transfers are required");
+        }
+        if (items.stream().anyMatch(item -> Objects.isNull(item) || Objects.isNull(item.getAmount())
+                || item.getAmount().signum() <= 0)) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Every transfer needs a positive amount");
+        }
+        velocityLimiter.acquire(batchFundTransferRequest.getFromAccount(), items.size(), items.stream()
+                .map(BatchFundTransferItem::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+        String batchReference = snowflakeIdGenerator.nextReference();
+        List<FundTransfer> fundTransfers = new ArrayList<>(items.size());
+        for (BatchFundTransferItem item : items) {
+            fundTransfers.add(FundTransfer.builder()
+                    .transactionReference(snowflakeIdGenerator.nextReference())
+                    .batchReference(batchReference)
+                    .fromAccount(batchFundTransferRequest.getFromAccount())
+                    .toAccount(item.getToAccount())
+                    .amount(item.getAmount())
+                    .transferType(TransferType.INTERNAL).build());
+        }
+        transferRecorder.start(fundTransfers);
+        return settleBatch(batchReference, fundTransfers);
+    }
+
+    /**
+     * Sends the batches left PROCESSING for too long to the account service again with their references. A
+     * batch that was already applied is answered from its ledger, so only the missing records are written.
+     */
+    @Scheduled(fixedDelayString = "${fund-transfer.batch.recovery.interval-ms}")
+    public void recoverBatches() {
+        List<String> batchReferences = fundTransferRepository.findStaleBatchReferences(TransactionStatus.PROCESSING,
+                LocalDateTime.now().minusSeconds(batchStaleAfterSeconds), PageRequest.of(0, batchRecoveryPageSize));
+        for (String batchReference : batchReferences) {
+            try {
+                settleBatch(batchReference, fundTransferRepository.findByBatchReferenceOrderByFundTransferId(batchReference));
+                log.info("recovered batch {}", batchReference);
+            } catch (RuntimeException e) {
+                log.warn("could not recover batch {}, it will be retried", batchReference, e);
+            }
+        }
+    }
+
+    private BatchFundTransferResponse settleBatch(String batchReference, List<FundTransfer> fundTransfers) {
+        String fromAccount = fundTransfers.get(0).getFromAccount();
+        BatchTransferResult batchTransferResult;
+        try {
+            batchTransferResult = accountService.batchTransfer(BatchTransfer.builder()
+                    .fromAccount(fromAccount)
+                    .reference(batchReference)
+                    .transfers(fundTransfers.stream().map(fundTransfer -> BatchTransferItem.builder()
+                            .toAccount(fundTransfer.getToAccount())
+                            .amount(fundTransfer.getAmount())
+                            .reference(fundTransfer.getTransactionReference()).build()).toList())
+                    .build()).getBody();
+        } catch (GlobalException e) {
+            if (TransferSaga.isRejection(e)) {
+                fundTransfers.forEach(fundTransfer -> fundTransfer.setStatus(TransactionStatus.FAILED));
+                transferRecorder.finish(fundTransfers);
+            }
+            throw e;
+        }
+        if (Objects.isNull(batchTransferResult)) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Batch transfer was not processed");
+        }
+        List<BatchFundTransferResult> results = new ArrayList<>(batchTransferResult.getResults().size());
+        int creditedCount = 0;
+        for (BatchTransferOutcome outcome : batchTransferResult.getResults()) {
+            FundTransfer fundTransfer = fundTransfers.get(outcome.getIndex());
+            fundTransfer.setStatus(outcome.isCredited() ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+            results.add(BatchFundTransferResult.builder()
+                    .index(outcome.getIndex())
+                    .toAccount(outcome.getToAccount())
+                    .amount(outcome.getAmount())
+                    .transactionReference(fundTransfer.getTransactionReference())
+                    .credited(outcome.isCredited())
+                    .message(outcome.getMessage())
+                    .build());
+            if (outcome.isCredited()) {
+                creditedCount++;
+            }
+        }
+        transferRecorder.finish(fundTransfers);
+        return BatchFundTransferResponse.builder()
+                .fromAccount(fromAccount)
+                .debitedAmount(batchTransferResult.getDebitedAmount())
+                .creditedCount(creditedCount)
+                .rejectedCount(results.size() - creditedCount)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Stores the transfer as PENDING and queues it for a worker, without waiting for any remote call.
+     *
+     * @param fundTransferRequest The request object containing the details of the fund transfer.
+     * @return The response object carrying the reference to poll for the outcome.
+     * @throws VelocityLimitExceeded If the source account reached one of its outgoing transfer limits.
+     */
+    @Override
+    public FundTransferResponse submitFundTransfer(FundTransferRequest fundTransferRequest) {
+        validate(fundTransferRequest);
+        velocityLimiter.acquire(fundTransferRequest.getFromAccount(), 1, fundTransferRequest.getAmount());
+        FundTransfer fundTransfer = fundTransferRepository.save(FundTransfer.builder()
+                .transactionReference(snowflakeIdGenerator.nextReference())
+                .fromAccount(fundTransferRequest.getFromAccount())
+                .toAccount(fundTransferRequest.getToAccount())
+                .amount(fundTransferRequest.getAmount())
+                .status(TransactionStatus.PENDING)
+                .sagaState(transferMode == TransferMode.SAGA ? SagaState.STARTED : null)
+                .transferType(TransferType.INTERNAL).build());
+        asyncTransferProcessor.submit(fundTransfer);
+        return FundTransferResponse
+                .builder()
+                .transactionId(fundTransfer.getTransactionReference())
+                .message("Fund Transfer Accepted")
+                .build();
+    }
+
+    /**
+     * Runs the transfer as a saga. The saga is saved before its first step, so a transfer interrupted after
+     * this call is finished by the recovery worker.
+     */
+    private FundTransferResponse sagaTransfer(FundTransferRequest fundTransferRequest) {
+        FundTransfer fundTransfer = fundTransferRepository.save(FundTransfer.builder()
+                .transactionReference(snowflakeIdGenerator.nextReference())
+                .fromAccount(fundTransferRequest.getFromAccount())
+                .toAccount(fundTransferRequest.getToAccount())
+                .amount(fundTransferRequest.getAmount())
+                .status(TransactionStatus.PENDING)
+                .sagaState(SagaState.STARTED)
+                .transferType(TransferType.INTERNAL).build());
+        fundTransfer = transferSaga.resume(fundTransfer);
+        if (fundTransfer.getSagaState() == SagaState.FAILED || fundTransfer.getSagaState() == SagaState.COMPENSATED) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE,
+                    "Fund Transfer " + fundTransfer.getTransactionReference() + " Failed");
+        }
+        return FundTransferResponse
+                .builder()
+                .transactionId(fundTransfer.getTransactionReference())
+                .message(fundTransfer.getSagaState() == SagaState.COMPLETED ? "Fund Transfer Success"
+                        : "Fund Transfer Accepted, completion pending")
+                .build();
     }
 
     @Override
@@ -124,6 +300,54 @@ public class FundTransferServiceImplementation implements FundTransferService {
                 .orElseThrow(() -> new ResourceNotFound("Fund Transfer Not Found", GlobalErrorCode.NOT_FOUND));
     }
 
+    /**
+     * Waits until the transfer leaves PENDING and PROCESSING, or the wait times out, whichever comes first.
+     * A timed out wait answers with the stored transfer, whatever its status.
+     *
+     * @param referenceId The reference ID of the transfer.
+     * @param waitMs      How long to wait, capped by fund-transfer.async.max-wait-ms.
+     * @return The deferred transfer details.
+     * @throws ResourceNotFound If there is no transfer with the reference ID.
+     */
+    @Override
+    public DeferredResult<FundTransferDto> awaitTransfer(String referenceId, long waitMs) {
+        FundTransferDto current = getTransferDetailsFromReferenceId(referenceId);
+        DeferredResult<FundTransferDto> result = new DeferredResult<>(Math.min(Math.max(waitMs, 0), maxWaitMs));
+        if (!isInProgress(current)) {
+            result.setResult(current);
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(getTransferDetailsFromReferenceId(referenceId)));
+        transferCompletionNotifier.register(referenceId, result);
+        // the transfer may have completed between the first read and the registration
+        FundTransferDto latest = getTransferDetailsFromReferenceId(referenceId);
+        if (!isInProgress(latest)) {
+            result.setResult(latest);
+        }
+        return result;
+    }
+
+    /**
+     * Rejects a transfer that cannot succeed before it is counted against the velocity limits: a missing or
+     * non-positive amount would otherwise shrink the counted totals, and a transfer to the same account would use up
+     * the allowance without moving anything.
+     */
+    private static void validate(FundTransferRequest fundTransferRequest) {
+        BigDecimal amount = fundTransferRequest.getAmount();
+        if (Objects.isNull(amount) || amount.signum() <= 0) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Transfer amount must be positive");
+        }
+        if (Objects.isNull(fundTransferRequest.getFromAccount())
+                || fundTransferRequest.getFromAccount().equals(fundTransferRequest.getToAccount())) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Source and destination accounts must differ");
+        }
+    }
+
+    private static boolean isInProgress(FundTransferDto fundTransferDto) {
+        return fundTransferDto.getStatus() == TransactionStatus.PENDING
+                || fundTransferDto.getStatus() == TransactionStatus.PROCESSING;
+    }
+
     /**
      * Retrieves a list of fund transfers associated with the given account ID.
      *
@@ -135,5 +359,80 @@ public class FundTransferServiceImplementation implements FundTransferService {
         return fundTransferMapper.convertToDtoList(fundTransferRepository.findFundTransferByFromAccount(accountId));
     }
 
+    /**
+     * Reads one page of the history of an account with a keyset cursor. Each direction is one range scan of
+     * its (account, transferredOn) index; for both directions the two scans are merged here, newest first, and
+     * a transfer an account made to itself is returned once.
+     *
+     * @param accountId The ID of the account.
+     * @param direction The transfers sent, received or both; both when null.
+     * @param status    The status to keep, or null for all.
+     * @param from      The oldest transfer time to include, or null.
+     * @param to        The transfer time to stop before, or null.
+     * @param cursor    The cursor of the previous page, or null for the first page.
+     * @param limit     The page size, capped by fund-transfer.history.max-limit.
+     * @return The page and the cursor of the next one, null on the last page.
+     * @throws GlobalException If the cursor is not one returned by this endpoint.
+     */
+    @Override
+    public FundTransferPage getTransferHistory(String accountId, TransferDirection direction, TransactionStatus status,
+                                               LocalDateTime from, LocalDateTime to, String cursor, Integer limit) {
+        int pageSize = Objects.isNull(limit) || limit <= 0 ? historyDefaultLimit : Math.min(limit, historyMaxLimit);
+        LocalDateTime since = Objects.isNull(from) ? HISTORY_START : from;
+        LocalDateTime beforeOn = Objects.isNull(to) ? HISTORY_END : to;
+        long beforeId = 0L;
+        if (Objects.nonNull(cursor)) {
+            String[] position = decodeCursor(cursor);
+            beforeOn = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        TransferDirection scanned = Objects.isNull(direction) ? TransferDirection.BOTH : direction;
+        List<FundTransfer> outgoing = scanned == TransferDirection.INCOMING ? List.of()
+                : fundTransferRepository.findOutgoingPage(accountId, since, beforeOn, beforeId, status, page);
+        List<FundTransfer> incoming = scanned == TransferDirection.OUTGOING ? List.of()
+                : fundTransferRepository.findIncomingPage(accountId, since, beforeOn, beforeId, status, page);
+        List<FundTransfer> merged = new ArrayList<>(pageSize + 1);
+        int out = 0;
+        int in = 0;
+        while (merged.size() <= pageSize && (out < outgoing.size() || in < incoming.size())) {
+            FundTransfer next;
+            if (in == incoming.size() || (out < outgoing.size() && HISTORY_ORDER.compare(outgoing.get(out), incoming.get(in)) <= 0)) {
+                next = outgoing.get(out++);
+            } else {
+                next = incoming.get(in++);
+            }
+            if (merged.isEmpty() || !merged.get(merged.size() - 1).getFundTransferId().equals(next.getFundTransferId())) {
+                merged.add(next);
+            }
+        }
+        String nextCursor = null;
+        if (merged.size() > pageSize) {
+            merged = merged.subList(0, pageSize);
+            FundTransfer last = merged.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getTransferredOn(), last.getFundTransferId());
+        }
+        return FundTransferPage.builder()
+                .transfers(fundTransferMapper.convertToDtoList(merged))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static String encodeCursor(LocalDateTime transferredOn, Long fundTransferId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((transferredOn + "," + fundTransferId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Invalid cursor");
+        }
+    }
+
 
 }
@@ -0,0 +1,282 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalErrorCode;
+import com.banking.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.model.IdempotencyStatus;
+import com.banking.fundtransfer.model.entity.IdempotencyRecord;
+import com.banking.fundtransfer.repository.IdempotencyRecordRepository;
+import com.banking.fundtransfer.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency store with three layers: a bounded LRU of recent responses, so a retry is answered without a
+ * database read; a map of the requests running on this instance, so a concurrent duplicate waits on the
+ * first one's future; and the idempotency_record table, whose unique key makes the first request win across
+ * instances.
+ * <p>
+ * A request rejected before it changed anything releases its key, so the client can correct and retry it.
+ * Any other failure may have happened after money moved, so the key is kept with an UNKNOWN outcome, and a
+ * retry is answered with that error instead of running the request again.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImplementation implements IdempotencyService {
+    /**
+     * Error codes this service raises only before a transfer changed anything: validation failures, accounts
+     * or funds the account service rejected, and the velocity limit.
+     */
+    private static final Set<String> REJECTION_CODES = Set.of(GlobalErrorCode.BAD_REQUEST, GlobalErrorCode.NOT_FOUND,
+            GlobalErrorCode.NOT_ACCEPTABLE, GlobalErrorCode.TOO_MANY_REQUESTS);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, StoredResponse> recentResponses;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${fund-transfer.idempotency.ttl-seconds}")
+    private long ttlSeconds;
+
+    @Value("${fund-transfer.idempotency.lock-timeout-seconds}")
+    private long lockTimeoutSeconds;
+
+    @Value("${fund-transfer.idempotency.wait-timeout-ms}")
+    private long waitTimeoutMs;
+
+    @Value("${fund-transfer.idempotency.purge-batch-size}")
+    private int purgeBatchSize;
+
+    public IdempotencyServiceImplementation(IdempotencyRecordRepository idempotencyRecordRepository,
+                                            ObjectMapper objectMapper,
+                                            @Value("${fund-transfer.idempotency.cache-size}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.recentResponses = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    public <T> T execute(String idempotencyKey, Object request, Class<T> responseType, Supplier<T> action) {
+        if (Objects.isNull(idempotencyKey) || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > 64) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Idempotency-Key must not exceed 64 characters");
+        }
+        String requestHash = hash(request);
+        StoredResponse recent = recentResponses.get(idempotencyKey);
+        if (Objects.nonNull(recent) && recent.expiresAt().isAfter(LocalDateTime.now())) {
+            return replay(recent, requestHash, responseType);
+        }
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(idempotencyKey, mine);
+        if (Objects.nonNull(running)) {
+            return replay(await(idempotencyKey, running), requestHash, responseType);
+        }
+        try {
+            Optional<StoredResponse> stored = findStored(idempotencyKey);
+            if (stored.isPresent()) {
+                mine.complete(stored.get());
+                return replay(stored.get(), requestHash, responseType);
+            }
+            IdempotencyRecord idempotencyRecord = reserve(idempotencyKey, requestHash);
+            T response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                if (isRejection(e)) {
+                    idempotencyRecordRepository.delete(idempotencyRecord);
+                    throw e;
+                }
+                log.error("outcome of request {} is unknown, keeping its idempotency key", idempotencyKey, e);
+                StoredResponse unknown = storeUnknown(idempotencyRecord, e);
+                mine.complete(unknown);
+                return replay(unknown, requestHash, responseType);
+            }
+            mine.complete(store(idempotencyRecord, response));
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+
+    /**
+     * Deletes expired records in small batches. Runs on the scheduler thread, so requests never wait for it;
+     * expired entries of the LRU are skipped on read and age out as new keys arrive.
+     */
+    @Scheduled(fixedDelayString = "${fund-transfer.idempotency.purge-interval-ms}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = idempotencyRecordRepository.deleteExpired(now, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        if (purged > 0) {
+            log.info("purged {} expired idempotency records", purged);
+        }
+    }
+
+    /**
+     * Looks up a completed request in the table. An expired record is removed, so the key can be used again;
+     * a record still running on another instance is reported to the client, who retries later.
+     */
+    private Optional<StoredResponse> findStored(String idempotencyKey) {
+        Optional<IdempotencyRecord> found = idempotencyRecordRepository.findByIdempotencyKey(idempotencyKey);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        IdempotencyRecord idempotencyRecord = found.get();
+        if (idempotencyRecord.getExpiresAt().isBefore(LocalDateTime.now())) {
+            idempotencyRecordRepository.deleteIfExpired(idempotencyRecord.getIdempotencyRecordId(), LocalDateTime.now());
+            return Optional.empty();
+        }
+        StoredResponse stored = StoredResponse.of(idempotencyRecord);
+        if (stored.status() == IdempotencyStatus.PROCESSING) {
+            throw inProgress(idempotencyKey);
+        }
+        recentResponses.put(idempotencyKey, stored);
+        return Optional.of(stored);
+    }
+
+    private IdempotencyRecord reserve(String idempotencyKey, String requestHash) {
+        try {
+            return idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                    .idempotencyKey(idempotencyKey)
+                    .requestHash(requestHash)
+                    .status(IdempotencyStatus.PROCESSING)
+                    .expiresAt(LocalDateTime.now().plusSeconds(lockTimeoutSeconds))
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            throw inProgress(idempotencyKey);
+        }
+    }
+
+    private StoredResponse store(IdempotencyRecord idempotencyRecord, Object response) {
+        try {
+            idempotencyRecord.setResponse(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response of request " + idempotencyRecord.getIdempotencyKey()
+                    + " cannot be serialized", e);
+        }
+        idempotencyRecord.setStatus(IdempotencyStatus.COMPLETED);
+        return save(idempotencyRecord);
+    }
+
+    /**
+     * Keeps the key of a request that failed in an unknown state. If even that cannot be saved, the reserved
+     * record expires after the lock timeout and the key is released then.
+     */
+    private StoredResponse storeUnknown(IdempotencyRecord idempotencyRecord, RuntimeException e) {
+        idempotencyRecord.setStatus(IdempotencyStatus.UNKNOWN);
+        idempotencyRecord.setErrorCode(GlobalErrorCode.GATEWAY_TIMEOUT);
+        idempotencyRecord.setErrorMessage("The outcome of the request with Idempotency-Key "
+                + idempotencyRecord.getIdempotencyKey() + " is unknown, check the transfer before sending it again");
+        return save(idempotencyRecord);
+    }
+
+    private StoredResponse save(IdempotencyRecord idempotencyRecord) {
+        idempotencyRecord.setExpiresAt(LocalDateTime.now().plusSeconds(ttlSeconds));
+        idempotencyRecordRepository.save(idempotencyRecord);
+        StoredResponse stored = StoredResponse.of(idempotencyRecord);
+        recentResponses.put(idempotencyRecord.getIdempotencyKey(), stored);
+        return stored;
+    }
+
+    /**
+     * Tells a request rejected before it had any effect from one that failed with an unknown outcome.
+     */
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof GlobalException globalException && REJECTION_CODES.contains(globalException.getErrorCode());
+    }
+
+    private StoredResponse await(String idempotencyKey, CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Request was interrupted");
+        } catch (TimeoutException e) {
+            throw inProgress(idempotencyKey);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE,
+                    "Idempotency-Key was already used for a different request");
+        }
+        if (stored.status() == IdempotencyStatus.UNKNOWN) {
+            throw new GlobalException(stored.errorCode(), stored.errorMessage());
+        }
+        try {
+            return objectMapper.readValue(stored.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response cannot be read", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request cannot be hashed", e);
+        }
+    }
+
+    private static GlobalException inProgress(String idempotencyKey) {
+        return new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE,
+                "A request with Idempotency-Key " + idempotencyKey + " is still being processed");
+    }
+
+    private record StoredResponse(String requestHash, IdempotencyStatus status, String response, String errorCode,
+                                  String errorMessage, LocalDateTime expiresAt) {
+        static StoredResponse of(IdempotencyRecord idempotencyRecord) {
+            IdempotencyStatus status = idempotencyRecord.getStatus();
+            if (Objects.isNull(status)) {
+                status = Objects.isNull(idempotencyRecord.getResponse())
+                        ? IdempotencyStatus.PROCESSING : IdempotencyStatus.COMPLETED;
+            }
+            return new StoredResponse(idempotencyRecord.getRequestHash(), status, idempotencyRecord.getResponse(),
+                    idempotencyRecord.getErrorCode(), idempotencyRecord.getErrorMessage(),
+                    idempotencyRecord.getExpiresAt());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.external.AccountService;
+import com.banking.fundtransfer.external.TransactionService;
+import com.banking.fundtransfer.model.dto.external.InternalTransfer;
+import com.banking.fundtransfer.model.dto.external.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Executes an internal transfer in LOCAL mode, for both the synchronous and the asynchronous entry points.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalTransferExecutor {
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+
+    /**
+     * Moves the amount with one call to the account service, which debits and credits both accounts in a
+     * single database transaction, then records the two postings under the transfer reference. Both calls
+     * carry the reference and are applied at most once, so a transfer can be executed again after a failure.
+     *
+     * @param transactionReference the reference of the transfer
+     * @param fromAccount          the account to debit
+     * @param toAccount            the account to credit
+     * @param amount               the amount to move
+     */
+    public void execute(String transactionReference, String fromAccount, String toAccount, BigDecimal amount) {
+        moveFunds(transactionReference, fromAccount, toAccount, amount);
+        recordPostings(transactionReference, fromAccount, toAccount, amount);
+    }
+
+    void moveFunds(String transactionReference, String fromAccount, String toAccount, BigDecimal amount) {
+        accountService.internalTransfer(InternalTransfer.builder()
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .amount(amount)
+                .reference(transactionReference).build());
+    }
+
+    void recordPostings(String transactionReference, String fromAccount, String toAccount, BigDecimal amount) {
+        transactionService.makeInternalTransactions(postings(fromAccount, toAccount, amount), transactionReference);
+    }
+
+    /**
+     * Builds the debit and credit postings of an internal transfer.
+     */
+    static List<Transaction> postings(String fromAccount, String toAccount, BigDecimal amount) {
+        return List.of(
+                Transaction.builder()
+                        .accountId(fromAccount)
+                        .transactionType("INTERNAL_TRANSFER")
+                        .amount(amount.negate())
+                        .description("Internal Fund Transfer from " +
+                                fromAccount + " to " + toAccount).build(),
+                Transaction.builder()
+                        .accountId(toAccount)
+                        .transactionType("INTERNAL_TRANSFER")
+                        .amount(amount)
+                        .description("Internal fund transfer received from: " +
+                                fromAccount).build()
+        );
+    }
+}
@@ -0,0 +1,364 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalErrorCode;
+import com.banking.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.external.AccountService;
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.TransferType;
+import com.banking.fundtransfer.model.dto.external.Account;
+import com.banking.fundtransfer.model.dto.external.NetPosition;
+import com.banking.fundtransfer.model.dto.request.FundTransferRequest;
+import com.banking.fundtransfer.model.dto.response.FundTransferResponse;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import com.banking.fundtransfer.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Optional netting window for LOCAL mode transfers. Transfers are buffered for a short window, then the net
+ * position of every account in the window is applied with one call and one account service transaction, so
+ * transfers that cancel each other out cost no balance writes. Every gross transfer is still recorded with its
+ * own reference and postings.
+ * <p>
+ * Within a window an account may pay out what it receives in the same window, as in any netting scheme; only
+ * its final balance has to stay non-negative. If the account service rejects the net positions, the transfers
+ * of the window are executed one by one instead, so one bad transfer only fails itself. That runs on a separate
+ * pool, so the next windows are not held up.
+ * <p>
+ * The gross transfers are saved as PROCESSING under a net reference before the net positions are applied with
+ * that reference, which the account service applies at most once. A settlement whose outcome is unknown is
+ * sent again with the same reference by the recovery scan; a rejected one is detached from its transfers
+ * first, so they are only ever settled one by one afterwards. A caller whose transfer is not settled in time
+ * is answered that completion is pending.
+ */
+@Slf4j
+@Component
+public class NettingWindow {
+    private final AccountService accountService;
+    private final AccountReader accountReader;
+    private final LocalTransferExecutor localTransferExecutor;
+    private final TransferRecorder transferRecorder;
+    private final FundTransferRepository fundTransferRepository;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final BlockingQueue<NettedTransfer> buffer;
+    private final ExecutorService grossExecutor;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "netting-window");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${fund-transfer.netting.enabled}")
+    private boolean enabled;
+
+    @Value("${fund-transfer.netting.window-ms}")
+    private long windowMs;
+
+    @Value("${fund-transfer.netting.max-batch}")
+    private int maxBatch;
+
+    @Value("${fund-transfer.netting.reply-timeout-ms}")
+    private long replyTimeoutMs;
+
+    @Value("${fund-transfer.netting.recovery.stale-after-seconds}")
+    private long staleAfterSeconds;
+
+    @Value("${fund-transfer.netting.recovery.page-size}")
+    private int recoveryPageSize;
+
+    public NettingWindow(AccountService accountService,
+                         AccountReader accountReader,
+                         LocalTransferExecutor localTransferExecutor,
+                         TransferRecorder transferRecorder,
+                         FundTransferRepository fundTransferRepository,
+                         SnowflakeIdGenerator snowflakeIdGenerator,
+                         @Value("${fund-transfer.netting.max-pending}") int maxPending,
+                         @Value("${fund-transfer.netting.gross-threads}") int grossThreads) {
+        this.accountService = accountService;
+        this.accountReader = accountReader;
+        this.localTransferExecutor = localTransferExecutor;
+        this.transferRecorder = transferRecorder;
+        this.fundTransferRepository = fundTransferRepository;
+        this.snowflakeIdGenerator = snowflakeIdGenerator;
+        this.buffer = new ArrayBlockingQueue<>(maxPending);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.grossExecutor = Executors.newFixedThreadPool(grossThreads, runnable -> {
+            Thread thread = new Thread(runnable, "netting-gross-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            flusher.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        grossExecutor.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a transfer to the current window and waits until the window is settled. A transfer that is not
+     * settled in time may still be, so it is answered as pending with its reference.
+     *
+     * @param fundTransferRequest the transfer
+     * @return the response of the transfer
+     * @throws GlobalException if the transfer is rejected or the window is full
+     */
+    public FundTransferResponse transfer(FundTransferRequest fundTransferRequest) {
+        NettedTransfer nettedTransfer = new NettedTransfer(snowflakeIdGenerator.nextReference(), fundTransferRequest,
+                new CompletableFuture<>());
+        if (!buffer.offer(nettedTransfer)) {
+            throw new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Too many transfers pending, please retry");
+        }
+        try {
+            return nettedTransfer.result().get(windowMs + replyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return pending(nettedTransfer.transactionReference());
+        } catch (TimeoutException e) {
+            return pending(nettedTransfer.transactionReference());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void flush() {
+        List<NettedTransfer> window = new ArrayList<>();
+        try {
+            while (buffer.drainTo(window, maxBatch) > 0) {
+                settle(window);
+                window.clear();
+            }
+        } catch (RuntimeException e) {
+            log.error("netting window failed", e);
+            window.forEach(nettedTransfer -> nettedTransfer.result().completeExceptionally(e));
+        }
+    }
+
+    private void settle(List<NettedTransfer> window) {
+        List<NettedTransfer> accepted = validate(window);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        String netReference = snowflakeIdGenerator.nextReference();
+        List<FundTransfer> fundTransfers = accepted.stream()
+                .map(nettedTransfer -> nettedTransfer.toFundTransfer(netReference)).toList();
+        transferRecorder.start(fundTransfers);
+        boolean netted;
+        try {
+            netted = applyNet(netReference, fundTransfers);
+        } catch (RuntimeException e) {
+            log.error("net settlement {} of {} transfers did not complete, it will be recovered", netReference,
+                    accepted.size(), e);
+            accepted.forEach(nettedTransfer -> nettedTransfer.result().complete(pending(nettedTransfer.transactionReference())));
+            return;
+        }
+        if (netted) {
+            accepted.forEach(nettedTransfer -> nettedTransfer.result().complete(nettedTransfer.toResponse()));
+            return;
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            FundTransfer fundTransfer = fundTransfers.get(i);
+            CompletableFuture<FundTransferResponse> result = accepted.get(i).result();
+            grossExecutor.execute(() -> settleGross(fundTransfer, result));
+        }
+    }
+
+    /**
+     * Sends the net settlements left PROCESSING for too long again with their references. One that was
+     * already applied is answered as such by the account service and its transfers are finished; one that is
+     * rejected now is settled one by one.
+     */
+    @Scheduled(fixedDelayString = "${fund-transfer.netting.recovery.interval-ms}")
+    public void recover() {
+        List<String> netReferences = fundTransferRepository.findStaleNetReferences(TransactionStatus.PROCESSING,
+                LocalDateTime.now().minusSeconds(staleAfterSeconds), PageRequest.of(0, recoveryPageSize));
+        for (String netReference : netReferences) {
+            List<FundTransfer> fundTransfers = fundTransferRepository.findByNetReferenceOrderByFundTransferId(netReference);
+            try {
+                if (!applyNet(netReference, fundTransfers)) {
+                    fundTransfers.forEach(fundTransfer ->
+                            grossExecutor.execute(() -> settleGross(fundTransfer, new CompletableFuture<>())));
+                }
+                log.info("recovered net settlement {}", netReference);
+            } catch (RuntimeException e) {
+                log.warn("could not recover net settlement {}, it will be retried", netReference, e);
+            }
+        }
+    }
+
+    /**
+     * Applies the net positions of started transfers under the net reference and finishes the transfers.
+     *
+     * @return true if the transfers were settled, false if the net positions were rejected and the transfers
+     * detached from the settlement
+     * @throws RuntimeException if the outcome is unknown; the transfers stay PROCESSING under the reference
+     */
+    private boolean applyNet(String netReference, List<FundTransfer> fundTransfers) {
+        SortedMap<String, BigDecimal> positions = new TreeMap<>();
+        for (FundTransfer fundTransfer : fundTransfers) {
+            positions.merge(fundTransfer.getFromAccount(), fundTransfer.getAmount().negate(), BigDecimal::add);
+            positions.merge(fundTransfer.getToAccount(), fundTransfer.getAmount(), BigDecimal::add);
+        }
+        List<NetPosition> netPositions = new ArrayList<>(positions.size());
+        positions.forEach((accountNumber, delta) -> {
+            if (delta.signum() != 0) {
+                netPositions.add(NetPosition.builder().accountNumber(accountNumber).delta(delta).build());
+            }
+        });
+        try {
+            if (!netPositions.isEmpty()) {
+                accountService.applyNetPositions(netPositions, netReference);
+            }
+        } catch (GlobalException e) {
+            if (!TransferSaga.isRejection(e)) {
+                throw e;
+            }
+            log.warn("net settlement {} of {} transfers was rejected ({}), settling them one by one",
+                    netReference, fundTransfers.size(), e.getMessage());
+            fundTransferRepository.detachFromNetSettlement(netReference);
+            return false;
+        }
+        log.debug("settled {} transfers with {} net balance updates", fundTransfers.size(), netPositions.size());
+        fundTransfers.forEach(fundTransfer -> fundTransfer.setStatus(TransactionStatus.SUCCESS));
+        transferRecorder.finish(fundTransfers);
+        return true;
+    }
+
+    /**
+     * Rejects transfers that could never succeed, so they cannot make the net settlement of the others fail.
+     */
+    private List<NettedTransfer> validate(List<NettedTransfer> window) {
+        List<String> accountNumbers = window.stream()
+                .flatMap(nettedTransfer -> Stream.of(nettedTransfer.request().getFromAccount(),
+                        nettedTransfer.request().getToAccount()))
+                .filter(Objects::nonNull).distinct().toList();
+        Map<String, Account> accounts = accountReader.readAll(accountNumbers);
+        List<NettedTransfer> accepted = new ArrayList<>(window.size());
+        for (NettedTransfer nettedTransfer : window) {
+            FundTransferRequest request = nettedTransfer.request();
+            Account fromAccount = accounts.get(request.getFromAccount());
+            if (Objects.isNull(fromAccount) || Objects.isNull(accounts.get(request.getToAccount()))) {
+                nettedTransfer.result().completeExceptionally(
+                        new GlobalException(GlobalErrorCode.NOT_FOUND, "Request Account Not found on the server"));
+            } else if (!fromAccount.getAccountStatus().equals("ACTIVE")) {
+                nettedTransfer.result().completeExceptionally(
+                        new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "account is status is :pending"));
+            } else if (Objects.isNull(request.getAmount()) || request.getAmount().signum() <= 0
+                    || request.getFromAccount().equals(request.getToAccount())) {
+                nettedTransfer.result().completeExceptionally(
+                        new GlobalException(GlobalErrorCode.NOT_ACCEPTABLE, "Invalid Fund Transfer"));
+            } else {
+                accepted.add(nettedTransfer);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Settles a started transfer on its own, with its reference. A transfer whose outcome is unknown stays
+     * PROCESSING for the requeue scan of the asynchronous processor.
+     */
+    private void settleGross(FundTransfer fundTransfer, CompletableFuture<FundTransferResponse> result) {
+        String transactionReference = fundTransfer.getTransactionReference();
+        try {
+            localTransferExecutor.moveFunds(transactionReference, fundTransfer.getFromAccount(),
+                    fundTransfer.getToAccount(), fundTransfer.getAmount());
+        } catch (GlobalException e) {
+            if (TransferSaga.isRejection(e)) {
+                fundTransfer.setStatus(TransactionStatus.FAILED);
+                finishGross(fundTransfer);
+                result.completeExceptionally(e);
+                return;
+            }
+            log.warn("transfer {} did not complete, it will be taken over later", transactionReference, e);
+            result.complete(pending(transactionReference));
+            return;
+        } catch (RuntimeException e) {
+            log.warn("transfer {} did not complete, it will be taken over later", transactionReference, e);
+            result.complete(pending(transactionReference));
+            return;
+        }
+        fundTransfer.setStatus(TransactionStatus.SUCCESS);
+        result.complete(finishGross(fundTransfer) ? FundTransferResponse.builder()
+                .transactionId(transactionReference)
+                .message("Fund Transfer Success")
+                .build() : pending(transactionReference));
+    }
+
+    private boolean finishGross(FundTransfer fundTransfer) {
+        try {
+            transferRecorder.finish(List.of(fundTransfer));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("transfer {} was not recorded, it will be taken over later", fundTransfer.getTransactionReference(), e);
+            return false;
+        }
+    }
+
+    private static FundTransferResponse pending(String transactionReference) {
+        return FundTransferResponse.builder()
+                .transactionId(transactionReference)
+                .message("Fund Transfer Accepted, completion pending")
+                .build();
+    }
+
+    private record NettedTransfer(String transactionReference, FundTransferRequest request,
+                                  CompletableFuture<FundTransferResponse> result) {
+        FundTransfer toFundTransfer(String netReference) {
+            return FundTransfer.builder()
+                    .transactionReference(transactionReference)
+                    .netReference(netReference)
+                    .fromAccount(request.getFromAccount())
+                    .toAccount(request.getToAccount())
+                    .amount(request.getAmount())
+                    .transferType(TransferType.INTERNAL).build();
+        }
+
+        FundTransferResponse toResponse() {
+            return FundTransferResponse.builder()
+                    .transactionId(transactionReference)
+                    .message("Fund Transfer Success")
+                    .build();
+        }
+    }
+}
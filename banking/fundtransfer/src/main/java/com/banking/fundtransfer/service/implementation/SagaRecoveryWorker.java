@@ -0,0 +1,98 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.model.SagaState;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resumes sagas that stopped before reaching a terminal state, for example because a service was down or the
+ * instance crashed. Stale sagas are read page by page with a keyset cursor and handed to a bounded pool; when
+ * the pool and its queue are full the scanning thread runs the saga itself, which throttles the scan instead
+ * of flooding the account service after an outage.
+ */
+@Slf4j
+@Component
+public class SagaRecoveryWorker {
+    private static final Set<SagaState> IN_FLIGHT_STATES = EnumSet.of(SagaState.STARTED, SagaState.RESERVED,
+            SagaState.DEBITED, SagaState.CREDITED, SagaState.RECORDED, SagaState.COMPENSATING);
+
+    private final FundTransferRepository fundTransferRepository;
+    private final TransferSaga transferSaga;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    @Value("${fund-transfer.saga.recovery.stale-after-seconds}")
+    private long staleAfterSeconds;
+
+    @Value("${fund-transfer.saga.recovery.page-size}")
+    private int pageSize;
+
+    public SagaRecoveryWorker(FundTransferRepository fundTransferRepository,
+                              TransferSaga transferSaga,
+                              @Value("${fund-transfer.saga.recovery.threads}") int threads,
+                              @Value("${fund-transfer.saga.recovery.queue-capacity}") int queueCapacity) {
+        this.fundTransferRepository = fundTransferRepository;
+        this.transferSaga = transferSaga;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "saga-recovery-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Scheduled(fixedDelayString = "${fund-transfer.saga.recovery.interval-ms}")
+    public void recover() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        long afterId = 0L;
+        int resumed = 0;
+        List<FundTransfer> page;
+        do {
+            page = fundTransferRepository.findStaleSagas(IN_FLIGHT_STATES, cutoff, afterId, PageRequest.of(0, pageSize));
+            for (FundTransfer fundTransfer : page) {
+                if (running.add(fundTransfer.getFundTransferId())) {
+                    executor.execute(() -> resume(fundTransfer));
+                    resumed++;
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getFundTransferId();
+            }
+        } while (page.size() == pageSize);
+        if (resumed > 0) {
+            log.info("resuming {} stale sagas", resumed);
+        }
+    }
+
+    private void resume(FundTransfer fundTransfer) {
+        try {
+            transferSaga.resume(fundTransfer);
+        } catch (RuntimeException e) {
+            log.error("could not resume saga {}", fundTransfer.getTransactionReference(), e);
+        } finally {
+            running.remove(fundTransfer.getFundTransferId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
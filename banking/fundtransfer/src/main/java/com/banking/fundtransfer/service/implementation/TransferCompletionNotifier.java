@@ -0,0 +1,37 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.model.dto.FundTransferDto;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.model.mapper.FundTransferMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wakes up long-polling clients when a transfer they wait for reaches its final status on this instance.
+ * Clients waiting on a transfer that completes elsewhere get the stored status when their wait times out.
+ */
+@Component
+public class TransferCompletionNotifier {
+    private final Map<String, Set<DeferredResult<FundTransferDto>>> waiters = new ConcurrentHashMap<>();
+    private final FundTransferMapper fundTransferMapper = new FundTransferMapper();
+
+    void register(String transactionReference, DeferredResult<FundTransferDto> result) {
+        waiters.computeIfAbsent(transactionReference, reference -> ConcurrentHashMap.newKeySet()).add(result);
+        result.onCompletion(() -> waiters.computeIfPresent(transactionReference, (reference, results) -> {
+            results.remove(result);
+            return results.isEmpty() ? null : results;
+        }));
+    }
+
+    void completed(FundTransfer fundTransfer) {
+        Set<DeferredResult<FundTransferDto>> results = waiters.remove(fundTransfer.getTransactionReference());
+        if (results != null) {
+            FundTransferDto fundTransferDto = fundTransferMapper.convertToDto(fundTransfer);
+            results.forEach(result -> result.setResult(fundTransferDto));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.external.TransactionService;
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.dto.external.Transaction;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.model.event.TransferCompleted;
+import com.banking.fundtransfer.outbox.OutboxWriter;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import com.banking.fundtransfer.utils.PooledIdAllocator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records transfers reaching their final status together with their TransferCompleted outbox event, in one
+ * database transaction. Transfers can also be recorded in bulk: the fund transfer rows with JDBC batch inserts
+ * and their postings with chunked calls to the transaction service, every transfer under its own reference.
+ * Bulk transfers are either recorded once completed, or started as PROCESSING before any money moves and
+ * finished afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferRecorder {
+    private static final String INSERT_FUND_TRANSFER = "INSERT INTO fund_transfer (fund_transfer_id, " +
+            "transaction_reference, batch_reference, net_reference, from_account, to_account, amount, status, " +
+            "transfer_type, transferred_on, updated_on, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String FINISH_FUND_TRANSFER = "UPDATE fund_transfer SET status = ?, updated_on = ?, " +
+            "version = version + 1 WHERE transaction_reference = ? AND status = 'PROCESSING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionService transactionService;
+    private final FundTransferRepository fundTransferRepository;
+    private final OutboxWriter outboxWriter;
+    private final PooledIdAllocator fundTransferIdAllocator;
+
+    @Value("${fund-transfer.batch.chunk-size}")
+    private int chunkSize;
+
+    @Value("${fund-transfer.batch.jdbc-batch-size}")
+    private int jdbcBatchSize;
+
+    /**
+     * Saves a transfer that reached its final status and writes its TransferCompleted event.
+     *
+     * @param fundTransfer the transfer with its final status set
+     * @return the saved transfer
+     */
+    @Transactional
+    public FundTransfer complete(FundTransfer fundTransfer) {
+        FundTransfer saved = fundTransferRepository.save(fundTransfer);
+        outboxWriter.append(saved.getTransactionReference(), transferCompleted(saved));
+        return saved;
+    }
+
+    /**
+     * Records the given completed transfers.
+     *
+     * @param fundTransfers the transfers, each with its reference, accounts, amount, status and type set
+     */
+    public void record(List<FundTransfer> fundTransfers) {
+        if (fundTransfers.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = rows(fundTransfers);
+        transactionTemplate.executeWithoutResult(status -> {
+            insert(rows);
+            outboxWriter.appendAll(fundTransfers.stream().map(TransferRecorder::transferCompleted).toList(),
+                    TransferCompleted::getTransactionReference);
+        });
+        recordPostings(fundTransfers);
+    }
+
+    /**
+     * Inserts the given transfers as PROCESSING, before any money moves, so they can be finished or executed
+     * again with their references after a failure.
+     *
+     * @param fundTransfers the transfers, each with its reference, accounts, amount and type set
+     */
+    public void start(List<FundTransfer> fundTransfers) {
+        fundTransfers.forEach(fundTransfer -> fundTransfer.setStatus(TransactionStatus.PROCESSING));
+        List<Object[]> rows = rows(fundTransfers);
+        transactionTemplate.executeWithoutResult(status -> insert(rows));
+    }
+
+    /**
+     * Finishes started transfers with their final status. The postings of the successful ones are recorded
+     * first, the transaction service records them once per reference; then the statuses are set and the
+     * events written in one transaction. A transfer that was already finished is left alone and gets no
+     * second event.
+     *
+     * @param fundTransfers the started transfers, each with its final status set
+     */
+    public void finish(List<FundTransfer> fundTransfers) {
+        recordPostings(fundTransfers.stream()
+                .filter(fundTransfer -> fundTransfer.getStatus() == TransactionStatus.SUCCESS).toList());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = fundTransfers.stream()
+                .map(fundTransfer -> new Object[]{fundTransfer.getStatus().name(), now,
+                        fundTransfer.getTransactionReference()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<FundTransfer> finished = new ArrayList<>(fundTransfers.size());
+            for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+                int[] counts = jdbcTemplate.batchUpdate(FINISH_FUND_TRANSFER,
+                        rows.subList(from, Math.min(from + jdbcBatchSize, rows.size())));
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        finished.add(fundTransfers.get(from + i));
+                    }
+                }
+            }
+            outboxWriter.appendAll(finished.stream().map(TransferRecorder::transferCompleted).toList(),
+                    TransferCompleted::getTransactionReference);
+        });
+    }
+
+    private List<Object[]> rows(List<FundTransfer> fundTransfers) {
+        long nextId = fundTransferIdAllocator.allocate(fundTransfers.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(fundTransfers.size());
+        for (FundTransfer fundTransfer : fundTransfers) {
+            rows.add(new Object[]{nextId++, fundTransfer.getTransactionReference(), fundTransfer.getBatchReference(),
+                    fundTransfer.getNetReference(), fundTransfer.getFromAccount(), fundTransfer.getToAccount(), fundTransfer.getAmount(),
+                    fundTransfer.getStatus().name(), fundTransfer.getTransferType().name(), now, now});
+        }
+        return rows;
+    }
+
+    private void insert(List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+            jdbcTemplate.batchUpdate(INSERT_FUND_TRANSFER, rows.subList(from, Math.min(from + jdbcBatchSize, rows.size())));
+        }
+    }
+
+    private void recordPostings(List<FundTransfer> fundTransfers) {
+        List<Transaction> postings = new ArrayList<>(2 * fundTransfers.size());
+        for (FundTransfer fundTransfer : fundTransfers) {
+            LocalTransferExecutor.postings(fundTransfer.getFromAccount(), fundTransfer.getToAccount(),
+                    fundTransfer.getAmount()).forEach(posting -> {
+                posting.setReferenceId(fundTransfer.getTransactionReference());
+                postings.add(posting);
+            });
+        }
+        for (int from = 0; from < postings.size(); from += 2 * chunkSize) {
+            transactionService.makeBatchTransactions(postings.subList(from, Math.min(from + 2 * chunkSize, postings.size())));
+        }
+    }
+
+    private static TransferCompleted transferCompleted(FundTransfer fundTransfer) {
+        return TransferCompleted.builder()
+                .transactionReference(fundTransfer.getTransactionReference())
+                .fromAccount(fundTransfer.getFromAccount())
+                .toAccount(fundTransfer.getToAccount())
+                .amount(fundTransfer.getAmount())
+                .status(fundTransfer.getStatus())
+                .transferType(fundTransfer.getTransferType())
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalErrorCode;
+import com.banking.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.external.AccountService;
+import com.banking.fundtransfer.external.TransactionService;
+import com.banking.fundtransfer.model.SagaState;
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.dto.external.BalanceUpdate;
+import com.banking.fundtransfer.model.dto.external.Hold;
+import com.banking.fundtransfer.model.dto.external.HoldRequest;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Runs a fund transfer as a saga across the account and transaction services: reserve the amount with a hold,
+ * capture the hold, credit the target, record the postings and complete. The state is saved after every step
+ * and every step is idempotent on the transfer reference, so a saga interrupted by a crash or a timeout can be
+ * resumed from its saved state as often as needed.
+ * <p>
+ * A definite business rejection (a 400, 404 or 410 from a service) before the credit compensates the saga:
+ * an active hold is released, a captured one is refunded, and a hold that was released or expired before it
+ * could be captured needs nothing more. Any other failure, including a conflict or an update
+ * whose outcome is unknown, leaves the saga where it is for the recovery worker, which retries the same step
+ * with the same reference. Once the target is credited the saga only moves forward.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferSaga {
+    private final FundTransferRepository fundTransferRepository;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final TransferCompletionNotifier transferCompletionNotifier;
+    private final TransferRecorder transferRecorder;
+
+    /**
+     * Advances a saga until it reaches a terminal state or a step fails for a reason other than a business
+     * rejection.
+     *
+     * @param fundTransfer the saga to advance
+     * @return the saga in its latest saved state
+     */
+    public FundTransfer resume(FundTransfer fundTransfer) {
+        while (!fundTransfer.getSagaState().isTerminal()) {
+            SagaState next;
+            try {
+                next = step(fundTransfer);
+            } catch (GlobalException e) {
+                next = reject(fundTransfer, e);
+                if (Objects.isNull(next)) {
+                    return fundTransfer;
+                }
+            } catch (RuntimeException e) {
+                log.warn("saga {} stopped in state {}, it will be resumed later",
+                        fundTransfer.getTransactionReference(), fundTransfer.getSagaState(), e);
+                return fundTransfer;
+            }
+            fundTransfer.setSagaState(next);
+            if (next == SagaState.COMPLETED) {
+                fundTransfer.setStatus(TransactionStatus.SUCCESS);
+            } else if (next == SagaState.COMPENSATED || next == SagaState.FAILED) {
+                fundTransfer.setStatus(TransactionStatus.FAILED);
+            }
+            try {
+                fundTransfer = next.isTerminal() ? transferRecorder.complete(fundTransfer)
+                        : fundTransferRepository.save(fundTransfer);
+            } catch (OptimisticLockingFailureException e) {
+                log.warn("saga {} was advanced concurrently, leaving it to the other runner",
+                        fundTransfer.getTransactionReference());
+                return fundTransfer;
+            }
+        }
+        transferCompletionNotifier.completed(fundTransfer);
+        return fundTransfer;
+    }
+
+    private SagaState step(FundTransfer fundTransfer) {
+        String reference = fundTransfer.getTransactionReference();
+        return switch (fundTransfer.getSagaState()) {
+            case STARTED -> {
+                accountService.placeHold(fundTransfer.getFromAccount(),
+                        HoldRequest.builder().holdReference(reference).amount(fundTransfer.getAmount()).build());
+                yield SagaState.RESERVED;
+            }
+            case RESERVED -> {
+                accountService.captureHold(reference);
+                yield SagaState.DEBITED;
+            }
+            case DEBITED -> {
+                accountService.updateBalance(fundTransfer.getToAccount(), BalanceUpdate.builder()
+                        .delta(fundTransfer.getAmount()).reference(reference).build());
+                yield SagaState.CREDITED;
+            }
+            case CREDITED -> {
+                transactionService.makeInternalTransactions(LocalTransferExecutor.postings(fundTransfer.getFromAccount(),
+                        fundTransfer.getToAccount(), fundTransfer.getAmount()), reference);
+                yield SagaState.RECORDED;
+            }
+            case RECORDED -> SagaState.COMPLETED;
+            case COMPENSATING -> {
+                compensate(fundTransfer);
+                yield SagaState.COMPENSATED;
+            }
+            default -> throw new IllegalStateException("saga " + reference + " is already " + fundTransfer.getSagaState());
+        };
+    }
+
+    /**
+     * Decides what a business rejection means in the current state. Nothing is reserved yet when the hold is
+     * refused; rejections after the credit cannot undo it, so those steps are left for the recovery worker, as
+     * are errors that are not a definite rejection.
+     *
+     * @return the next state, or null to leave the saga in its current state
+     */
+    private SagaState reject(FundTransfer fundTransfer, GlobalException e) {
+        if (!isRejection(e)) {
+            log.warn("saga {} stopped in state {} ({} - {}), it will be resumed later",
+                    fundTransfer.getTransactionReference(), fundTransfer.getSagaState(), e.getErrorCode(),
+                    e.getMessage());
+            return null;
+        }
+        log.error("saga {} rejected in state {}: {}", fundTransfer.getTransactionReference(),
+                fundTransfer.getSagaState(), e.getMessage());
+        return switch (fundTransfer.getSagaState()) {
+            case STARTED -> SagaState.FAILED;
+            case RESERVED, DEBITED -> SagaState.COMPENSATING;
+            default -> null;
+        };
+    }
+
+    /**
+     * Undoes the reservation: an active hold is released, a captured hold is refunded with a credit carrying the
+     * transfer reference, so a repeated compensation refunds only once.
+     */
+    private void compensate(FundTransfer fundTransfer) {
+        String reference = fundTransfer.getTransactionReference();
+        Hold hold;
+        try {
+            hold = accountService.readHold(reference).getBody();
+        } catch (GlobalException e) {
+            if (!GlobalErrorCode.NOT_FOUND.equals(e.getErrorCode())) {
+                throw e;
+            }
+            log.info("saga {} has no hold to compensate", reference);
+            return;
+        }
+        if (Objects.isNull(hold)) {
+            return;
+        }
+        switch (hold.getHoldStatus()) {
+            case "ACTIVE" -> accountService.releaseHold(reference);
+            case "CAPTURED" -> accountService.updateBalance(fundTransfer.getFromAccount(), BalanceUpdate.builder()
+                    .delta(fundTransfer.getAmount()).reference(reference).build());
+            default -> log.info("hold of saga {} is already {}", reference, hold.getHoldStatus());
+        }
+    }
+
+    /**
+     * Tells a definite rejection, made before anything changed, from a conflict or an error whose outcome is
+     * unknown. A hold that can no longer be captured (410) has already given its amount back.
+     *
+     * @param e the error returned by a service
+     * @return true if the request was rejected
+     */
+    static boolean isRejection(GlobalException e) {
+        return GlobalErrorCode.BAD_REQUEST.equals(e.getErrorCode()) || GlobalErrorCode.NOT_FOUND.equals(e.getErrorCode())
+                || GlobalErrorCode.GONE.equals(e.getErrorCode());
+    }
+}
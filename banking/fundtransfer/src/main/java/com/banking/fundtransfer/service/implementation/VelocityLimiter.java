@@ -0,0 +1,208 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalErrorCode;
+import com.banking.fundtransfer.exception.VelocityLimitExceeded;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-account limits on outgoing transfers, checked in memory before any remote call. Each account may make
+ * at most a configured number of transfers and move at most a configured amount per rolling minute, hour and
+ * day; a limit of 0 disables it. Every accepted attempt counts, whatever its outcome, as usual for velocity
+ * checks.
+ * <p>
+ * Each window is a ring of buckets (6 x 10 seconds, 12 x 5 minutes, 24 x 1 hour), so a window slides by one
+ * bucket at a time. Recently active accounts have exact counters in a striped LRU; every transfer is also
+ * added to a {@link VelocitySketch}, from which an account is seeded again after it was evicted. Memory stays
+ * bounded by the LRU capacity and the sketch size however many accounts transfer; cold accounts are counted
+ * approximately and never below their real activity.
+ * <p>
+ * The counters are local to this instance; with several instances each one enforces the limits on its own share
+ * of the traffic.
+ */
+@Component
+public class VelocityLimiter {
+    private static final String[] WINDOW_NAMES = {"minute", "hour", "day"};
+    private static final long[] BUCKET_MILLIS = {10_000L, 300_000L, 3_600_000L};
+    private static final int[] BUCKETS = {6, 12, 24};
+    private static final int[] OFFSETS = {0, 6, 18};
+    private static final int SLOTS = 42;
+
+    private final boolean enabled;
+    private final long[] countLimits;
+    private final long[] amountLimits;
+    private final Stripe[] stripes;
+    private final VelocitySketch sketch;
+    private final LongSupplier clock;
+
+    @Autowired
+    public VelocityLimiter(@Value("${fund-transfer.velocity.enabled}") boolean enabled,
+                           @Value("${fund-transfer.velocity.minute.count}") long minuteCount,
+                           @Value("${fund-transfer.velocity.minute.amount}") BigDecimal minuteAmount,
+                           @Value("${fund-transfer.velocity.hour.count}") long hourCount,
+                           @Value("${fund-transfer.velocity.hour.amount}") BigDecimal hourAmount,
+                           @Value("${fund-transfer.velocity.day.count}") long dayCount,
+                           @Value("${fund-transfer.velocity.day.amount}") BigDecimal dayAmount,
+                           @Value("${fund-transfer.velocity.hot-accounts}") int hotAccounts,
+                           @Value("${fund-transfer.velocity.stripes}") int stripeCount,
+                           @Value("${fund-transfer.velocity.sketch.depth}") int sketchDepth,
+                           @Value("${fund-transfer.velocity.sketch.width}") int sketchWidth) {
+        this(enabled, minuteCount, minuteAmount, hourCount, hourAmount, dayCount, dayAmount, hotAccounts, stripeCount,
+                sketchDepth, sketchWidth, System::currentTimeMillis);
+    }
+
+    VelocityLimiter(boolean enabled, long minuteCount, BigDecimal minuteAmount, long hourCount, BigDecimal hourAmount,
+                    long dayCount, BigDecimal dayAmount, int hotAccounts, int stripeCount, int sketchDepth,
+                    int sketchWidth, LongSupplier clock) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.countLimits = new long[]{minuteCount, hourCount, dayCount};
+        this.amountLimits = new long[]{cents(minuteAmount), cents(hourAmount), cents(dayAmount)};
+        int perStripe = Math.max(1, hotAccounts / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.sketch = enabled ? new VelocitySketch(SLOTS, sketchDepth, sketchWidth) : null;
+    }
+
+    /**
+     * Counts outgoing transfers of an account if they fit in all of its limits.
+     *
+     * @param accountNumber the source account
+     * @param count         the number of transfers
+     * @param amount        their total amount; a negative amount counts as 0, so it can never lift a limit
+     * @throws VelocityLimitExceeded if a limit would be exceeded; nothing is counted then
+     */
+    public void acquire(String accountNumber, long count, BigDecimal amount) {
+        if (!enabled || Objects.isNull(accountNumber)) {
+            return;
+        }
+        long amountCents = Objects.isNull(amount) ? 0 : Math.max(0, cents(amount));
+        long now = clock.getAsLong();
+        Stripe stripe = stripes[Math.floorMod(accountNumber.hashCode(), stripes.length)];
+        synchronized (stripe) {
+            Counters counters = stripe.get(accountNumber);
+            if (counters == null) {
+                counters = seed(accountNumber, now);
+                stripe.put(accountNumber, counters);
+            }
+            for (int window = 0; window < WINDOW_NAMES.length; window++) {
+                if (exceeds(countLimits[window], counters.countIn(window, now), count)
+                        || exceeds(amountLimits[window], counters.amountIn(window, now), amountCents)) {
+                    throw new VelocityLimitExceeded(GlobalErrorCode.TOO_MANY_REQUESTS,
+                            "Outgoing transfer limit per " + WINDOW_NAMES[window] + " reached for account " + accountNumber);
+                }
+            }
+            for (int window = 0; window < WINDOW_NAMES.length; window++) {
+                long epoch = now / BUCKET_MILLIS[window];
+                int slot = slot(window, epoch);
+                counters.add(slot, epoch, count, amountCents);
+                sketch.add(accountNumber, slot, epoch, count, amountCents);
+            }
+        }
+    }
+
+    /**
+     * Builds exact counters for an account from the sketch, bucket by bucket, so an account evicted from the
+     * LRU keeps its history, rounded up.
+     */
+    private Counters seed(String accountNumber, long now) {
+        Counters counters = new Counters();
+        for (int window = 0; window < WINDOW_NAMES.length; window++) {
+            long current = now / BUCKET_MILLIS[window];
+            for (long epoch = current - BUCKETS[window] + 1; epoch <= current; epoch++) {
+                int slot = slot(window, epoch);
+                long count = sketch.count(accountNumber, slot, epoch);
+                if (count > 0) {
+                    counters.add(slot, epoch, count, sketch.amount(accountNumber, slot, epoch));
+                }
+            }
+        }
+        return counters;
+    }
+
+    private static boolean exceeds(long limit, long used, long requested) {
+        return limit > 0 && used + requested > limit;
+    }
+
+    private static int slot(int window, long epoch) {
+        return OFFSETS[window] + (int) (epoch % BUCKETS[window]);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    /**
+     * Exact counters of one account: a count, an amount in cents and the epoch it belongs to for every bucket of
+     * the three windows, in flat arrays.
+     */
+    private static final class Counters {
+        private final long[] epochs = new long[SLOTS];
+        private final int[] counts = new int[SLOTS];
+        private final long[] amounts = new long[SLOTS];
+
+        Counters() {
+            Arrays.fill(epochs, -1);
+        }
+
+        void add(int slot, long epoch, long count, long amount) {
+            if (epochs[slot] != epoch) {
+                epochs[slot] = epoch;
+                counts[slot] = 0;
+                amounts[slot] = 0;
+            }
+            counts[slot] += (int) count;
+            amounts[slot] += amount;
+        }
+
+        long countIn(int window, long now) {
+            long oldest = now / BUCKET_MILLIS[window] - BUCKETS[window];
+            long total = 0;
+            for (int slot = OFFSETS[window]; slot < OFFSETS[window] + BUCKETS[window]; slot++) {
+                if (epochs[slot] > oldest) {
+                    total += counts[slot];
+                }
+            }
+            return total;
+        }
+
+        long amountIn(int window, long now) {
+            long oldest = now / BUCKET_MILLIS[window] - BUCKETS[window];
+            long total = 0;
+            for (int slot = OFFSETS[window]; slot < OFFSETS[window] + BUCKETS[window]; slot++) {
+                if (epochs[slot] > oldest) {
+                    total += amounts[slot];
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * One stripe of the LRU of recently active accounts, guarded by its own monitor.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Counters> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Counters> eldest) {
+            return size() > capacity;
+        }
+    }
+}
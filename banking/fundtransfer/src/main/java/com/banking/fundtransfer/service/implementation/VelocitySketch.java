@@ -0,0 +1,99 @@
+package com.banking.fundtransfer.service.implementation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketches of the outgoing transfer count and amount per account, one pair per time bucket of the
+ * velocity windows. Memory is fixed by the depth and width whatever the number of accounts; estimates never
+ * undercount, so an account that fell out of the exact counters can only be limited too early, never too late.
+ * <p>
+ * A bucket is reused once its time has passed: the first thread seeing the new epoch claims the bucket and
+ * clears it. Updates racing with the clearing may be lost, which only loosens the estimate by the transfers of
+ * that instant.
+ */
+final class VelocitySketch {
+    private final int depth;
+    private final int mask;
+    private final int cellsPerSlot;
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray amounts;
+
+    VelocitySketch(int slotCount, int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("sketch width must be a power of two, was " + width);
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.cellsPerSlot = depth * width;
+        this.epochs = new AtomicLongArray(slotCount);
+        this.counts = new AtomicLongArray(slotCount * cellsPerSlot);
+        this.amounts = new AtomicLongArray(slotCount * cellsPerSlot);
+        for (int slot = 0; slot < slotCount; slot++) {
+            epochs.set(slot, -1);
+        }
+    }
+
+    void add(String accountNumber, int slot, long epoch, long count, long amount) {
+        claim(slot, epoch);
+        int hash = accountNumber.hashCode();
+        int h1 = mix(hash);
+        int h2 = mix(h1 ^ hash) | 1;
+        for (int row = 0; row < depth; row++) {
+            int cell = cell(slot, row, h1 + row * h2);
+            counts.addAndGet(cell, count);
+            amounts.addAndGet(cell, amount);
+        }
+    }
+
+    /**
+     * @return the estimated count of an account in the bucket, 0 if the bucket belongs to another epoch
+     */
+    long count(String accountNumber, int slot, long epoch) {
+        return estimate(counts, accountNumber, slot, epoch);
+    }
+
+    /**
+     * @return the estimated amount of an account in the bucket, 0 if the bucket belongs to another epoch
+     */
+    long amount(String accountNumber, int slot, long epoch) {
+        return estimate(amounts, accountNumber, slot, epoch);
+    }
+
+    private long estimate(AtomicLongArray cells, String accountNumber, int slot, long epoch) {
+        if (epochs.get(slot) != epoch) {
+            return 0;
+        }
+        int hash = accountNumber.hashCode();
+        int h1 = mix(hash);
+        int h2 = mix(h1 ^ hash) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.get(cell(slot, row, h1 + row * h2)));
+        }
+        return estimate;
+    }
+
+    private void claim(int slot, long epoch) {
+        long current = epochs.get(slot);
+        if (current < epoch && epochs.compareAndSet(slot, current, epoch)) {
+            int from = slot * cellsPerSlot;
+            for (int cell = from; cell < from + cellsPerSlot; cell++) {
+                counts.set(cell, 0);
+                amounts.set(cell, 0);
+            }
+        }
+    }
+
+    private int cell(int slot, int row, int hash) {
+        return slot * cellsPerSlot + row * (mask + 1) + (hash & mask);
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
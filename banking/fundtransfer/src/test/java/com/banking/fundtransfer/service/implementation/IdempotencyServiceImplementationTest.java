@@ -0,0 +1,212 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalErrorCode;
+import com.banking.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.model.IdempotencyStatus;
+import com.banking.fundtransfer.model.dto.response.FundTransferResponse;
+import com.banking.fundtransfer.model.entity.IdempotencyRecord;
+import com.banking.fundtransfer.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceImplementationTest {
+    private static final String KEY = "key-1";
+    private static final Map<String, String> REQUEST = Map.of("amount", "10");
+
+    private final Map<String, IdempotencyRecord> table = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        when(idempotencyRecordRepository.findByIdempotencyKey(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord idempotencyRecord = invocation.getArgument(0);
+            idempotencyRecord.setIdempotencyRecordId(ids.incrementAndGet());
+            if (Objects.nonNull(table.putIfAbsent(idempotencyRecord.getIdempotencyKey(), idempotencyRecord))) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return idempotencyRecord;
+        });
+        when(idempotencyRecordRepository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord idempotencyRecord = invocation.getArgument(0);
+            table.put(idempotencyRecord.getIdempotencyKey(), idempotencyRecord);
+            return idempotencyRecord;
+        });
+        doAnswer(invocation -> table.remove(invocation.<IdempotencyRecord>getArgument(0).getIdempotencyKey()))
+                .when(idempotencyRecordRepository).delete(any(IdempotencyRecord.class));
+        when(idempotencyRecordRepository.deleteIfExpired(anyLong(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return table.values().removeIf(idempotencyRecord -> idempotencyRecord.getIdempotencyRecordId().equals(id)) ? 1 : 0;
+        });
+    }
+
+    @Test
+    void replaysTheStoredResponseWithoutRunningTheRequestAgain() {
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<FundTransferResponse> action = () -> response("ref-" + runs.incrementAndGet());
+
+        FundTransferResponse first = newService().execute(KEY, REQUEST, FundTransferResponse.class, action);
+        FundTransferResponse fromCache = newService().execute(KEY, REQUEST, FundTransferResponse.class, action);
+
+        assertEquals("ref-1", first.getTransactionId());
+        assertEquals(first, fromCache);
+        assertEquals(1, runs.get());
+        assertEquals(IdempotencyStatus.COMPLETED, table.get(KEY).getStatus());
+    }
+
+    @Test
+    void refusesAKeyReusedForADifferentRequest() {
+        IdempotencyServiceImplementation idempotencyService = newService();
+        idempotencyService.execute(KEY, REQUEST, FundTransferResponse.class, () -> response("ref-1"));
+
+        GlobalException e = assertThrows(GlobalException.class, () -> idempotencyService.execute(KEY,
+                Map.of("amount", "20"), FundTransferResponse.class, () -> response("ref-2")));
+        assertEquals(GlobalErrorCode.NOT_ACCEPTABLE, e.getErrorCode());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheRequestInFlight() throws Exception {
+        IdempotencyServiceImplementation idempotencyService = newService();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<FundTransferResponse> action = () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return response("ref-1");
+        };
+
+        CompletableFuture<FundTransferResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(KEY, REQUEST, FundTransferResponse.class, action));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> waiter = new AtomicReference<>();
+        CompletableFuture<FundTransferResponse> duplicate = CompletableFuture.supplyAsync(() -> {
+            waiter.set(Thread.currentThread());
+            return idempotencyService.execute(KEY, REQUEST, FundTransferResponse.class, action);
+        });
+        awaitParked(waiter);
+        release.countDown();
+
+        assertEquals("ref-1", first.get(5, TimeUnit.SECONDS).getTransactionId());
+        assertEquals("ref-1", duplicate.get(5, TimeUnit.SECONDS).getTransactionId());
+        assertEquals(1, runs.get());
+        verify(idempotencyRecordRepository, times(1)).findByIdempotencyKey(KEY);
+    }
+
+    @Test
+    void keepsTheKeyOfARequestWithAnUnknownOutcome() {
+        IdempotencyServiceImplementation idempotencyService = newService();
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<FundTransferResponse> action = () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("connection reset");
+        };
+
+        GlobalException first = assertThrows(GlobalException.class,
+                () -> idempotencyService.execute(KEY, REQUEST, FundTransferResponse.class, action));
+        GlobalException replayed = assertThrows(GlobalException.class,
+                () -> newService().execute(KEY, REQUEST, FundTransferResponse.class, action));
+
+        assertEquals(GlobalErrorCode.GATEWAY_TIMEOUT, first.getErrorCode());
+        assertEquals(first.getMessage(), replayed.getMessage());
+        assertEquals(1, runs.get());
+        assertEquals(IdempotencyStatus.UNKNOWN, table.get(KEY).getStatus());
+    }
+
+    @Test
+    void releasesTheKeyOfARejectedRequest() {
+        IdempotencyServiceImplementation idempotencyService = newService();
+
+        assertThrows(GlobalException.class, () -> idempotencyService.execute(KEY, REQUEST, FundTransferResponse.class,
+                () -> {
+                    throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Insufficient funds");
+                }));
+        FundTransferResponse retried = idempotencyService.execute(KEY, REQUEST, FundTransferResponse.class,
+                () -> response("ref-2"));
+
+        assertEquals("ref-2", retried.getTransactionId());
+    }
+
+    @Test
+    void runsTheRequestAgainOnceTheStoredRecordExpired() {
+        newService().execute(KEY, REQUEST, FundTransferResponse.class, () -> response("ref-1"));
+        table.get(KEY).setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        FundTransferResponse again = newService().execute(KEY, REQUEST, FundTransferResponse.class,
+                () -> response("ref-2"));
+
+        assertEquals("ref-2", again.getTransactionId());
+    }
+
+    @Test
+    void purgesExpiredRecordsInBatchesUntilNoneAreLeft() {
+        when(idempotencyRecordRepository.deleteExpired(any(LocalDateTime.class), anyInt())).thenReturn(2, 2, 1);
+
+        newService().purgeExpired();
+
+        verify(idempotencyRecordRepository, times(3)).deleteExpired(any(LocalDateTime.class), anyInt());
+    }
+
+    private IdempotencyServiceImplementation newService() {
+        IdempotencyServiceImplementation idempotencyService =
+                new IdempotencyServiceImplementation(idempotencyRecordRepository, new ObjectMapper(), 100);
+        ReflectionTestUtils.setField(idempotencyService, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(idempotencyService, "lockTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(idempotencyService, "purgeBatchSize", 2);
+        return idempotencyService;
+    }
+
+    private static FundTransferResponse response(String transactionId) {
+        return FundTransferResponse.builder().transactionId(transactionId).message("Fund Transfer Success").build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitParked(AtomicReference<Thread> waiter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Objects.isNull(waiter.get()) || waiter.get().getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "duplicate request did not wait");
+            Thread.sleep(10);
+        }
+    }
+}
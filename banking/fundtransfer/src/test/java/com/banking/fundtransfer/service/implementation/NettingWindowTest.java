@@ -0,0 +1,250 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.GlobalErrorCode;
+import com.banking.fundtransfer.exception.GlobalException;
+import com.banking.fundtransfer.external.AccountService;
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.dto.external.Account;
+import com.banking.fundtransfer.model.dto.external.NetPosition;
+import com.banking.fundtransfer.model.dto.request.FundTransferRequest;
+import com.banking.fundtransfer.model.dto.response.FundTransferResponse;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import com.banking.fundtransfer.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NettingWindowTest {
+    private static final String ALICE = "100001";
+    private static final String BOB = "200002";
+    private static final String CAROL = "300003";
+    private static final String SUCCESS = "Fund Transfer Success";
+    private static final String PENDING = "Fund Transfer Accepted, completion pending";
+
+    private final AtomicInteger references = new AtomicInteger();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private AccountService accountService;
+    private LocalTransferExecutor localTransferExecutor;
+    private TransferRecorder transferRecorder;
+    private FundTransferRepository fundTransferRepository;
+    private NettingWindow nettingWindow;
+
+    @BeforeEach
+    void setUp() {
+        accountService = mock(AccountService.class);
+        AccountReader accountReader = mock(AccountReader.class);
+        localTransferExecutor = mock(LocalTransferExecutor.class);
+        transferRecorder = mock(TransferRecorder.class);
+        fundTransferRepository = mock(FundTransferRepository.class);
+        SnowflakeIdGenerator snowflakeIdGenerator = mock(SnowflakeIdGenerator.class);
+        when(snowflakeIdGenerator.nextReference()).thenAnswer(invocation -> "ref-" + references.incrementAndGet());
+        when(accountReader.readAll(anyList())).thenReturn(Map.of(
+                ALICE, active(ALICE), BOB, active(BOB), CAROL, active(CAROL)));
+
+        nettingWindow = new NettingWindow(accountService, accountReader, localTransferExecutor, transferRecorder,
+                fundTransferRepository, snowflakeIdGenerator, 100, 2);
+        // the window is flushed by the tests rather than by the scheduler
+        ReflectionTestUtils.setField(nettingWindow, "windowMs", 10L);
+        ReflectionTestUtils.setField(nettingWindow, "replyTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(nettingWindow, "maxBatch", 100);
+        ReflectionTestUtils.setField(nettingWindow, "staleAfterSeconds", 60L);
+        ReflectionTestUtils.setField(nettingWindow, "recoveryPageSize", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nettingWindow.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void settlesAWindowWithOneNetCall() throws Exception {
+        CompletableFuture<FundTransferResponse> first = submit(ALICE, BOB, "100.00");
+        CompletableFuture<FundTransferResponse> second = submit(BOB, ALICE, "30.00");
+
+        flush();
+
+        assertEquals(SUCCESS, first.get(5, TimeUnit.SECONDS).getMessage());
+        assertEquals(SUCCESS, second.get(5, TimeUnit.SECONDS).getMessage());
+        verify(accountService).applyNetPositions(List.of(position(ALICE, "-70.00"), position(BOB, "70.00")), "ref-3");
+        List<FundTransfer> started = started();
+        assertEquals(List.of("ref-1", "ref-2"), started.stream().map(FundTransfer::getTransactionReference).toList());
+        assertTrue(started.stream().allMatch(fundTransfer -> "ref-3".equals(fundTransfer.getNetReference())));
+        verify(transferRecorder).finish(started);
+        assertTrue(started.stream().allMatch(fundTransfer -> fundTransfer.getStatus() == TransactionStatus.SUCCESS));
+        verify(localTransferExecutor, never()).moveFunds(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void settlesTransfersOneByOneWhenTheNetPositionsAreRejected() throws Exception {
+        when(accountService.applyNetPositions(anyList(), anyString()))
+                .thenThrow(new GlobalException(GlobalErrorCode.BAD_REQUEST, "Insufficient balance"));
+        doThrow(new GlobalException(GlobalErrorCode.BAD_REQUEST, "Insufficient balance"))
+                .when(localTransferExecutor).moveFunds(eq("ref-2"), anyString(), anyString(), any());
+        CompletableFuture<FundTransferResponse> first = submit(ALICE, BOB, "100.00");
+        CompletableFuture<FundTransferResponse> second = submit(CAROL, ALICE, "50.00");
+
+        flush();
+
+        assertEquals(SUCCESS, first.get(5, TimeUnit.SECONDS).getMessage());
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(GlobalException.class, rejected.getCause());
+        verify(fundTransferRepository).detachFromNetSettlement("ref-3");
+        verify(localTransferExecutor).moveFunds("ref-1", ALICE, BOB, new BigDecimal("100.00"));
+        verify(localTransferExecutor).moveFunds("ref-2", CAROL, ALICE, new BigDecimal("50.00"));
+        List<FundTransfer> started = started();
+        assertEquals(TransactionStatus.SUCCESS, started.get(0).getStatus());
+        assertEquals(TransactionStatus.FAILED, started.get(1).getStatus());
+        verify(transferRecorder).finish(List.of(started.get(0)));
+        verify(transferRecorder).finish(List.of(started.get(1)));
+    }
+
+    @Test
+    void answersPendingWhenTheWindowIsNotSettledInTime() throws Exception {
+        ReflectionTestUtils.setField(nettingWindow, "replyTimeoutMs", 50L);
+
+        // never flushed, as if the window were still waiting on the account service
+        FundTransferResponse response = submit(ALICE, BOB, "100.00").get(5, TimeUnit.SECONDS);
+
+        assertEquals(PENDING, response.getMessage());
+        assertEquals("ref-1", response.getTransactionId());
+    }
+
+    @Test
+    void leavesTheSettlementForRecoveryWhenTheNetCallTimesOut() throws Exception {
+        when(accountService.applyNetPositions(anyList(), anyString()))
+                .thenThrow(new GlobalException(GlobalErrorCode.GATEWAY_TIMEOUT, "Read timed out"));
+        CompletableFuture<FundTransferResponse> first = submit(ALICE, BOB, "100.00");
+
+        flush();
+
+        FundTransferResponse response = first.get(5, TimeUnit.SECONDS);
+        assertEquals(PENDING, response.getMessage());
+        assertEquals("ref-1", response.getTransactionId());
+        verify(transferRecorder, never()).finish(anyList());
+        verify(fundTransferRepository, never()).detachFromNetSettlement(anyString());
+        verify(localTransferExecutor, never()).moveFunds(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void recoverySendsTheSameNetReferenceAgain() throws Exception {
+        when(accountService.applyNetPositions(anyList(), anyString()))
+                .thenThrow(new GlobalException(GlobalErrorCode.GATEWAY_TIMEOUT, "Read timed out"))
+                .thenReturn(null);
+        CompletableFuture<FundTransferResponse> first = submit(ALICE, BOB, "100.00");
+        CompletableFuture<FundTransferResponse> second = submit(BOB, CAROL, "40.00");
+        flush();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        List<FundTransfer> started = started();
+        when(fundTransferRepository.findStaleNetReferences(eq(TransactionStatus.PROCESSING), any(), any()))
+                .thenReturn(List.of("ref-3"));
+        when(fundTransferRepository.findByNetReferenceOrderByFundTransferId("ref-3")).thenReturn(started);
+
+        nettingWindow.recover();
+
+        List<NetPosition> positions = List.of(position(ALICE, "-100.00"), position(BOB, "60.00"),
+                position(CAROL, "40.00"));
+        verify(accountService, times(2)).applyNetPositions(positions, "ref-3");
+        verify(transferRecorder).finish(started);
+        assertTrue(started.stream().allMatch(fundTransfer -> fundTransfer.getStatus() == TransactionStatus.SUCCESS));
+    }
+
+    @Test
+    void recoverySettlesOneByOneWhenTheResentNetPositionsAreRejected() {
+        FundTransfer fundTransfer = FundTransfer.builder()
+                .transactionReference("ref-1")
+                .netReference("ref-2")
+                .fromAccount(ALICE)
+                .toAccount(BOB)
+                .amount(new BigDecimal("100.00"))
+                .status(TransactionStatus.PROCESSING)
+                .build();
+        when(fundTransferRepository.findStaleNetReferences(eq(TransactionStatus.PROCESSING), any(), any()))
+                .thenReturn(List.of("ref-2"));
+        when(fundTransferRepository.findByNetReferenceOrderByFundTransferId("ref-2")).thenReturn(List.of(fundTransfer));
+        when(accountService.applyNetPositions(anyList(), anyString()))
+                .thenThrow(new GlobalException(GlobalErrorCode.BAD_REQUEST, "Insufficient balance"));
+
+        nettingWindow.recover();
+
+        verify(fundTransferRepository).detachFromNetSettlement("ref-2");
+        verify(localTransferExecutor, timeout(5_000)).moveFunds("ref-1", ALICE, BOB, new BigDecimal("100.00"));
+        verify(transferRecorder, timeout(5_000)).finish(List.of(fundTransfer));
+    }
+
+    /**
+     * Submits a transfer from another thread, since the caller blocks until its window is settled, and waits
+     * until it is buffered so references are handed out in submission order.
+     */
+    private CompletableFuture<FundTransferResponse> submit(String fromAccount, String toAccount, String amount)
+            throws InterruptedException {
+        int buffered = buffered();
+        FundTransferRequest request = FundTransferRequest.builder()
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .amount(new BigDecimal(amount))
+                .build();
+        CompletableFuture<FundTransferResponse> response =
+                CompletableFuture.supplyAsync(() -> nettingWindow.transfer(request), callers);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (buffered() == buffered && !response.isDone() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return response;
+    }
+
+    private int buffered() {
+        return ((Collection<?>) ReflectionTestUtils.getField(nettingWindow, "buffer")).size();
+    }
+
+    private void flush() {
+        ReflectionTestUtils.invokeMethod(nettingWindow, "flush");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FundTransfer> started() {
+        ArgumentCaptor<List<FundTransfer>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transferRecorder).start(captor.capture());
+        return captor.getValue();
+    }
+
+    private static NetPosition position(String accountNumber, String delta) {
+        return NetPosition.builder().accountNumber(accountNumber).delta(new BigDecimal(delta)).build();
+    }
+
+    private static Account active(String accountNumber) {
+        return Account.builder().accountNumber(accountNumber).accountStatus("ACTIVE").build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.banking.fundtransfer.service.implementation;
+
+import com.banking.fundtransfer.exception.VelocityLimitExceeded;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VelocityLimiterTest {
+    private static final long SECOND = 1_000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final BigDecimal NONE = BigDecimal.ZERO;
+    private static final String ACCOUNT = "100001";
+
+    // starts on a day boundary, so every bucket of every window starts with the first transfer
+    private final AtomicLong clock = new AtomicLong(20_000 * DAY);
+
+    @Test
+    void minuteWindowRollsOverAfterSixTenSecondBuckets() {
+        VelocityLimiter limiter = limiter(2, NONE, 0, NONE, 0, NONE, 16, 1);
+        assertWindowRollsOver(limiter, 10 * SECOND, MINUTE);
+    }
+
+    @Test
+    void hourWindowRollsOverAfterTwelveFiveMinuteBuckets() {
+        VelocityLimiter limiter = limiter(0, NONE, 2, NONE, 0, NONE, 16, 1);
+        assertWindowRollsOver(limiter, 5 * MINUTE, HOUR);
+    }
+
+    @Test
+    void dayWindowRollsOverAfterTwentyFourHourBuckets() {
+        VelocityLimiter limiter = limiter(0, NONE, 0, NONE, 2, NONE, 16, 1);
+        assertWindowRollsOver(limiter, HOUR, DAY);
+    }
+
+    @Test
+    void slidesByOneBucketAtATime() {
+        VelocityLimiter limiter = limiter(2, NONE, 0, NONE, 0, NONE, 16, 1);
+        limiter.acquire(ACCOUNT, 1, BigDecimal.ONE);
+        clock.addAndGet(30 * SECOND);
+        limiter.acquire(ACCOUNT, 1, BigDecimal.ONE);
+
+        // the first transfer leaves the window a minute after its bucket started, the second one stays
+        clock.addAndGet(30 * SECOND);
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+    }
+
+    @Test
+    void countsNothingWhenAnAmountLimitRejects() {
+        VelocityLimiter limiter = limiter(2, new BigDecimal("100.00"), 0, NONE, 0, NONE, 16, 1);
+        limiter.acquire(ACCOUNT, 1, new BigDecimal("60.00"));
+
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, new BigDecimal("50.00")));
+
+        // neither the count nor the amount of the rejected transfer was kept
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 1, new BigDecimal("40.00")));
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, new BigDecimal("0.01")));
+    }
+
+    @Test
+    void countsNothingInShorterWindowsWhenALongerWindowRejects() {
+        VelocityLimiter limiter = limiter(3, NONE, 0, NONE, 0, new BigDecimal("100.00"), 16, 1);
+        limiter.acquire(ACCOUNT, 1, new BigDecimal("60.00"));
+
+        // passes the minute check, then fails the day check
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, new BigDecimal("50.00")));
+
+        limiter.acquire(ACCOUNT, 1, new BigDecimal("40.00"));
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 1, NONE));
+    }
+
+    @Test
+    void rejectsABatchThatDoesNotFitAsAWhole() {
+        VelocityLimiter limiter = limiter(5, NONE, 0, NONE, 0, NONE, 16, 1);
+        limiter.acquire(ACCOUNT, 3, new BigDecimal("30.00"));
+
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 3, new BigDecimal("30.00")));
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 2, new BigDecimal("20.00")));
+    }
+
+    @Test
+    void doesNotLetANegativeAmountLiftTheLimit() {
+        VelocityLimiter limiter = limiter(0, new BigDecimal("100.00"), 0, NONE, 0, NONE, 16, 1);
+        limiter.acquire(ACCOUNT, 1, new BigDecimal("90.00"));
+        limiter.acquire(ACCOUNT, 1, new BigDecimal("-1000.00"));
+
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, new BigDecimal("20.00")));
+    }
+
+    @Test
+    void seedsAnEvictedAccountFromTheSketch() {
+        // one stripe holding a single account, so every other account evicts it
+        VelocityLimiter limiter = limiter(3, new BigDecimal("100.00"), 0, NONE, 0, NONE, 1, 1);
+        limiter.acquire(ACCOUNT, 2, new BigDecimal("70.00"));
+        limiter.acquire("200002", 1, BigDecimal.ONE);
+
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, new BigDecimal("40.00")));
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 1, new BigDecimal("30.00")));
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, NONE));
+    }
+
+    @Test
+    void neverSeedsBelowTheRealCountWhenTheSketchIsCrowded() {
+        // a sketch of two cells per row is shared by every account, so it can only overestimate
+        VelocityLimiter limiter = new VelocityLimiter(true, 5, NONE, 0, NONE, 0, NONE, 1, 1, 1, 2, clock::get);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(ACCOUNT, 1, BigDecimal.ONE);
+            clock.addAndGet(10 * SECOND);
+            for (int other = 0; other < 20; other++) {
+                limiter.acquire("3000" + other, 0, NONE);
+            }
+        }
+
+        limiter.acquire("200002", 1, BigDecimal.ONE);
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 2, BigDecimal.ONE));
+    }
+
+    @Test
+    void seedsOnlyTheBucketsStillInTheWindow() {
+        VelocityLimiter limiter = limiter(2, NONE, 0, NONE, 0, NONE, 1, 1);
+        limiter.acquire(ACCOUNT, 2, BigDecimal.ONE);
+        clock.addAndGet(MINUTE);
+        limiter.acquire("200002", 1, BigDecimal.ONE);
+
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 2, BigDecimal.ONE));
+    }
+
+    @Test
+    void acceptsEverythingWhenDisabled() {
+        VelocityLimiter limiter = new VelocityLimiter(false, 1, NONE, 0, NONE, 0, NONE, 16, 1, 4, 1024, clock::get);
+        limiter.acquire(ACCOUNT, 1, BigDecimal.ONE);
+
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+    }
+
+    /**
+     * Fills a limit of two transfers at the start of a window, checks it still holds in the last bucket of the
+     * window and is free again once the first bucket left it.
+     */
+    private void assertWindowRollsOver(VelocityLimiter limiter, long bucketMillis, long windowMillis) {
+        limiter.acquire(ACCOUNT, 1, BigDecimal.ONE);
+        limiter.acquire(ACCOUNT, 1, BigDecimal.ONE);
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+
+        clock.addAndGet(windowMillis - bucketMillis);
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+
+        clock.addAndGet(bucketMillis - 1);
+        assertThrows(VelocityLimitExceeded.class, () -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+
+        clock.addAndGet(1);
+        assertDoesNotThrow(() -> limiter.acquire(ACCOUNT, 1, BigDecimal.ONE));
+    }
+
+    private VelocityLimiter limiter(long minuteCount, BigDecimal minuteAmount, long hourCount, BigDecimal hourAmount,
+                                    long dayCount, BigDecimal dayAmount, int hotAccounts, int stripes) {
+        return new VelocityLimiter(true, minuteCount, minuteAmount, hourCount, hourAmount, dayCount, dayAmount,
+                hotAccounts, stripes, 4, 1024, clock::get);
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.fundtransfer.service.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VelocitySketchTest {
+
+    @Test
+    void estimatesExactlyWithoutCollisions() {
+        VelocitySketch sketch = new VelocitySketch(2, 4, 1024);
+        sketch.add("100001", 0, 7, 2, 500);
+        sketch.add("100001", 0, 7, 1, 250);
+
+        assertEquals(3, sketch.count("100001", 0, 7));
+        assertEquals(750, sketch.amount("100001", 0, 7));
+        assertEquals(0, sketch.count("100001", 1, 7));
+    }
+
+    @Test
+    void neverUndercountsWhenAccountsCollide() {
+        VelocitySketch sketch = new VelocitySketch(1, 2, 4);
+        Map<String, Long> real = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            String account = "1000" + (i % 50);
+            sketch.add(account, 0, 1, 1, i);
+            real.merge(account, 1L, Long::sum);
+        }
+
+        real.forEach((account, count) -> assertTrue(sketch.count(account, 0, 1) >= count, account));
+    }
+
+    @Test
+    void readsZeroForABucketOfAnotherEpoch() {
+        VelocitySketch sketch = new VelocitySketch(1, 4, 1024);
+        sketch.add("100001", 0, 7, 1, 100);
+
+        assertEquals(0, sketch.count("100001", 0, 6));
+        assertEquals(0, sketch.amount("100001", 0, 8));
+    }
+
+    @Test
+    void clearsABucketWhenANewEpochClaimsIt() {
+        VelocitySketch sketch = new VelocitySketch(1, 4, 1024);
+        sketch.add("100001", 0, 7, 5, 100);
+        sketch.add("100001", 0, 8, 1, 10);
+
+        assertEquals(1, sketch.count("100001", 0, 8));
+        assertEquals(10, sketch.amount("100001", 0, 8));
+        assertEquals(0, sketch.count("100001", 0, 7));
+    }
+
+    @Test
+    void rejectsAWidthThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new VelocitySketch(1, 4, 1000));
+    }
+}
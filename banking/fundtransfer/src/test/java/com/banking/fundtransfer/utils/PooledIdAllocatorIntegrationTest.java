@@ -0,0 +1,111 @@
+package com.banking.fundtransfer.utils;
+
+import com.banking.fundtransfer.model.TransactionStatus;
+import com.banking.fundtransfer.model.TransferType;
+import com.banking.fundtransfer.model.entity.FundTransfer;
+import com.banking.fundtransfer.repository.FundTransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against the configured database, like the context test: ids handed out to JDBC batch inserts and ids
+ * Hibernate draws for saveAll come from the same sequence table and must never overlap.
+ */
+@SpringBootTest
+class PooledIdAllocatorIntegrationTest {
+    private static final int THREADS = 4;
+    private static final int ROUNDS = 10;
+    private static final int BATCH = FundTransfer.ID_ALLOCATION_SIZE * 2 + 7;
+
+    @Autowired
+    private PooledIdAllocator fundTransferIdAllocator;
+
+    @Autowired
+    private FundTransferRepository fundTransferRepository;
+
+    private final Set<Long> savedIds = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void cleanUp() {
+        fundTransferRepository.deleteAllByIdInBatch(savedIds);
+    }
+
+    @Test
+    void allocatedBlocksNeverOverlapIdsDrawnBySaveAll() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Long> duplicates = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                boolean allocateFirst = thread % 2 == 0;
+                tasks.add(() -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        List<Long> drawn = allocateFirst == (round % 2 == 0) ? allocate() : saveAll();
+                        for (Long id : drawn) {
+                            if (!ids.add(id)) {
+                                synchronized (duplicates) {
+                                    duplicates.add(id);
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+
+        assertTrue(duplicates.isEmpty(), "duplicate ids: " + duplicates);
+        assertEquals(THREADS * ROUNDS * BATCH, ids.size());
+    }
+
+    private List<Long> allocate() {
+        long first = fundTransferIdAllocator.allocate(BATCH);
+        List<Long> block = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            block.add(first + i);
+        }
+        return block;
+    }
+
+    private List<Long> saveAll() {
+        List<FundTransfer> fundTransfers = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            fundTransfers.add(FundTransfer.builder()
+                    .transactionReference("id-allocator-test-" + UUID.randomUUID())
+                    .fromAccount("id-allocator-test")
+                    .toAccount("id-allocator-test")
+                    .transferType(TransferType.INTERNAL)
+                    .amount(BigDecimal.ONE)
+                    .status(TransactionStatus.SUCCESS)
+                    .build());
+        }
+        List<Long> drawn = fundTransferRepository.saveAll(fundTransfers).stream()
+                .map(FundTransfer::getFundTransferId).toList();
+        savedIds.addAll(drawn);
+        return drawn;
+    }
+}
@@ -1,10 +1,13 @@
 package com.banking.sequencegenerator.controller;
 
 import com.banking.sequencegenerator.model.Sequence;
+import com.banking.sequencegenerator.model.SequenceBlock;
 import com.banking.sequencegenerator.service.SequenceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -17,4 +20,38 @@ public class SequenceController {
     public Sequence generateAccountNumber(){
         return sequenceService.create();
     }
+
+    /**
+     * Leases a contiguous block of account numbers to the caller.
+     *
+     * @param size the number of account numbers to reserve
+     * @return the reserved block, both ends inclusive
+     */
+    @PostMapping("/block")
+    public SequenceBlock generateAccountNumberBlock(@RequestParam int size) {
+        return sequenceService.createBlock(size);
+    }
+
+    /**
+     * Generates the next value of a registered named sequence, creating its row on first use.
+     *
+     * @param sequenceName the name of the sequence
+     * @return the sequence carrying the generated value
+     */
+    @PostMapping("/{sequenceName}/next")
+    public Sequence generateValue(@PathVariable String sequenceName) {
+        return sequenceService.create(sequenceName);
+    }
+
+    /**
+     * Leases a contiguous block of values from a named sequence.
+     *
+     * @param sequenceName the name of the sequence
+     * @param size         the number of values to reserve
+     * @return the reserved block, both ends inclusive
+     */
+    @PostMapping("/{sequenceName}/block")
+    public SequenceBlock generateBlock(@PathVariable String sequenceName, @RequestParam int size) {
+        return sequenceService.createBlock(sequenceName, size);
+    }
 }
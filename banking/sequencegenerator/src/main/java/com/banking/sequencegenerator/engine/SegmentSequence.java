@@ -0,0 +1,115 @@
+package com.banking.sequencegenerator.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Double buffered segment allocator. Numbers are taken from the current segment with a single atomic add;
+ * the database is only touched when a new segment is claimed, and the next segment is claimed in the
+ * background before the current one runs out.
+ */
+@Slf4j
+final class SegmentSequence {
+    private final String name;
+    private final SequenceCheckpointStore checkpointStore;
+    private final Executor prefetchExecutor;
+    private final int step;
+    private final long prefetchThreshold;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile SequenceSegment current = SequenceSegment.EMPTY;
+    private volatile CompletableFuture<SequenceSegment> next;
+    private volatile long sequenceId;
+
+    SegmentSequence(String name, SequenceCheckpointStore checkpointStore, Executor prefetchExecutor,
+                    int step, double prefetchRatio) {
+        this.name = name;
+        this.checkpointStore = checkpointStore;
+        this.prefetchExecutor = prefetchExecutor;
+        this.step = step;
+        this.prefetchThreshold = Math.max(1, (long) (step * prefetchRatio));
+    }
+
+    /**
+     * Returns the id of the stored row of the sequence, known once a segment has been claimed.
+     *
+     * @return the id of the sequence row
+     */
+    long sequenceId() {
+        return sequenceId;
+    }
+
+    /**
+     * Allocates {@code count} consecutive numbers.
+     *
+     * @param count the number of values to allocate
+     * @return the first allocated value
+     */
+    long allocate(int count) {
+        while (true) {
+            SequenceSegment segment = current;
+            long start = segment.take(count);
+            if (start > 0) {
+                if (segment.remaining() < prefetchThreshold && next == null) {
+                    prefetch();
+                }
+                return start;
+            }
+            switchSegment(segment, count);
+        }
+    }
+
+    private void prefetch() {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            if (next == null) {
+                next = CompletableFuture.supplyAsync(() -> claim(step), prefetchExecutor);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void switchSegment(SequenceSegment exhausted, int count) {
+        lock.lock();
+        try {
+            if (current != exhausted) {
+                return;
+            }
+            SequenceSegment segment = null;
+            if (next != null) {
+                try {
+                    segment = next.join();
+                } catch (CompletionException e) {
+                    log.error("background segment claim for {} failed, claiming synchronously", name, e);
+                }
+                next = null;
+            }
+            if (segment == null || segment.size() < count) {
+                segment = claim(Math.max(step, count));
+            }
+            current = segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SequenceSegment claim(int size) {
+        SequenceClaim claim;
+        try {
+            claim = checkpointStore.claim(name, size);
+        } catch (DataIntegrityViolationException e) {
+            // another node created the row for a new sequence first, the retry finds and locks it
+            claim = checkpointStore.claim(name, size);
+        }
+        sequenceId = claim.sequenceId();
+        return new SequenceSegment(claim.start(), claim.end());
+    }
+}
@@ -0,0 +1,56 @@
+package com.banking.sequencegenerator.engine;
+
+import com.banking.sequencegenerator.model.Sequence;
+import com.banking.sequencegenerator.repository.SequenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Persists the high-water mark of each named sequence. Every number up to the stored value may already have
+ * been handed out, so the engine only ever issues numbers from ranges claimed here.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceCheckpointStore {
+
+    private final SequenceRepository sequenceRepository;
+
+    /**
+     * Claims the next {@code size} numbers of a sequence by moving its stored high-water mark under a row lock.
+     * The row is created on first use; the account number sequence also adopts the unnamed legacy row.
+     *
+     * @param sequenceName the name of the sequence
+     * @param size         the number of values to claim
+     * @return the claimed range, both ends inclusive
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public SequenceClaim claim(String sequenceName, long size) {
+        Sequence sequence = sequenceRepository.findBySequenceNameForUpdate(sequenceName)
+                .or(() -> SequenceEngine.ACCOUNT_NUMBER.equals(sequenceName)
+                        ? sequenceRepository.findByIdForUpdate(1L) : Optional.empty())
+                .orElseGet(() -> Sequence.builder().accountNumber(0L).build());
+        long start = sequence.getAccountNumber() + 1;
+        sequence.setSequenceName(sequenceName);
+        sequence.setAccountNumber(sequence.getAccountNumber() + size);
+        sequenceRepository.save(sequence);
+        log.info("checkpointed sequence {} at {}", sequenceName, sequence.getAccountNumber());
+        return new SequenceClaim(sequence.getSequenceId(), start, sequence.getAccountNumber());
+    }
+
+    /**
+     * Returns whether a sequence already has a stored row, that is whether it was created before.
+     *
+     * @param sequenceName the name of the sequence
+     * @return true if the sequence exists
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(String sequenceName) {
+        return sequenceRepository.existsBySequenceName(sequenceName);
+    }
+}
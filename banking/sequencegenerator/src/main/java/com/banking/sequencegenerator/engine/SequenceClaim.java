@@ -0,0 +1,7 @@
+package com.banking.sequencegenerator.engine;
+
+/**
+ * A range claimed from the stored high-water mark of a sequence, together with the id of the sequence row.
+ */
+record SequenceClaim(long sequenceId, long start, long end) {
+}
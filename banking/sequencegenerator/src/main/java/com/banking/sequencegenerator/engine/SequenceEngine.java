@@ -0,0 +1,98 @@
+package com.banking.sequencegenerator.engine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory sequence engine. Numbers are issued from segments of {@code sequence.segment.step} values and
+ * only the end of each claimed segment is written to the database, so a restart resumes after the last
+ * checkpoint and never reissues a number (at most one unfinished segment is skipped).
+ * <p>
+ * Every named sequence has its own segments and lock, so a burst on one name never waits on another. Only
+ * the names listed in {@code sequence.names} and names that already have a stored row are served, and at most
+ * {@code sequence.max-names} of them per node, since each one keeps its segments in memory.
+ */
+@Component
+public class SequenceEngine {
+    public static final String ACCOUNT_NUMBER = "account-number";
+
+    private final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sequence-segment-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentMap<String, SegmentSequence> sequences = new ConcurrentHashMap<>();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final SequenceCheckpointStore checkpointStore;
+    private final int step;
+    private final double prefetchRatio;
+    private final Set<String> registeredNames;
+    private final int maxNames;
+
+    public SequenceEngine(SequenceCheckpointStore checkpointStore,
+                          @Value("${sequence.segment.step}") int step,
+                          @Value("${sequence.segment.prefetch-ratio}") double prefetchRatio,
+                          @Value("${sequence.names}") List<String> registeredNames,
+                          @Value("${sequence.max-names}") int maxNames) {
+        this.checkpointStore = checkpointStore;
+        this.step = step;
+        this.prefetchRatio = prefetchRatio;
+        this.registeredNames = Set.copyOf(registeredNames);
+        this.maxNames = maxNames;
+    }
+
+    /**
+     * Allocates {@code count} consecutive numbers from a named sequence.
+     *
+     * @param sequenceName the name of the sequence
+     * @param count        the number of values to allocate
+     * @return the first allocated value
+     * @throws SequenceRejectedException if the name is not registered or the node serves too many sequences
+     */
+    public long allocate(String sequenceName, int count) {
+        return load(sequenceName).allocate(count);
+    }
+
+    /**
+     * Returns the id of the stored row of a named sequence.
+     *
+     * @param sequenceName the name of the sequence
+     * @return the id of the sequence row
+     * @throws SequenceRejectedException if the name is not registered or the node serves too many sequences
+     */
+    public long sequenceId(String sequenceName) {
+        return load(sequenceName).sequenceId();
+    }
+
+    private SegmentSequence load(String sequenceName) {
+        SegmentSequence sequence = sequences.get(sequenceName);
+        if (sequence != null) {
+            return sequence;
+        }
+        if (!registeredNames.contains(sequenceName) && !checkpointStore.exists(sequenceName)) {
+            throw new SequenceRejectedException("sequence " + sequenceName + " is not registered");
+        }
+        // the slot is reserved inside computeIfAbsent, so concurrent first uses can never exceed the cap
+        return sequences.computeIfAbsent(sequenceName, name -> {
+            if (loaded.incrementAndGet() > maxNames) {
+                loaded.decrementAndGet();
+                throw new SequenceRejectedException("too many sequences, at most " + maxNames + " are supported");
+            }
+            return new SegmentSequence(name, checkpointStore, prefetchExecutor, step, prefetchRatio);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+}
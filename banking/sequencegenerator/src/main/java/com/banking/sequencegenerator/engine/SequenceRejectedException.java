@@ -0,0 +1,11 @@
+package com.banking.sequencegenerator.engine;
+
+/**
+ * Thrown when a sequence cannot be served on this node: the name is not registered, or the node already
+ * serves as many sequences as it is allowed to.
+ */
+public class SequenceRejectedException extends RuntimeException {
+    public SequenceRejectedException(String message) {
+        super(message);
+    }
+}
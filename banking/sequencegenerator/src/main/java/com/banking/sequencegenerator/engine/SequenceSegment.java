@@ -0,0 +1,37 @@
+package com.banking.sequencegenerator.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A claimed range of numbers served from memory. The cursor may run past {@code end}; callers that land
+ * beyond it simply move on to the next segment.
+ */
+final class SequenceSegment {
+    static final SequenceSegment EMPTY = new SequenceSegment(1, 0);
+
+    private final AtomicLong cursor;
+    private final long end;
+
+    SequenceSegment(long start, long end) {
+        this.cursor = new AtomicLong(start);
+        this.end = end;
+    }
+
+    /**
+     * Takes {@code count} consecutive numbers from the segment.
+     *
+     * @return the first number taken, or -1 if the segment cannot serve the whole request
+     */
+    long take(int count) {
+        long start = cursor.getAndAdd(count);
+        return start + count - 1 <= end ? start : -1;
+    }
+
+    long remaining() {
+        return Math.max(0, end - cursor.get() + 1);
+    }
+
+    long size() {
+        return end - cursor.get() + 1;
+    }
+}
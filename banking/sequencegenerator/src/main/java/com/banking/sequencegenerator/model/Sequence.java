@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -20,5 +21,12 @@ public class Sequence {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long sequenceId;
 
+    @Column(unique = true)
+    private String sequenceName;
+
+    /**
+     * The last value of the sequence. Kept under its original name for the account number sequence, which
+     * existing clients read from this field.
+     */
     private long accountNumber;
 }
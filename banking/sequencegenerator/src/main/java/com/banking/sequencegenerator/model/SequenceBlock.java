@@ -0,0 +1,19 @@
+package com.banking.sequencegenerator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A contiguous, inclusive range of numbers [start, end] leased to a single caller.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SequenceBlock {
+    private long start;
+
+    private long end;
+}
@@ -2,11 +2,39 @@ package com.banking.sequencegenerator.repository;
 
 import com.banking.sequencegenerator.model.Sequence;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
 
 public interface SequenceRepository extends JpaRepository<Sequence, Long> {
     @Query("SELECT Count(s) from Sequence s")
     int countAll();
 
     Sequence findFirstOrderBySequenceIdDesc();
+
+    boolean existsBySequenceName(String sequenceName);
+
+    /**
+     * Reads a sequence row and holds a row level write lock on it until the surrounding transaction ends,
+     * so concurrent increments are serialized by the database instead of overwriting each other.
+     *
+     * @param sequenceId the id of the sequence row
+     * @return the locked sequence, or empty if it does not exist yet
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sequence s WHERE s.sequenceId = :sequenceId")
+    Optional<Sequence> findByIdForUpdate(@Param("sequenceId") Long sequenceId);
+
+    /**
+     * Reads a named sequence row and holds a row level write lock on it until the surrounding transaction ends.
+     *
+     * @param sequenceName the name of the sequence
+     * @return the locked sequence, or empty if it does not exist yet
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sequence s WHERE s.sequenceName = :sequenceName")
+    Optional<Sequence> findBySequenceNameForUpdate(@Param("sequenceName") String sequenceName);
 }
@@ -1,7 +1,33 @@
 package com.banking.sequencegenerator.service;
 
 import com.banking.sequencegenerator.model.Sequence;
+import com.banking.sequencegenerator.model.SequenceBlock;
 
 public interface SequenceService {
     Sequence create();
+
+    /**
+     * Atomically reserves a contiguous block of account numbers.
+     *
+     * @param size the number of account numbers to reserve
+     * @return the reserved block, both ends inclusive
+     */
+    SequenceBlock createBlock(int size);
+
+    /**
+     * Generates the next value of a named sequence.
+     *
+     * @param sequenceName the name of the sequence
+     * @return the sequence carrying the generated value
+     */
+    Sequence create(String sequenceName);
+
+    /**
+     * Atomically reserves a contiguous block of values from a named sequence.
+     *
+     * @param sequenceName the name of the sequence
+     * @param size         the number of values to reserve
+     * @return the reserved block, both ends inclusive
+     */
+    SequenceBlock createBlock(String sequenceName, int size);
 }
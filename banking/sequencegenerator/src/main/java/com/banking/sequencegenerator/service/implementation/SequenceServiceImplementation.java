@@ -1,29 +1,87 @@
 package com.banking.sequencegenerator.service.implementation;
 
+import com.banking.sequencegenerator.engine.SequenceEngine;
+import com.banking.sequencegenerator.engine.SequenceRejectedException;
 import com.banking.sequencegenerator.model.Sequence;
-import com.banking.sequencegenerator.repository.SequenceRepository;
+import com.banking.sequencegenerator.model.SequenceBlock;
 import com.banking.sequencegenerator.service.SequenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.regex.Pattern;
+
+import static com.banking.sequencegenerator.engine.SequenceEngine.ACCOUNT_NUMBER;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SequenceServiceImplementation implements SequenceService {
+    private static final Pattern SEQUENCE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
 
-    private final SequenceRepository sequenceRepository;
+    private final SequenceEngine sequenceEngine;
+
+    @Value("${sequence.block.max-size}")
+    private int maxBlockSize;
 
     @Override
     public Sequence create() {
-        log.info("creating a account number");
-        return sequenceRepository.findById(1L)
-                .map(sequence -> {
-                    sequence.setAccountNumber(sequence.getAccountNumber() + 1);
-                    return sequenceRepository.save(sequence);
-                }).orElseGet(() -> sequenceRepository.save(Sequence.builder().accountNumber(1L).build()));
+        return create(ACCOUNT_NUMBER);
+    }
+
+    @Override
+    public SequenceBlock createBlock(int size) {
+        return createBlock(ACCOUNT_NUMBER, size);
+    }
+
+    @Override
+    public Sequence create(String sequenceName) {
+        validateName(sequenceName);
+        log.debug("generating the next value of {}", sequenceName);
+        try {
+            long value = sequenceEngine.allocate(sequenceName, 1);
+            return Sequence.builder()
+                    .sequenceId(sequenceEngine.sequenceId(sequenceName))
+                    .sequenceName(sequenceName)
+                    .accountNumber(value).build();
+        } catch (SequenceRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Reserves the next {@code size} consecutive values of a named sequence from the sequence engine.
+     *
+     * @param sequenceName the name of the sequence
+     * @param size         the number of values to reserve
+     * @return the reserved block
+     * @throws ResponseStatusException if the name is invalid or not registered, or the size is outside
+     *                                 1..sequence.block.max-size
+     */
+    @Override
+    public SequenceBlock createBlock(String sequenceName, int size) {
+        validateName(sequenceName);
+        if (size < 1 || size > maxBlockSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "block size must be between 1 and " + maxBlockSize);
+        }
+        log.debug("reserving a block of {} values from {}", size, sequenceName);
+        long start;
+        try {
+            start = sequenceEngine.allocate(sequenceName, size);
+        } catch (SequenceRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return SequenceBlock.builder().start(start).end(start + size - 1).build();
+    }
+
+    private void validateName(String sequenceName) {
+        if (!SEQUENCE_NAME.matcher(sequenceName).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "sequence name may only contain letters, digits, '-' and '_' (at most 64)");
+        }
     }
 }
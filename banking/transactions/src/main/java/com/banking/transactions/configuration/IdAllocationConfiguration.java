@@ -0,0 +1,28 @@
+package com.banking.transactions.configuration;
+
+import com.banking.transactions.model.entity.Transaction;
+import com.banking.transactions.utils.PooledIdAllocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class IdAllocationConfiguration {
+
+    /**
+     * Returns the allocator of transaction ids for JDBC batch inserts. It depends on the entity manager
+     * factory, so the sequence table exists before it is aligned.
+     *
+     * @return the PooledIdAllocator instance
+     */
+    @Bean(initMethod = "align")
+    public PooledIdAllocator transactionIdAllocator(JdbcTemplate jdbcTemplate,
+                                                    PlatformTransactionManager transactionManager,
+                                                    EntityManagerFactory entityManagerFactory) {
+        return new PooledIdAllocator(jdbcTemplate, transactionManager, Transaction.ID_SEQUENCE, "transaction",
+                "transaction_id", Transaction.ID_ALLOCATION_SIZE);
+    }
+}
@@ -0,0 +1,29 @@
+package com.banking.transactions.configuration;
+
+import com.banking.transactions.utils.DailyRollupWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class RollupConfiguration {
+
+    /**
+     * Returns the writer of the daily rollups. It depends on the entity manager factory, so the rollup table
+     * exists before it is backfilled.
+     *
+     * @return the DailyRollupWriter instance
+     */
+    @Bean(initMethod = "backfill")
+    public DailyRollupWriter dailyRollupWriter(JdbcTemplate jdbcTemplate,
+                                               PlatformTransactionManager transactionManager,
+                                               EntityManagerFactory entityManagerFactory,
+                                               @Value("${transaction.rollup.jdbc-batch-size}") int jdbcBatchSize,
+                                               @Value("${transaction.rollup.backfill-batch-size}") int backfillBatchSize) {
+        return new DailyRollupWriter(jdbcTemplate, transactionManager, jdbcBatchSize, backfillBatchSize);
+    }
+}
@@ -1,15 +1,24 @@
 package com.banking.transactions.controller;
 
 import com.banking.transactions.model.dto.TransactionDto;
+import com.banking.transactions.model.response.BalanceRollup;
 import com.banking.transactions.model.response.Response;
+import com.banking.transactions.model.response.TransactionPage;
 import com.banking.transactions.model.response.TransactionRequest;
+import com.banking.transactions.service.IdempotencyService;
+import com.banking.transactions.service.StatementService;
 import com.banking.transactions.service.TransactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @Slf4j
@@ -18,15 +27,21 @@ import java.util.List;
 @RequestMapping("/transactions")
 public class TransactionController {
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final StatementService statementService;
     /**
-     * Add transactions to the system.
+     * Add transactions to the system. A request retried with the same Idempotency-Key is not executed again;
+     * it gets the response of the first one.
      *
      * @param transactionDto The transaction data to be added.
+     * @param idempotencyKey The optional key identifying the request across retries.
      * @return The response entity with the added transaction data.
      */
     @PostMapping
-    public ResponseEntity<Response> addTransactions(@RequestBody TransactionDto transactionDto) {
-        return new ResponseEntity<>(transactionService.addTransaction(transactionDto), HttpStatus.CREATED);
+    public ResponseEntity<Response> addTransactions(@RequestBody TransactionDto transactionDto,
+                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return new ResponseEntity<>(idempotencyService.execute(idempotencyKey, transactionDto, Response.class,
+                () -> transactionService.addTransaction(transactionDto)), HttpStatus.CREATED);
     }
     /**
      * Handles the endpoint for making internal transactions.
@@ -40,6 +55,17 @@ public class TransactionController {
         return new ResponseEntity<>(transactionService.internalTransaction(transactionDtos, transactionReference), HttpStatus.CREATED);
     }
 
+    /**
+     * Records a batch of internal postings, each carrying its own reference.
+     *
+     * @param transactionDtos The postings to record.
+     * @return The response entity containing the response.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Response> makeBatchTransactions(@RequestBody List<TransactionDto> transactionDtos) {
+        return new ResponseEntity<>(transactionService.batchTransactions(transactionDtos), HttpStatus.CREATED);
+    }
+
     /**
      * Retrieves a list of transactions for a given account ID.
      *
@@ -51,6 +77,63 @@ public class TransactionController {
         return new ResponseEntity<>(transactionService.getTransaction(accountId), HttpStatus.OK);
     }
 
+    /**
+     * Retrieves one page of the transactions of an account, newest first.
+     *
+     * @param accountId the ID of the account
+     * @param from      the oldest transaction time to include
+     * @param to        the transaction time to stop before
+     * @param cursor    the nextCursor of the previous page, absent for the first page
+     * @param limit     the page size
+     * @return the page of transactions and the cursor of the next one
+     */
+    @GetMapping("/history")
+    public ResponseEntity<TransactionPage> getTransactionPage(@RequestParam String accountId,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(transactionService.getTransactionPage(accountId, from, to, cursor, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the daily inflow, outflow and ending balance of an account over a range of days.
+     *
+     * @param accountId the ID of the account
+     * @param from      the first day, inclusive
+     * @param to        the last day, inclusive
+     * @return the totals of the range and one entry per day
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<BalanceRollup> getDailyRollups(@RequestParam String accountId,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return new ResponseEntity<>(transactionService.getDailyRollups(accountId, from, to), HttpStatus.OK);
+    }
+
+    /**
+     * Streams every transaction of an account, newest first, as newline delimited JSON.
+     *
+     * @param accountId the ID of the account
+     * @return the response body written while the rows are read
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@RequestParam String accountId) {
+        StreamingResponseBody body = outputStream -> transactionService.streamTransactions(accountId, outputStream);
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Starts generating the statements of every account for a month, resuming an interrupted run.
+     *
+     * @param month the month of the statements, as yyyy-MM
+     * @return the response telling whether the run was started, resumed or is already complete
+     */
+    @PostMapping("/statements")
+    public ResponseEntity<Response> generateStatements(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return new ResponseEntity<>(statementService.generateStatements(month), HttpStatus.ACCEPTED);
+    }
+
     /**
      * Retrieves a list of transaction requests based on the provided transaction reference ID.
      *
@@ -4,4 +4,5 @@ public class GlobalErrorCode {
 
     public static final String NOT_FOUND = "404";
     public static final String BAD_REQUEST = "400";
+    public static final String GATEWAY_TIMEOUT = "504";
 }
@@ -2,10 +2,14 @@ package com.banking.transactions.external;
 
 import com.banking.transactions.configuration.FeignClientConfiguration;
 import com.banking.transactions.model.external.Account;
+import com.banking.transactions.model.external.BalanceResponse;
+import com.banking.transactions.model.external.BalanceUpdate;
 import com.banking.transactions.model.response.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -30,4 +34,15 @@ public interface AccountService {
      */
     @PutMapping("/accounts")
     ResponseEntity<Response> updateAccount(@RequestParam String accountNumber, @RequestBody Account account);
+
+    /**
+     * Applies a signed delta to the balance of an account in a single atomic update.
+     *
+     * @param accountNumber The account number of the account to update.
+     * @param balanceUpdate The delta to apply, negative for a debit.
+     * @return The response entity containing the new available balance.
+     */
+    @PatchMapping("/accounts/{accountNumber}/balance")
+    ResponseEntity<BalanceResponse> updateBalance(@PathVariable String accountNumber,
+                                                  @RequestBody BalanceUpdate balanceUpdate);
 }
@@ -17,4 +17,9 @@ public class TransactionDto {
     private String transactionType;
     private BigDecimal amount;
     private String description;
+
+    /**
+     * Reference of the posting, only used by batch recording where every posting carries its own reference.
+     */
+    private String referenceId;
 }
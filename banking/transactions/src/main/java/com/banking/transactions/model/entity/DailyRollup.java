@@ -0,0 +1,47 @@
+package com.banking.transactions.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The totals of the transactions of an account on one day. Rows are upserted with plain JDBC in the
+ * transaction that records the transactions; the entity defines the table and is read by the rollup queries.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_daily_rollup_account_date", columnNames = {"accountId", "rollupDate"}))
+public class DailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long dailyRollupId;
+
+    @Column(nullable = false)
+    private String accountId;
+
+    @Column(nullable = false)
+    private LocalDate rollupDate;
+
+    /**
+     * The sum of the positive amounts of the day.
+     */
+    @Column(nullable = false)
+    private BigDecimal inflow;
+
+    /**
+     * The sum of the negative amounts of the day, as a positive value.
+     */
+    @Column(nullable = false)
+    private BigDecimal outflow;
+
+    @Column(nullable = false)
+    private Long transactionCount;
+}
@@ -0,0 +1,45 @@
+package com.banking.transactions.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A domain event written in the transaction of the change it describes and published later by the outbox
+ * relay. The rows are written and read with plain JDBC; the entity only defines the table.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_outbox_event_published_on", columnList = "publishedOn, outboxEventId")
+})
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long outboxEventId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false)
+    private String aggregateId;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    /**
+     * When the relay handed the event to the sink, null while it is waiting.
+     */
+    private LocalDateTime publishedOn;
+}
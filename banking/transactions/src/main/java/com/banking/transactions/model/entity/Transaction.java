@@ -17,9 +17,22 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_transaction_reference_account", columnNames = {"referenceId", "accountId"})
+}, indexes = {
+        @Index(name = "idx_transaction_account_date", columnList = "accountId, transactionDate, transactionId"),
+        @Index(name = "idx_transaction_rolled_up", columnList = "rolledUp, transactionId")
+})
 public class Transaction {
+    public static final String ID_SEQUENCE = "transaction_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Taken from a pooled sequence rather than IDENTITY, so Hibernate can batch the inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long transactionId;
 
     private String referenceId;
@@ -38,4 +51,11 @@ public class Transaction {
     private TransactionStatus status;
 
     private String comments;
+
+    /**
+     * Whether the amount is counted in the daily rollups. Rows written by versions without rollups get the
+     * column default and are folded in by the rollup backfill.
+     */
+    @Column(nullable = false, columnDefinition = "bit default 0")
+    private boolean rolledUp;
 }
@@ -0,0 +1,26 @@
+package com.banking.transactions.model.event;
+
+import com.banking.transactions.model.TransactionStatus;
+import com.banking.transactions.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransactionRecorded {
+    private String referenceId;
+
+    private String accountId;
+
+    private TransactionType transactionType;
+
+    private BigDecimal amount;
+
+    private TransactionStatus status;
+}
@@ -0,0 +1,18 @@
+package com.banking.transactions.model.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceResponse {
+    private String accountNumber;
+
+    private BigDecimal availableBalance;
+}
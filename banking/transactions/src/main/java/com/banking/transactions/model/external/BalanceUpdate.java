@@ -0,0 +1,22 @@
+package com.banking.transactions.model.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceUpdate {
+    private BigDecimal delta;
+
+    /**
+     * The reference of the transaction. The account service applies an update carrying a reference at most
+     * once per account, so a retried call does not move the balance twice.
+     */
+    private String reference;
+}
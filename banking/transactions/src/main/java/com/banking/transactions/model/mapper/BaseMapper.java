@@ -19,10 +19,10 @@ public abstract class BaseMapper<E, D> {
     }
 
     public List<E> convertToEntityList(Collection<D> dto, Object... args) {
-        return convertToEntity(dto, args).stream().toList();
+        return dto.stream().map(d -> convertToEntity(d, args)).toList();
     }
 
     public List<D> convertToDtoList(Collection<E> entity, Object... args) {
-        return convertToDto(entity, args).stream().toList();
+        return entity.stream().map(e -> convertToDto(e, args)).toList();
     }
 }
@@ -1,11 +1,15 @@
 package com.banking.transactions.model.mapper;
 
-import org.springframework.beans.BeanUtils;
 import com.banking.transactions.model.dto.TransactionDto;
 import com.banking.transactions.model.entity.Transaction;
+import com.banking.transactions.model.response.TransactionRequest;
 
 import java.util.Objects;
 
+/**
+ * Maps transactions field by field. The history endpoints map every row they return, so the copies are
+ * written out instead of going through reflective property lookups.
+ */
 public class TransactionMapper extends BaseMapper<Transaction, TransactionDto> {
 
     @Override
@@ -13,7 +17,9 @@ public class TransactionMapper extends BaseMapper<Transaction, TransactionDto> {
 
         Transaction transaction = new Transaction();
         if(!Objects.isNull(dto)){
-            BeanUtils.copyProperties(dto, transaction);
+            transaction.setReferenceId(dto.getReferenceId());
+            transaction.setAccountId(dto.getAccountId());
+            transaction.setAmount(dto.getAmount());
         }
         return transaction;
     }
@@ -23,7 +29,30 @@ public class TransactionMapper extends BaseMapper<Transaction, TransactionDto> {
 
         TransactionDto transactionDto = new TransactionDto();
         if(!Objects.isNull(entity)) {
-            BeanUtils.copyProperties(entity, transactionDto);
+            transactionDto.setReferenceId(entity.getReferenceId());
+            transactionDto.setAccountId(entity.getAccountId());
+            transactionDto.setAmount(entity.getAmount());
         }
-        return transactionDto;    }
+        return transactionDto;
+    }
+
+    /**
+     * Converts a transaction to the view returned by the history endpoints.
+     *
+     * @param entity the transaction to convert
+     * @return the transaction view
+     */
+    public TransactionRequest convertToRequest(Transaction entity) {
+        TransactionRequest transactionRequest = new TransactionRequest();
+        if(!Objects.isNull(entity)) {
+            transactionRequest.setReferenceId(entity.getReferenceId());
+            transactionRequest.setAccountId(entity.getAccountId());
+            transactionRequest.setAmount(entity.getAmount());
+            transactionRequest.setComments(entity.getComments());
+            transactionRequest.setLocalDateTime(entity.getTransactionDate());
+            transactionRequest.setTransactionType(entity.getTransactionType().toString());
+            transactionRequest.setTransactionStatus(entity.getStatus().toString());
+        }
+        return transactionRequest;
+    }
 }
@@ -0,0 +1,30 @@
+package com.banking.transactions.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceRollup {
+    private String accountId;
+
+    private BigDecimal openingBalance;
+
+    private BigDecimal totalInflow;
+
+    private BigDecimal totalOutflow;
+
+    private BigDecimal closingBalance;
+
+    /**
+     * One entry per day of the range, days without transactions included.
+     */
+    private List<DailyBalance> days;
+}
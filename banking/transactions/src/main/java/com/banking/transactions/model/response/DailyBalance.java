@@ -0,0 +1,25 @@
+package com.banking.transactions.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyBalance {
+    private LocalDate date;
+
+    private BigDecimal inflow;
+
+    private BigDecimal outflow;
+
+    private BigDecimal endingBalance;
+
+    private long transactionCount;
+}
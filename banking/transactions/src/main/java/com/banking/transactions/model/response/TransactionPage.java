@@ -0,0 +1,21 @@
+package com.banking.transactions.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransactionPage {
+    private List<TransactionRequest> transactions;
+
+    /**
+     * Opaque cursor of the next page, null on the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package com.banking.transactions.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox event as handed to the sink. The event id grows with every event written, so consumers can use it
+ * to drop the duplicates an at-least-once relay may deliver.
+ */
+public record DomainEvent(Long eventId, String eventType, String aggregateId, @JsonRawValue String payload,
+                          LocalDateTime occurredOn) {
+}
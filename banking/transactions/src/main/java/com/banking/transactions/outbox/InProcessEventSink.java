@@ -0,0 +1,27 @@
+package com.banking.transactions.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes events as Spring application events, so listeners inside this service receive them with
+ * {@code @EventListener(DomainEvent.class)}. Listeners run on the relay thread; a failing listener makes the
+ * batch be published again.
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.outbox.sink", havingValue = "in-process")
+public class InProcessEventSink implements EventSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public InProcessEventSink(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void publish(List<DomainEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
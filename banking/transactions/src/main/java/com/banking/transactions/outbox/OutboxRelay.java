@@ -0,0 +1,91 @@
+package com.banking.transactions.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Publishes outbox events to the {@link EventSink} in batches, in event id order. A batch is locked with
+ * {@code FOR UPDATE SKIP LOCKED}, handed to the sink and marked published in the same transaction, so several
+ * instances can relay side by side without publishing a batch twice; a failing sink leaves the batch for the
+ * next run. Delivery is at least once: a crash between the sink and the commit publishes the batch again.
+ * With one relaying instance events reach the sink in commit order per aggregate.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private static final String LOCK_BATCH = "SELECT outbox_event_id, event_type, aggregate_id, payload, created_on " +
+            "FROM outbox_event WHERE published_on IS NULL ORDER BY outbox_event_id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String MARK_PUBLISHED = "UPDATE outbox_event SET published_on = ? WHERE outbox_event_id = ?";
+    private static final String PURGE_PUBLISHED = "DELETE FROM outbox_event WHERE published_on < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EventSink eventSink;
+
+    @Value("${transaction.outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${transaction.outbox.purge.retention-hours}")
+    private long retentionHours;
+
+    @Value("${transaction.outbox.purge.batch-size}")
+    private int purgeBatchSize;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, EventSink eventSink) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventSink = eventSink;
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.outbox.relay.interval-ms}")
+    public void relay() {
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } while (Objects.nonNull(published) && published == batchSize);
+        } catch (RuntimeException e) {
+            log.error("outbox relay failed, the events will be published on the next run", e);
+        }
+    }
+
+    /**
+     * Deletes published events once they are older than the retention, in small batches.
+     */
+    @Scheduled(fixedDelayString = "${transaction.outbox.purge.interval-ms}")
+    public void purge() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours));
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_PUBLISHED, cutoff, purgeBatchSize);
+        } while (deleted == purgeBatchSize);
+    }
+
+    private int relayBatch() {
+        List<DomainEvent> events = jdbcTemplate.query(LOCK_BATCH, (resultSet, rowNum) -> new DomainEvent(
+                resultSet.getLong("outbox_event_id"),
+                resultSet.getString("event_type"),
+                resultSet.getString("aggregate_id"),
+                resultSet.getString("payload"),
+                resultSet.getTimestamp("created_on").toLocalDateTime()), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        eventSink.publish(events);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(MARK_PUBLISHED, events.stream()
+                .map(event -> new Object[]{now, event.eventId()})
+                .toList());
+        return events.size();
+    }
+}
@@ -0,0 +1,37 @@
+package com.banking.transactions.repository;
+
+import com.banking.transactions.model.entity.DailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, Long> {
+    /**
+     * Reads the rollups of an account in a range of days, oldest first. Days without transactions have no row.
+     *
+     * @param accountId the ID of the account
+     * @param from      the first day, inclusive
+     * @param to        the last day, inclusive
+     * @return the rollups of the range
+     */
+    @Query("SELECT r FROM DailyRollup r WHERE r.accountId = :accountId AND r.rollupDate BETWEEN :from AND :to " +
+            "ORDER BY r.rollupDate")
+    List<DailyRollup> findRange(@Param("accountId") String accountId,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to);
+
+    /**
+     * Computes the balance of an account at the start of a day from the rollups of the days before it.
+     *
+     * @param accountId the ID of the account
+     * @param before    the day
+     * @return the balance, zero when the account has no earlier rollup
+     */
+    @Query("SELECT COALESCE(SUM(r.inflow - r.outflow), 0) FROM DailyRollup r " +
+            "WHERE r.accountId = :accountId AND r.rollupDate < :before")
+    BigDecimal sumNetBefore(@Param("accountId") String accountId, @Param("before") LocalDate before);
+}
@@ -0,0 +1,47 @@
+package com.banking.transactions.repository;
+
+import com.banking.transactions.model.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    /**
+     * Finds the record stored for an idempotency key.
+     *
+     * @param idempotencyKey the key sent by the client
+     * @return an optional idempotency record
+     */
+    Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Deletes a record only if it expired, so a record renewed in the meantime is kept.
+     *
+     * @param idempotencyRecordId the record id
+     * @param now                 the current instant
+     * @return 1 if the record was deleted, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyRecordId = :idempotencyRecordId AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("idempotencyRecordId") Long idempotencyRecordId, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes at most {@code limit} expired records, walking the expiry index, so a purge never holds locks
+     * on a large range at once.
+     *
+     * @param now   the current instant
+     * @param limit the maximum number of records to delete
+     * @return the number of records deleted
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_record WHERE expires_at < :now ORDER BY expires_at LIMIT :limit",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -1,9 +1,19 @@
 package com.banking.transactions.repository;
 
 import com.banking.transactions.model.entity.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     /**
@@ -20,4 +30,85 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      * @return The list of transactions that match the reference ID.
      */
     List<Transaction> findTransactionByReferenceId(String referenceId);
+
+    /**
+     * Checks whether any transaction was recorded with the given reference ID.
+     *
+     * @param referenceId The reference ID to look for.
+     * @return true if a transaction with the reference ID exists.
+     */
+    boolean existsByReferenceId(String referenceId);
+
+    /**
+     * Returns which of the given reference IDs already have transactions recorded.
+     *
+     * @param referenceIds The reference IDs to check.
+     * @return The reference IDs that are already recorded.
+     */
+    @Query("SELECT DISTINCT t.referenceId FROM Transaction t WHERE t.referenceId IN :referenceIds")
+    List<String> findRecordedReferenceIds(@Param("referenceIds") Collection<String> referenceIds);
+
+    /**
+     * Reads one page of the transactions of an account, newest first. The page starts strictly before the
+     * cursor (transactionDate, transactionId), so rows sharing a timestamp are neither skipped nor repeated, and
+     * is a range scan of idx_transaction_account_date.
+     *
+     * @param accountId  the ID of the account
+     * @param since      the oldest transactionDate to include
+     * @param beforeDate the transactionDate of the cursor
+     * @param beforeId   the id of the cursor; with 0 the page starts strictly before beforeDate
+     * @param pageable   the page size
+     * @return the transactions of the page
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.transactionDate >= :since " +
+            "AND (t.transactionDate < :beforeDate OR (t.transactionDate = :beforeDate AND t.transactionId < :beforeId)) " +
+            "ORDER BY t.transactionDate DESC, t.transactionId DESC")
+    List<Transaction> findPage(@Param("accountId") String accountId,
+                               @Param("since") LocalDateTime since,
+                               @Param("beforeDate") LocalDateTime beforeDate,
+                               @Param("beforeId") Long beforeId,
+                               Pageable pageable);
+
+    /**
+     * Streams every transaction of an account, newest first. Rows are fetched from a server side cursor in
+     * chunks of the fetch size (the datasource URL sets useCursorFetch), so the result is never held in memory;
+     * the stream must be consumed and closed inside a transaction.
+     *
+     * @param accountId the ID of the account
+     * @return the stream of transactions
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId ORDER BY t.transactionDate DESC, t.transactionId DESC")
+    Stream<Transaction> streamByAccountId(@Param("accountId") String accountId);
+
+    /**
+     * Lists the accounts that have any transaction before a point in time, in account order, starting after
+     * an account. Used to walk every account with a statement page by page.
+     *
+     * @param after    the account to start after; an empty string starts from the first account
+     * @param before   the end of the statement period
+     * @param pageable the page size
+     * @return the account IDs of the page
+     */
+    @Query("SELECT DISTINCT t.accountId FROM Transaction t WHERE t.accountId > :after AND t.transactionDate < :before " +
+            "ORDER BY t.accountId")
+    List<String> findStatementAccountIds(@Param("after") String after,
+                                         @Param("before") LocalDateTime before,
+                                         Pageable pageable);
+
+    /**
+     * Streams the transactions of an account in a period, oldest first, from a server side cursor. The
+     * stream must be consumed and closed inside a transaction.
+     *
+     * @param accountId the ID of the account
+     * @param from      the start of the period, inclusive
+     * @param to        the end of the period, exclusive
+     * @return the stream of transactions
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.transactionDate >= :from " +
+            "AND t.transactionDate < :to ORDER BY t.transactionDate, t.transactionId")
+    Stream<Transaction> streamStatement(@Param("accountId") String accountId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,15 @@
+package com.banking.transactions.service;
+
+import com.banking.transactions.model.response.Response;
+
+import java.time.YearMonth;
+
+public interface StatementService {
+    /**
+     * Starts generating the statements of every account for a month, resuming a run that was interrupted.
+     *
+     * @param month The month of the statements.
+     * @return The response telling whether the run was started, resumed or is already complete.
+     */
+    Response generateStatements(YearMonth month);
+}
@@ -1,9 +1,15 @@
 package com.banking.transactions.service;
 
 import com.banking.transactions.model.dto.TransactionDto;
+import com.banking.transactions.model.response.BalanceRollup;
 import com.banking.transactions.model.response.Response;
+import com.banking.transactions.model.response.TransactionPage;
 import com.banking.transactions.model.response.TransactionRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TransactionService {
@@ -23,6 +29,14 @@ public interface TransactionService {
      */
     Response internalTransaction(List<TransactionDto> transactionDtos, String transactionReference);
 
+    /**
+     * Records a batch of internal postings, each with its own reference.
+     *
+     * @param transactionDtos The postings to record.
+     * @return The response of the batch.
+     */
+    Response batchTransactions(List<TransactionDto> transactionDtos);
+
     /**
      * Retrieves a list of transaction requests for a given account ID.
      *
@@ -30,6 +44,37 @@ public interface TransactionService {
      * @return a list of transaction requests
      */
     List<TransactionRequest> getTransaction(String accountId);
+
+    /**
+     * Retrieves one page of the transactions of an account, newest first.
+     *
+     * @param accountId the ID of the account
+     * @param from      the oldest transaction time to include, or null
+     * @param to        the transaction time to stop before, or null
+     * @param cursor    the cursor of the previous page, or null for the first page
+     * @param limit     the page size, or null for the default
+     * @return the page and the cursor of the next one
+     */
+    TransactionPage getTransactionPage(String accountId, LocalDateTime from, LocalDateTime to, String cursor, Integer limit);
+
+    /**
+     * Reports the inflow, outflow and ending balance of an account for each day of a range.
+     *
+     * @param accountId the ID of the account
+     * @param from      the first day, inclusive
+     * @param to        the last day, inclusive
+     * @return the totals of the range and one entry per day
+     */
+    BalanceRollup getDailyRollups(String accountId, LocalDate from, LocalDate to);
+
+    /**
+     * Writes every transaction of an account, newest first, as one JSON document per line.
+     *
+     * @param accountId    the ID of the account
+     * @param outputStream the stream to write to
+     * @throws IOException if writing fails
+     */
+    void streamTransactions(String accountId, OutputStream outputStream) throws IOException;
     /**
      * Retrieves a list of transaction requests by transaction reference.
      *
@@ -0,0 +1,51 @@
+package com.banking.transactions.service.implementation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of a statement run: every account up to lastAccountId has its statement written. Stored next to the
+ * statements and replaced atomically, so a run can always resume from the last stored checkpoint.
+ */
+record StatementCheckpoint(String lastAccountId, long accounts, boolean completed) {
+    private static final String FILE_NAME = "checkpoint.properties";
+
+    static StatementCheckpoint load(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return new StatementCheckpoint("", 0L, false);
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return new StatementCheckpoint(properties.getProperty("last-account-id", ""),
+                Long.parseLong(properties.getProperty("accounts", "0")),
+                Boolean.parseBoolean(properties.getProperty("completed", "false")));
+    }
+
+    StatementCheckpoint advance(String accountId, int count) {
+        return new StatementCheckpoint(accountId, accounts + count, false);
+    }
+
+    StatementCheckpoint complete() {
+        return new StatementCheckpoint(lastAccountId, accounts, true);
+    }
+
+    void store(Path directory) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("last-account-id", lastAccountId);
+        properties.setProperty("accounts", Long.toString(accounts));
+        properties.setProperty("completed", Boolean.toString(completed));
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, directory.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
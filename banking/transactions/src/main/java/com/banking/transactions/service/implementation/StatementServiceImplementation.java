@@ -0,0 +1,224 @@
+package com.banking.transactions.service.implementation;
+
+import com.banking.transactions.exception.GlobalErrorCode;
+import com.banking.transactions.exception.GlobalException;
+import com.banking.transactions.model.entity.Transaction;
+import com.banking.transactions.model.response.Response;
+import com.banking.transactions.repository.DailyRollupRepository;
+import com.banking.transactions.repository.TransactionRepository;
+import com.banking.transactions.service.StatementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Generates monthly account statements as CSV files. Accounts are walked page by page in account order; each
+ * page is split across a fork-join pool and every part of it is written to its own file, one account at a time
+ * from a database cursor, so neither a page nor a month of transactions is ever held in memory. A checkpoint is
+ * stored after each page, and a run started again for the same month resumes after the last stored page.
+ */
+@Slf4j
+@Service
+public class StatementServiceImplementation implements StatementService {
+    private static final String HEADER = "account_id,entry,date,reference_id,transaction_type,amount,balance,comments";
+
+    private final TransactionRepository transactionRepository;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path statementDirectory;
+    private final int pageSize;
+    private final int leafSize;
+    private final ForkJoinPool pool;
+    private final ExecutorService driver = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statement-driver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<YearMonth> running = new AtomicReference<>();
+    @Value("${spring.application.ok}")
+    private String ok;
+
+    public StatementServiceImplementation(TransactionRepository transactionRepository,
+                                          DailyRollupRepository dailyRollupRepository,
+                                          EntityManager entityManager,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${transaction.statement.directory}") String statementDirectory,
+                                          @Value("${transaction.statement.parallelism}") int parallelism,
+                                          @Value("${transaction.statement.page-size}") int pageSize,
+                                          @Value("${transaction.statement.leaf-size}") int leafSize) {
+        this.transactionRepository = transactionRepository;
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.statementDirectory = Paths.get(statementDirectory);
+        this.pageSize = pageSize;
+        this.leafSize = leafSize;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Starts the statement run of a month in the background. Only one run is active at a time.
+     *
+     * @param month the month of the statements
+     * @return the response telling whether the run was started, resumed or is already complete
+     * @throws GlobalException if the month has not ended yet or another run is active
+     */
+    @Override
+    public Response generateStatements(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Statements can only be generated for a past month");
+        }
+        Path directory = statementDirectory.resolve(month.toString());
+        StatementCheckpoint checkpoint;
+        try {
+            Files.createDirectories(directory);
+            checkpoint = StatementCheckpoint.load(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the statement checkpoint of " + month, e);
+        }
+        if (checkpoint.completed()) {
+            return Response.builder().responseCode(ok)
+                    .message("Statements of " + month + " are already generated for " + checkpoint.accounts() + " accounts").build();
+        }
+        if (!running.compareAndSet(null, month)) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Statements of " + running.get() + " are being generated");
+        }
+        driver.execute(() -> {
+            try {
+                run(month, directory, checkpoint);
+            } catch (RuntimeException | IOException e) {
+                log.error("statement run of {} stopped, it resumes from its checkpoint when started again", month, e);
+            } finally {
+                running.set(null);
+            }
+        });
+        String message = checkpoint.accounts() == 0
+                ? "Statement generation of " + month + " started"
+                : "Statement generation of " + month + " resumed after " + checkpoint.accounts() + " accounts";
+        return Response.builder().responseCode(ok).message(message).build();
+    }
+
+    private void run(YearMonth month, Path directory, StatementCheckpoint checkpoint) throws IOException {
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        long started = System.nanoTime();
+        while (true) {
+            List<String> accountIds = transactionRepository.findStatementAccountIds(checkpoint.lastAccountId(), end,
+                    PageRequest.of(0, pageSize));
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            pool.invoke(new StatementTask(this, directory, month, accountIds, leafSize));
+            checkpoint = checkpoint.advance(accountIds.get(accountIds.size() - 1), accountIds.size());
+            checkpoint.store(directory);
+            log.info("statements of {} written for {} accounts", month, checkpoint.accounts());
+        }
+        checkpoint.complete().store(directory);
+        log.info("statement run of {} completed for {} accounts in {} s", month, checkpoint.accounts(),
+                (System.nanoTime() - started) / 1_000_000_000L);
+    }
+
+    /**
+     * Writes the statements of a part of a page to one file. The file is written under a temporary name and
+     * moved into place, so a part interrupted by a crash leaves no truncated statement behind and is simply
+     * written again on resume.
+     */
+    void writePart(Path directory, YearMonth month, List<String> accountIds) {
+        Path file = directory.resolve("statement-" + accountIds.get(0) + ".csv");
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (String accountId : accountIds) {
+                    readOnlyTransaction.executeWithoutResult(status -> writeStatement(writer, accountId, start, end));
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + file, e);
+        }
+    }
+
+    private void writeStatement(Writer writer, String accountId, LocalDateTime start, LocalDateTime end) {
+        BigDecimal balance = dailyRollupRepository.sumNetBefore(accountId, start.toLocalDate());
+        try {
+            writeLine(writer, accountId, "OPENING", start, null, null, null, balance, null);
+            try (Stream<Transaction> transactions = transactionRepository.streamStatement(accountId, start, end)) {
+                for (Transaction transaction : (Iterable<Transaction>) transactions::iterator) {
+                    balance = balance.add(transaction.getAmount());
+                    writeLine(writer, accountId, "TRANSACTION", transaction.getTransactionDate(),
+                            transaction.getReferenceId(), transaction.getTransactionType().name(),
+                            transaction.getAmount(), balance, transaction.getComments());
+                    entityManager.detach(transaction);
+                }
+            }
+            writeLine(writer, accountId, "CLOSING", end, null, null, null, balance, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLine(Writer writer, String accountId, String entry, LocalDateTime date, String referenceId,
+                                  String transactionType, BigDecimal amount, BigDecimal balance, String comments) throws IOException {
+        writer.write(csv(accountId));
+        writer.write(',');
+        writer.write(entry);
+        writer.write(',');
+        writer.write(date.toString());
+        writer.write(',');
+        writer.write(csv(referenceId));
+        writer.write(',');
+        writer.write(csv(transactionType));
+        writer.write(',');
+        writer.write(Objects.isNull(amount) ? "" : amount.toPlainString());
+        writer.write(',');
+        writer.write(balance.toPlainString());
+        writer.write(',');
+        writer.write(csv(comments));
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        if (Objects.isNull(value)) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        driver.shutdownNow();
+        pool.shutdownNow();
+    }
+}
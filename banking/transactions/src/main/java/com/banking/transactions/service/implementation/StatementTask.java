@@ -0,0 +1,38 @@
+package com.banking.transactions.service.implementation;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Writes the statements of a page of accounts, splitting the page in halves until a part is small enough to be
+ * written to one file by one worker.
+ */
+class StatementTask extends RecursiveAction {
+    private final StatementServiceImplementation statementService;
+    private final Path directory;
+    private final YearMonth month;
+    private final List<String> accountIds;
+    private final int leafSize;
+
+    StatementTask(StatementServiceImplementation statementService, Path directory, YearMonth month,
+                  List<String> accountIds, int leafSize) {
+        this.statementService = statementService;
+        this.directory = directory;
+        this.month = month;
+        this.accountIds = accountIds;
+        this.leafSize = leafSize;
+    }
+
+    @Override
+    protected void compute() {
+        if (accountIds.size() <= leafSize) {
+            statementService.writePart(directory, month, accountIds);
+            return;
+        }
+        int middle = accountIds.size() / 2;
+        invokeAll(new StatementTask(statementService, directory, month, accountIds.subList(0, middle), leafSize),
+                new StatementTask(statementService, directory, month, accountIds.subList(middle, accountIds.size()), leafSize));
+    }
+}
@@ -2,30 +2,63 @@ package com.banking.transactions.service.implementation;
 
 import com.banking.transactions.exception.AccountStatusException;
 import com.banking.transactions.exception.GlobalErrorCode;
+import com.banking.transactions.exception.GlobalException;
 import com.banking.transactions.exception.InsufficientBalance;
 import com.banking.transactions.exception.ResourceNotFound;
 import com.banking.transactions.external.AccountService;
 import com.banking.transactions.model.TransactionStatus;
 import com.banking.transactions.model.TransactionType;
 import com.banking.transactions.model.dto.TransactionDto;
+import com.banking.transactions.model.entity.DailyRollup;
 import com.banking.transactions.model.entity.Transaction;
+import com.banking.transactions.model.event.TransactionRecorded;
 import com.banking.transactions.model.external.Account;
+import com.banking.transactions.model.external.BalanceUpdate;
 import com.banking.transactions.model.mapper.TransactionMapper;
+import com.banking.transactions.model.response.BalanceRollup;
+import com.banking.transactions.model.response.DailyBalance;
 import com.banking.transactions.model.response.Response;
+import com.banking.transactions.model.response.TransactionPage;
 import com.banking.transactions.model.response.TransactionRequest;
+import com.banking.transactions.outbox.OutboxWriter;
+import com.banking.transactions.repository.DailyRollupRepository;
 import com.banking.transactions.repository.TransactionRepository;
 import com.banking.transactions.service.TransactionService;
+import com.banking.transactions.utils.DailyRollupWriter;
+import com.banking.transactions.utils.PooledIdAllocator;
+import com.banking.transactions.utils.SnowflakeIdGenerator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -33,12 +66,43 @@ import java.util.stream.Collectors;
 public class TransactionServiceImplementation implements TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountService accountService;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxWriter outboxWriter;
+    private final PooledIdAllocator transactionIdAllocator;
+    private final DailyRollupWriter dailyRollupWriter;
+    private final DailyRollupRepository dailyRollupRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
     private final TransactionMapper transactionMapper = new TransactionMapper();
     @Value("${spring.application.ok}")
     private String ok;
+    @Value("${transaction.batch.max-items}")
+    private int batchMaxItems;
+    @Value("${transaction.batch.jdbc-batch-size}")
+    private int jdbcBatchSize;
+    @Value("${transaction.history.default-limit}")
+    private int historyDefaultLimit;
+    @Value("${transaction.history.max-limit}")
+    private int historyMaxLimit;
+    @Value("${transaction.history.stream-flush-rows}")
+    private int streamFlushRows;
+    @Value("${transaction.rollup.max-days}")
+    private int rollupMaxDays;
+
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final int BATCH_ATTEMPTS = 3;
+
+    private static final String INSERT_TRANSACTION = "INSERT INTO transaction (transaction_id, reference_id, " +
+            "account_id, transaction_type, amount, transaction_date, status, rolled_up) VALUES (?, ?, ?, ?, ?, ?, ?, TRUE)";
 
     /**
-     * Adds a transaction based on the provided TransactionDto.
+     * Adds a transaction based on the provided TransactionDto. The balance is changed through a single atomic
+     * delta update on the account service; withdrawals read the account first to check its status. The reference
+     * is generated before the balance moves and sent with the update, so a retried update is applied once.
      *
      * @param transactionDto the TransactionDto object containing the transaction details
      * @return a Response object indicating the success of the transaction
@@ -48,42 +112,62 @@ public class TransactionServiceImplementation implements TransactionService {
      */
     @Override
     public Response addTransaction(TransactionDto transactionDto) {
-        ResponseEntity<Account> response = this.accountService.readByAccountNumber(transactionDto.getAccountId());
-        if (Objects.isNull(response.getBody())) {
-            throw new ResourceNotFound("Requested account not found on the server", GlobalErrorCode.NOT_FOUND);
-        }
-        Account account = response.getBody();
         Transaction transaction = transactionMapper.convertToEntity(transactionDto);
-        if (transactionDto.getTransactionType().equals(TransactionType.DEPOSIT.toString())) {
-            account.setAvailableBalance(account.getAvailableBalance().add(transactionDto.getAmount()));
-        } else if (transactionDto.getTransactionType().equals(TransactionType.WITHDRAWAL.toString())) {
-            if (!account.getAccountStatus().equals("ACTIVE")) {
+        BigDecimal delta = transactionDto.getAmount();
+        if (transactionDto.getTransactionType().equals(TransactionType.WITHDRAWAL.toString())) {
+            ResponseEntity<Account> response = this.accountService.readByAccountNumber(transactionDto.getAccountId());
+            if (Objects.isNull(response.getBody())) {
+                throw new ResourceNotFound("Requested account not found on the server", GlobalErrorCode.NOT_FOUND);
+            }
+            if (!response.getBody().getAccountStatus().equals("ACTIVE")) {
                 log.error("account is either inactive/closed, cannot process the transaction");
                 throw new AccountStatusException("account is inactive or closed");
             }
-            if (account.getAvailableBalance().compareTo(transactionDto.getAmount()) < 0) {
-                log.error("insufficient balance in the account");
-                throw new InsufficientBalance("Insufficient balance in the account");
-            }
-            transaction.setAmount(transactionDto.getAmount().negate());
-            account.setAvailableBalance(account.getAvailableBalance().subtract(transactionDto.getAmount()));
+            delta = transactionDto.getAmount().negate();
+            transaction.setAmount(delta);
         }
-        transaction.setReferenceId(UUID.randomUUID().toString());
+        transaction.setReferenceId(snowflakeIdGenerator.nextReference());
+        accountService.updateBalance(transactionDto.getAccountId(), BalanceUpdate.builder()
+                .delta(delta)
+                .reference(transaction.getReferenceId())
+                .build());
         transaction.setTransactionType(TransactionType.valueOf(transactionDto.getTransactionType()));
         transaction.setStatus(TransactionStatus.COMPLETED);
-        accountService.updateAccount(transactionDto.getAccountId(), account);
-        transactionRepository.save(transaction);
+        transaction.setRolledUp(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.save(transaction);
+            dailyRollupWriter.add(transaction.getAccountId(), transactionDay(transaction), transaction.getAmount());
+            outboxWriter.append(transaction.getReferenceId(), transactionRecorded(transaction));
+        });
         return Response.builder().responseCode(ok).message("Transaction Completed Successfully").build();
     }
     /**
      * Completes the internal transaction by updating the status of each transaction
-     * and saving them to the transaction repository.
+     * and saving them to the transaction repository. Postings are recorded once per reference, so a
+     * retried call is acknowledged without recording them again; a concurrent retry that loses the race on
+     * uk_transaction_reference_account rolls back with its rollups and is acknowledged the same way.
      *
      * @param transactionDtos the list of transaction DTOs to be processed
      * @return a response indicating the completion of the transaction
      */
     @Override
     public Response internalTransaction(List<TransactionDto> transactionDtos, String transactionReference) {
+        if (transactionRepository.existsByReferenceId(transactionReference)) {
+            log.info("transactions for reference {} are already recorded", transactionReference);
+            return Response.builder().responseCode(ok).message("Transaction Completed Successfully").build();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> recordInternal(transactionDtos, transactionReference));
+        } catch (DataIntegrityViolationException e) {
+            if (!transactionRepository.existsByReferenceId(transactionReference)) {
+                throw e;
+            }
+            log.info("transactions for reference {} were recorded concurrently", transactionReference);
+        }
+        return Response.builder().responseCode(ok).message("Transaction Completed Successfully").build();
+    }
+
+    private void recordInternal(List<TransactionDto> transactionDtos, String transactionReference) {
         // Convert the list of transaction DTOs to entities
         List<Transaction> transactions = transactionMapper.convertToEntityList(transactionDtos);
 
@@ -92,11 +176,88 @@ public class TransactionServiceImplementation implements TransactionService {
             transaction.setTransactionType(TransactionType.INTERNAL_TRANSFER);
             transaction.setStatus(TransactionStatus.COMPLETED);
             transaction.setReferenceId(transactionReference);
+            transaction.setRolledUp(true);
         });
 
-        transactionRepository.saveAll(transactions);
-        return Response.builder().responseCode(ok).message("Transaction Completed Successfully").build();
+        // flushed before the rollups, so a duplicate fails here rather than at commit
+        transactionRepository.saveAllAndFlush(transactions);
+        dailyRollupWriter.addAll(transactions, Transaction::getAccountId, TransactionServiceImplementation::transactionDay,
+                Transaction::getAmount);
+        outboxWriter.appendAll(transactions.stream().map(TransactionServiceImplementation::transactionRecorded).toList(),
+                TransactionRecorded::getReferenceId);
     }
+    /**
+     * Records many internal postings, each carrying its own reference, with JDBC batch inserts in one
+     * transaction. References that are already recorded are skipped, so a retried batch records nothing twice.
+     * When a concurrent call records one of the references first, uk_transaction_reference_account rejects the
+     * insert, the transaction rolls back with its rollups and the batch is tried again without that reference.
+     *
+     * @param transactionDtos the postings to record
+     * @return a response indicating the completion of the batch
+     * @throws GlobalException if a posting has no reference or the batch is too large
+     */
+    @Override
+    public Response batchTransactions(List<TransactionDto> transactionDtos) {
+        if (transactionDtos.size() > batchMaxItems) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST,
+                    "At most " + batchMaxItems + " transactions can be recorded in one batch");
+        }
+        if (transactionDtos.stream().anyMatch(transactionDto -> Objects.isNull(transactionDto.getReferenceId()))) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Every transaction of a batch needs a reference");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> recordBatch(transactionDtos));
+                return Response.builder().responseCode(ok).message("Transactions Completed Successfully").build();
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("a reference of the batch was recorded concurrently, recording the rest again");
+            }
+        }
+    }
+
+    private void recordBatch(List<TransactionDto> transactionDtos) {
+        List<String> referenceIds = transactionDtos.stream().map(TransactionDto::getReferenceId).distinct().toList();
+        Set<String> recorded = new HashSet<>();
+        for (int from = 0; from < referenceIds.size(); from += jdbcBatchSize) {
+            recorded.addAll(transactionRepository.findRecordedReferenceIds(
+                    referenceIds.subList(from, Math.min(from + jdbcBatchSize, referenceIds.size()))));
+        }
+        long started = System.nanoTime();
+        List<TransactionDto> toRecord = transactionDtos.stream()
+                .filter(transactionDto -> !recorded.contains(transactionDto.getReferenceId()))
+                .toList();
+        if (!toRecord.isEmpty()) {
+            long nextId = transactionIdAllocator.allocate(toRecord.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>(toRecord.size());
+            for (TransactionDto transactionDto : toRecord) {
+                rows.add(new Object[]{nextId++, transactionDto.getReferenceId(), transactionDto.getAccountId(),
+                        TransactionType.INTERNAL_TRANSFER.name(), transactionDto.getAmount(), now,
+                        TransactionStatus.COMPLETED.name()});
+            }
+            for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+                jdbcTemplate.batchUpdate(INSERT_TRANSACTION, rows.subList(from, Math.min(from + jdbcBatchSize, rows.size())));
+            }
+            LocalDate today = now.toLocalDateTime().toLocalDate();
+            dailyRollupWriter.addAll(toRecord, TransactionDto::getAccountId, ignored -> today, TransactionDto::getAmount);
+        }
+        outboxWriter.appendAll(toRecord.stream()
+                .map(transactionDto -> TransactionRecorded.builder()
+                        .referenceId(transactionDto.getReferenceId())
+                        .accountId(transactionDto.getAccountId())
+                        .transactionType(TransactionType.INTERNAL_TRANSFER)
+                        .amount(transactionDto.getAmount())
+                        .status(TransactionStatus.COMPLETED)
+                        .build())
+                .toList(), TransactionRecorded::getReferenceId);
+        long elapsedMicros = Math.max(1, (System.nanoTime() - started) / 1000);
+        log.info("recorded {} transactions in a batch in {} ms ({} rows/s), {} references were already recorded",
+                toRecord.size(), elapsedMicros / 1000, toRecord.size() * 1_000_000L / elapsedMicros, recorded.size());
+    }
+
     /**
      * Retrieves a list of transaction requests for a given account ID.
      *
@@ -106,14 +267,121 @@ public class TransactionServiceImplementation implements TransactionService {
     @Override
     public List<TransactionRequest> getTransaction(String accountId) {
         return transactionRepository.findTransactionByAccountId(accountId)
-                .stream().map(transaction -> {
-                    TransactionRequest transactionRequest = new TransactionRequest();
-                    BeanUtils.copyProperties(transaction, transactionRequest);
-                    transactionRequest.setTransactionStatus(transaction.getStatus().toString());
-                    transactionRequest.setLocalDateTime(transaction.getTransactionDate());
-                    transactionRequest.setTransactionType(transaction.getTransactionType().toString());
-                    return transactionRequest;
-                }).collect(Collectors.toList());
+                .stream().map(transactionMapper::convertToRequest).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads one page of the transactions of an account with a keyset cursor, so each page is a single range
+     * scan of idx_transaction_account_date however deep into the history it is.
+     *
+     * @param accountId the ID of the account
+     * @param from      the oldest transaction time to include, or null
+     * @param to        the transaction time to stop before, or null
+     * @param cursor    the cursor of the previous page, or null for the first page
+     * @param limit     the page size, capped by transaction.history.max-limit
+     * @return the page and the cursor of the next one, null on the last page
+     * @throws GlobalException if the cursor is not one returned by this endpoint
+     */
+    @Override
+    public TransactionPage getTransactionPage(String accountId, LocalDateTime from, LocalDateTime to, String cursor, Integer limit) {
+        int pageSize = Objects.isNull(limit) || limit <= 0 ? historyDefaultLimit : Math.min(limit, historyMaxLimit);
+        LocalDateTime since = Objects.isNull(from) ? HISTORY_START : from;
+        LocalDateTime beforeDate = Objects.isNull(to) ? HISTORY_END : to;
+        long beforeId = 0L;
+        if (Objects.nonNull(cursor)) {
+            String[] position = decodeCursor(cursor);
+            beforeDate = LocalDateTime.parse(position[0]);
+            beforeId = Long.parseLong(position[1]);
+        }
+        List<Transaction> transactions = transactionRepository.findPage(accountId, since, beforeDate, beforeId,
+                PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            Transaction last = transactions.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getTransactionDate(), last.getTransactionId());
+        }
+        return TransactionPage.builder()
+                .transactions(transactions.stream().map(transactionMapper::convertToRequest).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Reports the inflow, outflow and ending balance of an account for each day of a range from the daily
+     * rollups, so the cost depends on the number of days rather than the number of transactions.
+     *
+     * @param accountId the ID of the account
+     * @param from      the first day, inclusive
+     * @param to        the last day, inclusive
+     * @return the totals of the range and one entry per day
+     * @throws GlobalException if the range is reversed or longer than transaction.rollup.max-days
+     */
+    @Override
+    public BalanceRollup getDailyRollups(String accountId, LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days <= 0 || days > rollupMaxDays) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST,
+                    "The range must cover between 1 and " + rollupMaxDays + " days");
+        }
+        Map<LocalDate, DailyRollup> rollups = dailyRollupRepository.findRange(accountId, from, to).stream()
+                .collect(Collectors.toMap(DailyRollup::getRollupDate, Function.identity()));
+        BigDecimal openingBalance = dailyRollupRepository.sumNetBefore(accountId, from);
+        BigDecimal balance = openingBalance;
+        BigDecimal totalInflow = BigDecimal.ZERO;
+        BigDecimal totalOutflow = BigDecimal.ZERO;
+        List<DailyBalance> dailyBalances = new ArrayList<>((int) days);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailyRollup rollup = rollups.get(day);
+            BigDecimal inflow = Objects.isNull(rollup) ? BigDecimal.ZERO : rollup.getInflow();
+            BigDecimal outflow = Objects.isNull(rollup) ? BigDecimal.ZERO : rollup.getOutflow();
+            balance = balance.add(inflow).subtract(outflow);
+            totalInflow = totalInflow.add(inflow);
+            totalOutflow = totalOutflow.add(outflow);
+            dailyBalances.add(DailyBalance.builder()
+                    .date(day)
+                    .inflow(inflow)
+                    .outflow(outflow)
+                    .endingBalance(balance)
+                    .transactionCount(Objects.isNull(rollup) ? 0L : rollup.getTransactionCount())
+                    .build());
+        }
+        return BalanceRollup.builder()
+                .accountId(accountId)
+                .openingBalance(openingBalance)
+                .totalInflow(totalInflow)
+                .totalOutflow(totalOutflow)
+                .closingBalance(balance)
+                .days(dailyBalances)
+                .build();
+    }
+
+    /**
+     * Streams the transactions of an account straight from a database cursor to the output. Each row is
+     * detached once written, so neither the result nor the persistence context grows with the history.
+     *
+     * @param accountId    the ID of the account
+     * @param outputStream the stream to write to
+     * @throws IOException if writing fails
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTransactions(String accountId, OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        int rows = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamByAccountId(accountId)) {
+            for (Transaction transaction : (Iterable<Transaction>) transactions::iterator) {
+                generator.writeObject(transactionMapper.convertToRequest(transaction));
+                generator.writeRaw('\n');
+                entityManager.detach(transaction);
+                if (++rows % streamFlushRows == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.close();
+        log.info("streamed {} transactions of account {}", rows, accountId);
     }
     /**
      * Retrieves a list of TransactionRequests based on a transaction reference.
@@ -124,13 +392,37 @@ public class TransactionServiceImplementation implements TransactionService {
     @Override
     public List<TransactionRequest> getTransactionByTransactionReference(String transactionReference) {
         return transactionRepository.findTransactionByReferenceId(transactionReference)
-                .stream().map(transaction -> {
-                    TransactionRequest transactionRequest = new TransactionRequest();
-                    BeanUtils.copyProperties(transaction, transactionRequest);
-                    transactionRequest.setTransactionStatus(transaction.getStatus().toString());
-                    transactionRequest.setLocalDateTime(transaction.getTransactionDate());
-                    transactionRequest.setTransactionType(transaction.getTransactionType().toString());
-                    return transactionRequest;
-                }).collect(Collectors.toList());
+                .stream().map(transactionMapper::convertToRequest).collect(Collectors.toList());
+    }
+
+    private static String encodeCursor(LocalDateTime transactionDate, Long transactionId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((transactionDate + "," + transactionId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new GlobalException(GlobalErrorCode.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static LocalDate transactionDay(Transaction transaction) {
+        return Objects.isNull(transaction.getTransactionDate())
+                ? LocalDate.now() : transaction.getTransactionDate().toLocalDate();
+    }
+
+    private static TransactionRecorded transactionRecorded(Transaction transaction) {
+        return TransactionRecorded.builder()
+                .referenceId(transaction.getReferenceId())
+                .accountId(transaction.getAccountId())
+                .transactionType(transaction.getTransactionType())
+                .amount(transaction.getAmount())
+                .status(transaction.getStatus())
+                .build();
     }
 }
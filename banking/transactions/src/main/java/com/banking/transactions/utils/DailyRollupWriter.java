@@ -0,0 +1,174 @@
+package com.banking.transactions.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the per-account per-day rollups in step with the transaction table. Amounts are added with an upsert in
+ * the caller's transaction, so a rollup always matches the committed transactions. The amounts of a batch are
+ * summed per account and day first, and the rows are upserted in key order so concurrent batches lock them in
+ * the same order.
+ * <p>
+ * Transactions written without a rollup, before the rollups existed or by an instance still running the old
+ * version during a rolling deploy, are folded in by {@link #backfill()} at startup and then periodically. Each
+ * transaction carries a rolled-up flag, since ids come from per-instance blocks and so do not tell old writers
+ * from new ones; a run is bounded by the highest id when it starts and holds a named lock, so instances never
+ * fold the same rows twice.
+ */
+@Slf4j
+public class DailyRollupWriter {
+    private static final String BACKFILL_LOCK = "daily_rollup_backfill";
+
+    private static final String UPSERT_ROLLUP = "INSERT INTO daily_rollup (account_id, rollup_date, inflow, outflow, " +
+            "transaction_count) VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE inflow = inflow + VALUES(inflow), " +
+            "outflow = outflow + VALUES(outflow), transaction_count = transaction_count + VALUES(transaction_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int jdbcBatchSize;
+    private final int backfillBatchSize;
+
+    public DailyRollupWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int jdbcBatchSize,
+                             int backfillBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    /**
+     * Folds the transactions that are not counted in the rollups yet into them, in batches of one short
+     * transaction each. A run stops early if another instance holds the backfill lock; the next run picks up
+     * whatever is left.
+     */
+    @Scheduled(initialDelayString = "${transaction.rollup.backfill-interval-ms}",
+            fixedDelayString = "${transaction.rollup.backfill-interval-ms}")
+    public void backfill() {
+        Long highWater = jdbcTemplate.queryForObject("SELECT MAX(transaction_id) FROM transaction", Long.class);
+        if (Objects.isNull(highWater)) {
+            return;
+        }
+        long afterId = 0L;
+        int folded = 0;
+        int batch;
+        do {
+            long from = afterId;
+            List<Object[]> rows = transactionTemplate.execute(status -> foldBatch(from, highWater));
+            if (Objects.isNull(rows)) {
+                log.info("rollup backfill is running on another instance");
+                break;
+            }
+            batch = rows.size();
+            if (batch > 0) {
+                afterId = (Long) rows.get(batch - 1)[0];
+                folded += batch;
+            }
+        } while (batch == backfillBatchSize);
+        if (folded > 0) {
+            log.info("folded {} transactions up to id {} into the daily rollups", folded, highWater);
+        }
+    }
+
+    /**
+     * Folds the next batch of transactions that are not rolled up, in the caller's transaction.
+     *
+     * @return the folded rows, or null if the backfill lock is held by another instance
+     */
+    private List<Object[]> foldBatch(long afterId, long highWater) {
+        if (!Objects.equals(jdbcTemplate.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, BACKFILL_LOCK), 1)) {
+            return null;
+        }
+        try {
+            List<Object[]> rows = jdbcTemplate.query("SELECT transaction_id, account_id, DATE(transaction_date), amount " +
+                            "FROM transaction WHERE rolled_up = 0 AND transaction_id > ? AND transaction_id <= ? " +
+                            "ORDER BY transaction_id LIMIT ? FOR UPDATE",
+                    (resultSet, rowNum) -> new Object[]{resultSet.getLong(1), resultSet.getString(2),
+                            resultSet.getDate(3), resultSet.getBigDecimal(4)},
+                    afterId, highWater, backfillBatchSize);
+            if (rows.isEmpty()) {
+                return rows;
+            }
+            addAll(rows.stream().filter(row -> Objects.nonNull(row[2]) && Objects.nonNull(row[3])).toList(),
+                    row -> (String) row[1], row -> ((Date) row[2]).toLocalDate(),
+                    row -> (BigDecimal) row[3]);
+            List<Object[]> ids = rows.stream().map(row -> new Object[]{row[0]}).toList();
+            for (int from = 0; from < ids.size(); from += jdbcBatchSize) {
+                jdbcTemplate.batchUpdate("UPDATE transaction SET rolled_up = 1 WHERE transaction_id = ?",
+                        ids.subList(from, Math.min(from + jdbcBatchSize, ids.size())));
+            }
+            return rows;
+        } finally {
+            jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BACKFILL_LOCK);
+        }
+    }
+
+    /**
+     * Adds one amount to the rollup of its account and day.
+     *
+     * @param accountId the ID of the account
+     * @param day       the day of the transaction
+     * @param amount    the signed amount
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void add(String accountId, LocalDate day, BigDecimal amount) {
+        addAll(List.of(amount), ignored -> accountId, ignored -> day, Function.identity());
+    }
+
+    /**
+     * Adds many amounts to the rollups of their accounts and days with JDBC batch upserts.
+     *
+     * @param items     the recorded items
+     * @param accountId the account of an item
+     * @param day       the day of an item
+     * @param amount    the signed amount of an item
+     * @throws IllegalStateException if no transaction is active
+     */
+    public <T> void addAll(Collection<T> items, Function<T, String> accountId, Function<T, LocalDate> day,
+                           Function<T, BigDecimal> amount) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Rollups must be updated in the transaction of the change");
+        }
+        Map<String, Map<LocalDate, Totals>> totals = new TreeMap<>();
+        for (T item : items) {
+            totals.computeIfAbsent(accountId.apply(item), ignored -> new TreeMap<>())
+                    .computeIfAbsent(day.apply(item), ignored -> new Totals())
+                    .add(amount.apply(item));
+        }
+        List<Object[]> rows = new ArrayList<>();
+        totals.forEach((account, days) -> days.forEach((date, total) ->
+                rows.add(new Object[]{account, Date.valueOf(date), total.inflow, total.outflow, total.count})));
+        for (int from = 0; from < rows.size(); from += jdbcBatchSize) {
+            jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rows.subList(from, Math.min(from + jdbcBatchSize, rows.size())));
+        }
+    }
+
+    private static final class Totals {
+        private BigDecimal inflow = BigDecimal.ZERO;
+        private BigDecimal outflow = BigDecimal.ZERO;
+        private long count;
+
+        private void add(BigDecimal amount) {
+            if (amount.signum() >= 0) {
+                inflow = inflow.add(amount);
+            } else {
+                outflow = outflow.subtract(amount);
+            }
+            count++;
+        }
+    }
+}
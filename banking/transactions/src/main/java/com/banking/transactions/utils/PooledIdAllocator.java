@@ -0,0 +1,60 @@
+package com.banking.transactions.utils;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+/**
+ * Hands out blocks of ids from the table backing a Hibernate pooled sequence, for rows inserted with plain
+ * JDBC next to rows saved through Hibernate. It follows the pooled optimizer: reading the value v and moving
+ * it on by n reserves the ids from v - allocationSize + 1, so JDBC blocks and Hibernate blocks never overlap.
+ * <p>
+ * MySQL has no sequences, so Hibernate keeps the value in a one-row table. Tables that used IDENTITY before
+ * already hold rows; {@link #align()} moves the value past them once at startup.
+ */
+public class PooledIdAllocator {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String sequenceTable;
+    private final String table;
+    private final String idColumn;
+    private final int allocationSize;
+
+    public PooledIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             String sequenceTable, String table, String idColumn, int allocationSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sequenceTable = sequenceTable;
+        this.table = table;
+        this.idColumn = idColumn;
+        this.allocationSize = allocationSize;
+    }
+
+    /**
+     * Makes sure every id handed out from now on is greater than the ids already in the table.
+     */
+    public void align() {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val, " +
+                        "(SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table + ") + ?)", allocationSize + 1));
+    }
+
+    /**
+     * Reserves a block of consecutive ids in its own short transaction, so the sequence row is not locked for
+     * the rest of the caller's transaction.
+     *
+     * @param count the number of ids
+     * @return the first id of the block; the block ends at first + count - 1
+     */
+    public long allocate(int count) {
+        Long next = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = LAST_INSERT_ID(next_val + ?)", count);
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        });
+        return Objects.requireNonNull(next) - count - allocationSize + 1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.banking.transactions.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Generates time ordered 64 bit ids without talking to any other service.
+ * <p>
+ * Layout: 41 bits of milliseconds since 2024-01-01T00:00:00Z, 10 bits of node id and a 12 bit per
+ * millisecond sequence. Ids are strictly increasing per node; when the clock steps back or more than 4096 ids
+ * are requested within a millisecond, the generator keeps counting on its own last timestamp instead of waiting.
+ */
+@Component
+public class SnowflakeIdGenerator {
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int REFERENCE_LENGTH = 13;
+
+    private final long nodeId;
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public SnowflakeIdGenerator(@Value("${snowflake.node-id}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("snowflake.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Generates the next id of this node.
+     *
+     * @return a positive id greater than every id previously returned by this node
+     */
+    public synchronized long nextId() {
+        long timestamp = System.currentTimeMillis() - EPOCH;
+        if (timestamp > lastTimestamp) {
+            lastTimestamp = timestamp;
+            sequence = 0;
+        } else {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                lastTimestamp++;
+            }
+        }
+        return (lastTimestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Generates the next id as a fixed width, 13 character base 36 string whose lexical order matches the
+     * numeric order of the ids.
+     *
+     * @return the compact reference string
+     */
+    public String nextReference() {
+        return toReference(nextId());
+    }
+
+    /**
+     * Formats an id as a fixed width base 36 reference.
+     *
+     * @param id the id to format
+     * @return the compact reference string
+     */
+    public static String toReference(long id) {
+        String reference = Long.toString(id, Character.MAX_RADIX).toUpperCase();
+        return "0".repeat(REFERENCE_LENGTH - reference.length()) + reference;
+    }
+}
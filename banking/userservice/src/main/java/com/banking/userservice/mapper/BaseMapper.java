@@ -20,11 +20,11 @@ public abstract class BaseMapper<E,D> {
     }
 
     public List<E> covertToEntityList(Collection<D> dtos, Object... args) {
-        return convertToEntity(dtos, args).stream().collect(Collectors.toList());
+        return dtos.stream().map(dto -> convertToEntity(dto, args)).collect(Collectors.toList());
     }
 
     public List<D> convertToDtoList(Collection<E> entities, Object... args) {
-        return convertToDto(entities, args).stream().collect(Collectors.toList());
+        return entities.stream().map(entity -> convertToDto(entity, args)).collect(Collectors.toList());
     }
 
     public Set<E> convertToEntitySet(Collection<D> dtos, Object... args) {
@@ -4,21 +4,29 @@ import com.banking.userservice.model.dto.UserDto;
 import com.banking.userservice.model.dto.UserProfileDto;
 import com.banking.userservice.model.entity.User;
 import com.banking.userservice.model.entity.UserProfile;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.BeanUtils;
 
 import java.util.Objects;
 
 public class UserMapper extends BaseMapper<User, UserDto>{
-    private final ModelMapper mapper = new ModelMapper();
     @Override
     public User convertToEntity(UserDto dto, Object... args) {
         User user = new User();
         if(!Objects.isNull(dto)){
-            BeanUtils.copyProperties(dto, user);
+            user.setUserId(dto.getUserId());
+            user.setEmailId(dto.getEmailId());
+            user.setAuthId(dto.getAuthId());
+            user.setIdentificationNumber(dto.getIdentificationNumber());
+            user.setStatus(dto.getStatus());
             if(!Objects.isNull(dto.getUserProfileDto())){
+                UserProfileDto userProfileDto = dto.getUserProfileDto();
                 UserProfile userProfile = new UserProfile();
-                BeanUtils.copyProperties(dto.getUserProfileDto(), userProfile);
+                userProfile.setFirstName(userProfileDto.getFirstName());
+                userProfile.setLastName(userProfileDto.getLastName());
+                userProfile.setGender(userProfileDto.getGender());
+                userProfile.setAddress(userProfileDto.getAddress());
+                userProfile.setOccupation(userProfileDto.getOccupation());
+                userProfile.setMartialStatus(userProfileDto.getMartialStatus());
+                userProfile.setNationality(userProfileDto.getNationality());
                 user.setUserProfile(userProfile);
             }
         }
@@ -29,10 +37,21 @@ public class UserMapper extends BaseMapper<User, UserDto>{
     public UserDto convertToDto(User entity, Object... args) {
         UserDto userDto = new UserDto();
         if(!Objects.isNull(entity)){
-            BeanUtils.copyProperties(entity, userDto);
+            userDto.setUserId(entity.getUserId());
+            userDto.setEmailId(entity.getEmailId());
+            userDto.setAuthId(entity.getAuthId());
+            userDto.setIdentificationNumber(entity.getIdentificationNumber());
+            userDto.setStatus(entity.getStatus());
             if(!Objects.isNull(entity.getUserProfile())) {
+                UserProfile userProfile = entity.getUserProfile();
                 UserProfileDto userProfileDto = new UserProfileDto();
-                BeanUtils.copyProperties(entity.getUserProfile(), userProfileDto);
+                userProfileDto.setFirstName(userProfile.getFirstName());
+                userProfileDto.setLastName(userProfile.getLastName());
+                userProfileDto.setGender(userProfile.getGender());
+                userProfileDto.setAddress(userProfile.getAddress());
+                userProfileDto.setOccupation(userProfile.getOccupation());
+                userProfileDto.setMartialStatus(userProfile.getMartialStatus());
+                userProfileDto.setNationality(userProfile.getNationality());
                 userDto.setUserProfileDto(userProfileDto);
             }
         }